@@ -1,18 +1,22 @@
 package com.github.thorlauridsen.consumer;
 
 import com.github.thorlauridsen.event.PaymentCompletedEventDto;
+import com.github.thorlauridsen.exception.OrderNotFoundException;
+import com.github.thorlauridsen.model.enumeration.EventType;
 import com.github.thorlauridsen.service.OrderService;
-import io.awspring.cloud.sqs.annotation.SqsListener;
-import lombok.extern.slf4j.Slf4j;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import lombok.val;
 import org.springframework.stereotype.Component;
 import tools.jackson.databind.json.JsonMapper;
 
 /**
  * Consumer for the {@link PaymentCompletedEventDto}.
  * This class will consume the specific event and process it in the {@link OrderService}.
+ * Messages are routed to this consumer by the {@link PaymentEventRouter} or the {@link PaymentOutcomeRouter}.
  */
 @Component
-@Slf4j
 public class PaymentCompletedConsumer extends BaseEventConsumer<PaymentCompletedEventDto> {
 
     private final OrderService orderService;
@@ -20,42 +24,64 @@ public class PaymentCompletedConsumer extends BaseEventConsumer<PaymentCompleted
     /**
      * Constructor for PaymentCompletedConsumer.
      *
-     * @param jsonMapper   FasterXML Jackson {@link JsonMapper} for serialization/deserialization.
-     * @param orderService {@link OrderService} to process consumed events.
+     * @param jsonMapper          FasterXML Jackson {@link JsonMapper} for serialization/deserialization.
+     * @param reorderBuffer       {@link ReorderBuffer} for processing the events of an order in sequence.
+     * @param stripedExecutor     {@link StripedExecutor} for processing the events of an order one at a time.
+     * @param concurrencyLimiter  {@link AdaptiveConcurrencyLimiter} for limiting the events processed at the same time.
+     * @param failurePolicy       {@link ConsumerFailurePolicy} for retrying or dead lettering failed events.
+     * @param groupCommitExecutor {@link GroupCommitExecutor} for committing events processed one by one together.
+     * @param orderService        {@link OrderService} to process consumed events.
      */
     public PaymentCompletedConsumer(
             JsonMapper jsonMapper,
+            ReorderBuffer reorderBuffer,
+            StripedExecutor stripedExecutor,
+            AdaptiveConcurrencyLimiter concurrencyLimiter,
+            ConsumerFailurePolicy failurePolicy,
+            GroupCommitExecutor groupCommitExecutor,
             OrderService orderService
     ) {
-        super(jsonMapper);
+        super(jsonMapper, reorderBuffer, stripedExecutor, concurrencyLimiter, failurePolicy, groupCommitExecutor);
         this.orderService = orderService;
     }
 
     /**
      * Process the event in the {@link OrderService}.
      * The event is converted to a model and processed in the {@link OrderService}.
+     * If the order has not been created yet, the event is retried as not yet consistent.
      *
      * @param event {@link PaymentCompletedEventDto} to process.
+     * @throws OrderNotFoundException if the order is not found.
      */
     @Override
-    protected void processEvent(PaymentCompletedEventDto event) {
-        try {
-            orderService.processPaymentCompleted(event.toModel());
-        } catch (Exception ex) {
-            log.error("Failed to process payment completed event: {} {}", event.getEventType(), event.getId(), ex);
-        }
+    protected void processEvent(PaymentCompletedEventDto event) throws OrderNotFoundException {
+        orderService.processPaymentCompleted(event.toModel());
     }
 
     /**
-     * Listen for messages on the SQS queue.
-     * The queue ARN is defined in application.yml.
+     * Process a batch of events in the {@link OrderService} with a single transaction.
+     * The events are converted to models and processed together.
+     * Events of orders that were not found are processed again one by one.
      *
-     * @param json The JSON message from the SQS queue as a String.
+     * @param events List of {@link PaymentCompletedEventDto} to process.
+     * @return Set of UUIDs of the events that could not be processed.
      */
     @Override
-    @SqsListener("${app.queues.payment-completed}")
-    public void listen(String json) {
-        super.listen(json);
+    protected Set<UUID> processEvents(List<PaymentCompletedEventDto> events) {
+        val models = events.stream()
+                .map(PaymentCompletedEventDto::toModel)
+                .toList();
+        return orderService.processPaymentsCompleted(models);
+    }
+
+    /**
+     * Get the type of the event that this consumer consumes.
+     *
+     * @return {@link EventType#PAYMENT_COMPLETED}.
+     */
+    @Override
+    protected EventType getEventType() {
+        return EventType.PAYMENT_COMPLETED;
     }
 
     /**
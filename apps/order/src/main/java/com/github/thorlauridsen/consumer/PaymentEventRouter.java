@@ -0,0 +1,59 @@
+package com.github.thorlauridsen.consumer;
+
+import io.awspring.cloud.sqs.annotation.SqsListener;
+import io.awspring.cloud.sqs.listener.acknowledgement.BatchAcknowledgement;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Router for the payment events consumed by the order service.
+ * A single listener receives the messages of both payment queues and routes every message
+ * by its event type to the {@link PaymentCompletedConsumer} or the {@link PaymentFailedConsumer}.
+ * <p>
+ * This is only active while the payment outcome topic is disabled, for payment services that publish
+ * every event type to a topic of its own. Otherwise, the {@link PaymentOutcomeRouter} is used instead.
+ */
+@Component
+@ConditionalOnProperty(name = "app.payment-outcome.enabled", havingValue = "false", matchIfMissing = true)
+public class PaymentEventRouter extends RoutingEventConsumer {
+
+    /**
+     * Constructor for PaymentEventRouter.
+     *
+     * @param jsonMapper               FasterXML Jackson {@link JsonMapper} for reading the SNS notifications.
+     * @param failurePolicy            {@link ConsumerFailurePolicy} for messages without a known event type.
+     * @param paymentCompletedConsumer {@link PaymentCompletedConsumer} for payment completed events.
+     * @param paymentFailedConsumer    {@link PaymentFailedConsumer} for payment failed events.
+     */
+    public PaymentEventRouter(
+            JsonMapper jsonMapper,
+            ConsumerFailurePolicy failurePolicy,
+            PaymentCompletedConsumer paymentCompletedConsumer,
+            PaymentFailedConsumer paymentFailedConsumer
+    ) {
+        super(jsonMapper, failurePolicy, List.of(paymentCompletedConsumer, paymentFailedConsumer));
+    }
+
+    /**
+     * Listen for batches of messages on the payment queues.
+     * The queue names are defined in application.yml together with their listener configuration.
+     * Only the processed messages are acknowledged, so failed messages are redelivered.
+     *
+     * @param messages        List of {@link Message} from the SQS queues with JSON payloads.
+     * @param acknowledgement {@link BatchAcknowledgement} for acknowledging the processed messages.
+     */
+    @Override
+    @SqsListener(
+            value = {"${app.queues.payment-completed.name}", "${app.queues.payment-failed.name}"},
+            acknowledgementMode = "MANUAL"
+    )
+    public void listenBatch(
+            List<Message<String>> messages,
+            BatchAcknowledgement<String> acknowledgement
+    ) {
+        super.listenBatch(messages, acknowledgement);
+    }
+}
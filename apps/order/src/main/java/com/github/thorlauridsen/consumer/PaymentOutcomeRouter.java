@@ -0,0 +1,57 @@
+package com.github.thorlauridsen.consumer;
+
+import io.awspring.cloud.sqs.annotation.SqsListener;
+import io.awspring.cloud.sqs.listener.acknowledgement.BatchAcknowledgement;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Router for the payment outcome queue consumed by the order service.
+ * Payment completed and payment failed events are published to a single topic and received from a single queue,
+ * so only one queue is polled. Every message is routed by its event type
+ * to the {@link PaymentCompletedConsumer} or the {@link PaymentFailedConsumer}.
+ * <p>
+ * This is only active when the payment outcome topic is enabled.
+ * Otherwise, the {@link PaymentEventRouter} listens on a queue per event type instead.
+ */
+@Component
+@ConditionalOnProperty(name = "app.payment-outcome.enabled", havingValue = "true")
+public class PaymentOutcomeRouter extends RoutingEventConsumer {
+
+    /**
+     * Constructor for PaymentOutcomeRouter.
+     *
+     * @param jsonMapper               FasterXML Jackson {@link JsonMapper} for reading the SNS notifications.
+     * @param failurePolicy            {@link ConsumerFailurePolicy} for messages without a known event type.
+     * @param paymentCompletedConsumer {@link PaymentCompletedConsumer} for payment completed events.
+     * @param paymentFailedConsumer    {@link PaymentFailedConsumer} for payment failed events.
+     */
+    public PaymentOutcomeRouter(
+            JsonMapper jsonMapper,
+            ConsumerFailurePolicy failurePolicy,
+            PaymentCompletedConsumer paymentCompletedConsumer,
+            PaymentFailedConsumer paymentFailedConsumer
+    ) {
+        super(jsonMapper, failurePolicy, List.of(paymentCompletedConsumer, paymentFailedConsumer));
+    }
+
+    /**
+     * Listen for batches of messages on the payment outcome queue.
+     * The queue name is defined in application.yml together with its listener configuration.
+     * Only the processed messages are acknowledged, so failed messages are redelivered.
+     *
+     * @param messages        List of {@link Message} from the SQS queue with JSON payloads.
+     * @param acknowledgement {@link BatchAcknowledgement} for acknowledging the processed messages.
+     */
+    @Override
+    @SqsListener(value = "${app.queues.payment-outcome.name}", acknowledgementMode = "MANUAL")
+    public void listenBatch(
+            List<Message<String>> messages,
+            BatchAcknowledgement<String> acknowledgement
+    ) {
+        super.listenBatch(messages, acknowledgement);
+    }
+}
@@ -1,11 +1,12 @@
 package com.github.thorlauridsen.persistence;
 
+import com.github.thorlauridsen.model.UuidV7;
 import com.github.thorlauridsen.model.enumeration.OrderStatus;
 import com.github.thorlauridsen.model.Order;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 import java.time.OffsetDateTime;
 import java.util.UUID;
@@ -20,8 +21,10 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class OrderEntity {
 
+    /**
+     * Time-ordered UUIDv7 of the order, assigned before the entity is inserted.
+     */
     @Id
-    @GeneratedValue
     private UUID id;
 
     @Column(nullable = false)
@@ -107,4 +110,16 @@ public class OrderEntity {
                 amount
         );
     }
+
+    /**
+     * Assign a time-ordered UUIDv7 to a new order before it is inserted.
+     * The id is left as null until then so Spring Data still treats the entity as new
+     * and persists it directly instead of merging it.
+     */
+    @PrePersist
+    private void assignId() {
+        if (id == null) {
+            id = UuidV7.generate();
+        }
+    }
 }
@@ -4,6 +4,8 @@ import com.github.thorlauridsen.model.enumeration.OrderStatus;
 import com.github.thorlauridsen.model.Order;
 import com.github.thorlauridsen.model.OrderCreate;
 import com.github.thorlauridsen.model.repository.IOrderRepo;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
@@ -68,4 +70,33 @@ public class OrderRepo implements IOrderRepo {
         val found = jpaRepo.findById(id);
         return found.map(OrderEntity::toModel);
     }
+
+    /**
+     * Find multiple orders by their ids with a single query.
+     *
+     * @param ids Collection of UUIDs of the orders.
+     * @return List of {@link Order} that were found.
+     */
+    @Override
+    public List<Order> findAllById(Collection<UUID> ids) {
+        return jpaRepo.findAllById(ids).stream()
+                .map(OrderEntity::toModel)
+                .toList();
+    }
+
+    /**
+     * Update multiple existing orders at once.
+     *
+     * @param orders Collection of {@link Order} to update.
+     * @return List of updated {@link Order}.
+     */
+    @Override
+    public List<Order> updateAll(Collection<Order> orders) {
+        val entities = orders.stream()
+                .map(OrderEntity::fromModel)
+                .toList();
+        return jpaRepo.saveAll(entities).stream()
+                .map(OrderEntity::toModel)
+                .toList();
+    }
 }
@@ -4,6 +4,7 @@ import com.github.thorlauridsen.event.OrderCreatedEventDto;
 import io.awspring.cloud.sns.core.SnsTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.sns.SnsClient;
 
 /**
  * Producer for the {@link OrderCreatedEventDto}.
@@ -17,12 +18,14 @@ public class OrderCreatedProducer extends BaseEventProducer<OrderCreatedEventDto
      * The topic ARN is defined in application.yml.
      *
      * @param snsTemplate {@link SnsTemplate} to send the event to the SNS topic.
+     * @param snsClient   {@link SnsClient} to publish batches of events to the SNS topic.
      * @param topicArn    The SNS topic ARN to publish the event to.
      */
     public OrderCreatedProducer(
             SnsTemplate snsTemplate,
+            SnsClient snsClient,
             @Value("${app.topics.order-created}") String topicArn
     ) {
-        super(snsTemplate, topicArn);
+        super(snsTemplate, snsClient, topicArn);
     }
 }
@@ -1,14 +1,21 @@
 package com.github.thorlauridsen.producer;
 
-import com.github.thorlauridsen.event.OrderCreatedEventDto;
 import com.github.thorlauridsen.model.enumeration.EventType;
 import com.github.thorlauridsen.model.event.OutboxEvent;
+import com.github.thorlauridsen.model.event.PublishResult;
 import com.github.thorlauridsen.model.repository.IOutboxEventRepo;
 import com.github.thorlauridsen.outbox.BaseOutboxPoller;
+import com.github.thorlauridsen.outbox.OutboxDispatcher;
+import com.github.thorlauridsen.outbox.OutboxProperties;
+import com.github.thorlauridsen.outbox.OutboxShardLeaseManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.springframework.stereotype.Service;
-import tools.jackson.databind.json.JsonMapper;
 
 /**
  * Poller for the outbox table.
@@ -26,42 +33,49 @@ public class OrderOutboxPoller extends BaseOutboxPoller {
     /**
      * Constructor for OrderOutboxPoller.
      *
-     * @param jsonMapper           FasterXML Jackson {@link JsonMapper} for serialization/deserialization.
      * @param orderCreatedProducer {@link OrderCreatedProducer} to publish the order created event.
      * @param outboxEventRepo      {@link IOutboxEventRepo} for interacting with the outbox table.
+     * @param outboxProperties     {@link OutboxProperties} for configuring the poller.
+     * @param outboxDispatcher     {@link OutboxDispatcher} for publishing claimed events in parallel.
+     * @param shardLeaseManager    {@link OutboxShardLeaseManager} for the shards this replica may poll.
      */
     public OrderOutboxPoller(
-            JsonMapper jsonMapper,
             OrderCreatedProducer orderCreatedProducer,
-            IOutboxEventRepo outboxEventRepo
+            IOutboxEventRepo outboxEventRepo,
+            OutboxProperties outboxProperties,
+            OutboxDispatcher outboxDispatcher,
+            OutboxShardLeaseManager shardLeaseManager
     ) {
-        super(jsonMapper, outboxEventRepo);
+        super(outboxEventRepo, outboxProperties, outboxDispatcher, shardLeaseManager);
         this.orderCreatedProducer = orderCreatedProducer;
     }
 
     /**
-     * Process the event from the outbox table.
-     * This will publish the event to the appropriate topic.
+     * Process a batch of events from the outbox table.
+     * The stored payloads are published as-is to the appropriate topic with SNS PublishBatch.
+     * Events with an invalid type are reported as failed.
      *
-     * @param event {@link OutboxEvent} to process.
+     * @param events List of {@link OutboxEvent} to process.
+     * @return {@link PublishResult} with the events that were published and the events that failed.
      */
     @Override
-    public void process(OutboxEvent event) {
-        try {
+    public PublishResult process(List<OutboxEvent> events) {
+        val failed = new HashMap<UUID, String>();
+        val createdEvents = new ArrayList<OutboxEvent>(events.size());
+
+        for (val event : events) {
             log.info("Publishing order event: {} - {}", event.eventType(), event.payload());
 
             if (event.eventType() != EventType.ORDER_CREATED) {
                 log.warn("Invalid order event type: {}", event.eventType());
-                return;
+                failed.put(event.eventId(), "Invalid order event type: " + event.eventType());
+                continue;
             }
-            val createdEvent = jsonMapper.readValue(event.payload(), OrderCreatedEventDto.class);
-            orderCreatedProducer.publish(createdEvent);
-
-            outboxEventRepo.markAsProcessed(event.eventId());
-            log.info("Successfully processed order outbox event: {} {}", event.eventType(), event.eventId());
-
-        } catch (Exception e) {
-            log.error("Failed to process order event: {}", event.eventId(), e);
+            createdEvents.add(event);
         }
+        val result = orderCreatedProducer.publishPayloads(createdEvents);
+        log.info("Successfully processed {} order outbox events", result.published().size());
+
+        return result.merge(new PublishResult(Set.of(), failed));
     }
 }
@@ -4,7 +4,7 @@ import com.github.thorlauridsen.model.enumeration.OrderStatus;
 import com.github.thorlauridsen.model.Order;
 import com.github.thorlauridsen.model.event.OrderCreatedEvent;
 import com.github.thorlauridsen.model.repository.IOutboxEventRepo;
-import java.util.UUID;
+import com.github.thorlauridsen.model.UuidV7;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
@@ -35,7 +35,7 @@ public class OrderOutboxService {
             return;
         }
         val event = new OrderCreatedEvent(
-                UUID.randomUUID(),
+                UuidV7.generate(),
                 order.id(),
                 order.product(),
                 order.amount()
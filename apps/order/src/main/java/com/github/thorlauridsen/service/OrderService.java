@@ -5,15 +5,24 @@ import com.github.thorlauridsen.exception.OrderNotFoundException;
 import com.github.thorlauridsen.model.Order;
 import com.github.thorlauridsen.model.OrderCreate;
 import com.github.thorlauridsen.model.enumeration.OrderStatus;
+import com.github.thorlauridsen.model.event.BaseEvent;
 import com.github.thorlauridsen.model.event.PaymentCompletedEvent;
 import com.github.thorlauridsen.model.event.PaymentFailedEvent;
 import com.github.thorlauridsen.model.repository.IOrderRepo;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Order service class.
@@ -76,6 +85,30 @@ public class OrderService {
         deduplicationService.recordEvent(event.getId());
     }
 
+    /**
+     * Process a batch of payment completed events in a single transaction.
+     * The order status of every related order will be set to COMPLETED.
+     *
+     * @param events List of {@link PaymentCompletedEvent}.
+     * @return Set of UUIDs of the events that could not be processed.
+     */
+    @Transactional
+    public Set<UUID> processPaymentsCompleted(List<PaymentCompletedEvent> events) {
+        return updateOrders(events, PaymentCompletedEvent::getOrderId, OrderStatus.COMPLETED);
+    }
+
+    /**
+     * Process a batch of payment failed events in a single transaction.
+     * The order status of every related order will be set to CANCELLED.
+     *
+     * @param events List of {@link PaymentFailedEvent}.
+     * @return Set of UUIDs of the events that could not be processed.
+     */
+    @Transactional
+    public Set<UUID> processPaymentsFailed(List<PaymentFailedEvent> events) {
+        return updateOrders(events, PaymentFailedEvent::getOrderId, OrderStatus.CANCELLED);
+    }
+
     /**
      * Create a new order.
      *
@@ -133,4 +166,66 @@ public class OrderService {
 
         log.info("Set order status to {} for order id {}", status, updated.id());
     }
+
+    /**
+     * Update the orders related to a batch of events.
+     * <p>
+     * Duplicates are looked up with a single query, and all related orders are loaded with a single query.
+     * The updated orders and the processed events are then saved together in the surrounding transaction.
+     * An event whose order does not exist is reported as failed and is not recorded as processed,
+     * so it is redelivered while the other events of the batch are committed.
+     *
+     * @param events  List of events to process.
+     * @param orderId Function returning the UUID of the order related to an event.
+     * @param status  {@link OrderStatus} to update the orders with.
+     * @param <T>     type of the events.
+     * @return Set of UUIDs of the events that could not be processed.
+     */
+    private <T extends BaseEvent> Set<UUID> updateOrders(
+            List<T> events,
+            Function<T, UUID> orderId,
+            OrderStatus status
+    ) {
+        val eventIds = events.stream()
+                .map(BaseEvent::getId)
+                .toList();
+        val duplicates = deduplicationService.findDuplicates(eventIds);
+
+        val fresh = new LinkedHashMap<UUID, T>();
+        for (val event : events) {
+            if (duplicates.contains(event.getId())) {
+                log.warn("Event already processed with id: {}", event.getId());
+                continue;
+            }
+            fresh.putIfAbsent(event.getId(), event);
+        }
+        if (fresh.isEmpty()) {
+            return Set.of();
+        }
+
+        val orderIds = fresh.values().stream()
+                .map(orderId)
+                .collect(Collectors.toSet());
+        val orders = orderRepo.findAllById(orderIds).stream()
+                .collect(Collectors.toMap(Order::id, Function.identity()));
+
+        val failed = new HashSet<UUID>();
+        val processed = new ArrayList<UUID>();
+        val updated = new LinkedHashMap<UUID, Order>();
+        for (val event : fresh.values()) {
+            val order = orders.get(orderId.apply(event));
+            if (order == null) {
+                log.error("Order not found with id: {}", orderId.apply(event));
+                failed.add(event.getId());
+                continue;
+            }
+            updated.put(order.id(), Order.updateStatus(order, status));
+            processed.add(event.getId());
+        }
+        orderRepo.updateAll(updated.values());
+        deduplicationService.recordEvents(processed);
+
+        log.info("Set order status to {} for {} orders", status, updated.size());
+        return failed;
+    }
 }
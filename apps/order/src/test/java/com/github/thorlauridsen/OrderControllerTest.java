@@ -17,6 +17,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import software.amazon.awssdk.services.sns.SnsClient;
 import tools.jackson.databind.json.JsonMapper;
 
 import java.util.UUID;
@@ -41,6 +42,13 @@ class OrderControllerTest extends BaseControllerTest {
     @MockitoBean
     private SnsTemplate snsTemplate;
 
+    /**
+     * Mocked SnsClient for testing.
+     * The outbox pollers publish events in batches using the SnsClient directly.
+     */
+    @MockitoBean
+    private SnsClient snsClient;
+
     @Autowired
     public OrderControllerTest(
             JsonMapper jsonMapper,
@@ -5,24 +5,47 @@ import com.github.thorlauridsen.model.Order;
 import com.github.thorlauridsen.model.enumeration.EventType;
 import com.github.thorlauridsen.model.enumeration.OrderStatus;
 import com.github.thorlauridsen.model.event.OutboxEvent;
+import com.github.thorlauridsen.model.repository.IOutboxEventRepo;
+import com.github.thorlauridsen.outbox.OutboxDeadLetterJpaRepo;
+import com.github.thorlauridsen.outbox.OutboxDeadLetterNotFoundException;
+import com.github.thorlauridsen.outbox.OutboxDeadLetterService;
+import com.github.thorlauridsen.outbox.OutboxEventEntity;
 import com.github.thorlauridsen.outbox.OutboxEventJpaRepo;
+import com.github.thorlauridsen.outbox.OutboxProperties;
 import com.github.thorlauridsen.producer.OrderOutboxPoller;
 import com.github.thorlauridsen.service.OrderOutboxService;
 import io.awspring.cloud.sns.core.SnsTemplate;
 import lombok.val;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import software.amazon.awssdk.services.sns.SnsClient;
+import software.amazon.awssdk.services.sns.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sns.model.CreateTopicRequest;
+import software.amazon.awssdk.services.sns.model.CreateTopicResponse;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequest;
+import software.amazon.awssdk.services.sns.model.PublishBatchResponse;
+import software.amazon.awssdk.services.sns.model.PublishBatchResultEntry;
 import tools.jackson.databind.json.JsonMapper;
 
 import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -40,6 +63,21 @@ class OrderOutboxTest {
     @Autowired
     private OutboxEventJpaRepo outboxEventRepo;
 
+    @Autowired
+    private IOutboxEventRepo outboxRepo;
+
+    @Autowired
+    private OutboxDeadLetterJpaRepo deadLetterRepo;
+
+    @Autowired
+    private OutboxDeadLetterService deadLetterService;
+
+    @Autowired
+    private OutboxProperties outboxProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     /**
      * Mocked SnsTemplate for testing.
      * Spring Cloud AWS SQS and SNS is disabled in the test profile.
@@ -48,10 +86,30 @@ class OrderOutboxTest {
     @MockitoBean
     private SnsTemplate snsTemplate;
 
+    /**
+     * Mocked SnsClient for testing.
+     * The outbox pollers publish events in batches using the SnsClient directly.
+     */
+    @MockitoBean
+    private SnsClient snsClient;
+
     @BeforeEach
     void setup() {
+        when(snsClient.createTopic(any(CreateTopicRequest.class))).thenReturn(
+                CreateTopicResponse.builder().topicArn("arn:aws:sns:us-east-1:000000000000:test").build()
+        );
+        when(snsClient.publishBatch(any(PublishBatchRequest.class))).thenAnswer(invocation -> {
+            PublishBatchRequest request = invocation.getArgument(0);
+            val successful = request.publishBatchRequestEntries().stream()
+                    .map(entry -> PublishBatchResultEntry.builder().id(entry.id()).build())
+                    .toList();
+            return PublishBatchResponse.builder().successful(successful).build();
+        });
         outboxEventRepo.deleteAll();
+        deadLetterRepo.deleteAll();
+        jdbcTemplate.update("DELETE FROM outbox_archive");
         assertEquals(0, outboxEventRepo.count());
+        assertEquals(0, deadLetterRepo.count());
     }
 
     @Test
@@ -70,9 +128,9 @@ class OrderOutboxTest {
     void prepareCreatedOrder_existsInOutbox() {
         prepareOrder(OrderStatus.CREATED);
         assertEquals(1, outboxEventRepo.count());
-        assertEquals(1, outboxEventRepo.findAllByProcessedFalse().size());
+        assertEquals(1, pendingEvents().size());
 
-        val event = outboxEventRepo.findAllByProcessedFalse().getFirst();
+        val event = pendingEvents().getFirst();
 
         assertNotNull(event);
         assertNotNull(event.getEventId());
@@ -81,7 +139,72 @@ class OrderOutboxTest {
         assertEquals(EventType.ORDER_CREATED, event.getEventType());
 
         orderOutboxPoller.pollOutboxTable();
-        assertEquals(0, outboxEventRepo.findAllByProcessedFalse().size());
+        assertEquals(0, pendingEvents().size());
+    }
+
+    @Test
+    void prepareMultipleCreatedOrders_allProcessedInOnePoll() {
+        prepareOrder(OrderStatus.CREATED);
+        prepareOrder(OrderStatus.CREATED);
+        prepareOrder(OrderStatus.CREATED);
+        assertEquals(3, pendingEvents().size());
+
+        orderOutboxPoller.pollOutboxTable();
+        assertEquals(0, pendingEvents().size());
+        assertEquals(0, outboxEventRepo.count());
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_archive", Integer.class));
+    }
+
+    @Test
+    void prepareMultipleCreatedOrders_failedEntryRemainsUnprocessed() {
+        when(snsClient.publishBatch(any(PublishBatchRequest.class))).thenAnswer(invocation -> {
+            PublishBatchRequest request = invocation.getArgument(0);
+            val entries = request.publishBatchRequestEntries();
+            val failed = entries.stream()
+                    .skip(1)
+                    .map(entry -> BatchResultErrorEntry.builder()
+                            .id(entry.id())
+                            .code("InternalError")
+                            .senderFault(false)
+                            .build())
+                    .toList();
+            return PublishBatchResponse.builder()
+                    .successful(PublishBatchResultEntry.builder().id(entries.getFirst().id()).build())
+                    .failed(failed)
+                    .build();
+        });
+        prepareOrder(OrderStatus.CREATED);
+        prepareOrder(OrderStatus.CREATED);
+        assertEquals(2, pendingEvents().size());
+
+        orderOutboxPoller.pollOutboxTable();
+        assertEquals(1, pendingEvents().size());
+    }
+
+    @Test
+    void recordFailures_maxAttempts_movedToDeadLetterAndRedriven() {
+        prepareOrder(OrderStatus.CREATED);
+        val eventId = pendingEvents().getFirst().getEventId();
+
+        for (var i = 0; i < outboxProperties.retry().maxAttempts(); i++) {
+            outboxRepo.recordFailures(Map.of(eventId, "InternalError: Internal error"));
+        }
+        assertEquals(0, outboxEventRepo.count());
+        assertEquals(1, deadLetterRepo.count());
+
+        val deadLetter = deadLetterService.findAll().getFirst();
+        assertEquals(eventId, deadLetter.eventId());
+        assertEquals(outboxProperties.retry().maxAttempts(), deadLetter.attempts());
+        assertEquals("InternalError: Internal error", deadLetter.lastError());
+
+        assertDoesNotThrow(() -> deadLetterService.redrive(eventId));
+        assertEquals(0, deadLetterRepo.count());
+        assertEquals(1, pendingEvents().size());
+    }
+
+    @Test
+    void redrive_nonExistentDeadLetter_throwsException() {
+        assertThrows(OutboxDeadLetterNotFoundException.class, () -> deadLetterService.redrive(UUID.randomUUID()));
     }
 
     @Test
@@ -94,8 +217,12 @@ class OrderOutboxTest {
     }
 
     @Test
-    void processEvent_invalidPayload_emptyOutbox() {
-        processEvent(EventType.ORDER_CREATED, "invalidPayload");
+    void processEvent_invalidPayload_publishedUnchanged() {
+        assertTrue(processEvent(EventType.ORDER_CREATED, "invalidPayload"));
+
+        val request = ArgumentCaptor.forClass(PublishBatchRequest.class);
+        verify(snsClient).publishBatch(request.capture());
+        assertEquals("invalidPayload", request.getValue().publishBatchRequestEntries().getFirst().message());
         assertEquals(0, outboxEventRepo.count());
     }
 
@@ -117,14 +244,14 @@ class OrderOutboxTest {
 
     /**
      * Process an event in the outbox poller.
-     * If the event type is invalid, the event should not be saved to the outbox.
-     * If the event type is valid but the payload is invalid, the event should not be saved to the outbox.
-     * If the event type and payload are valid, the event should be saved to the outbox.
+     * If the event type is invalid, the event should not be published.
+     * Otherwise, the payload is published as-is, without being deserialized.
      *
      * @param eventType The {@link EventType} of the event.
      * @param payload   The JSON payload of the event.
+     * @return true if the event was published, false otherwise.
      */
-    private void processEvent(
+    private boolean processEvent(
             EventType eventType,
             String payload
     ) {
@@ -135,7 +262,7 @@ class OrderOutboxTest {
                 OffsetDateTime.now(),
                 false
         );
-        orderOutboxPoller.process(entity);
+        return orderOutboxPoller.process(entity);
     }
 
     /**
@@ -152,4 +279,15 @@ class OrderOutboxTest {
         );
         return jsonMapper.writeValueAsString(event);
     }
+
+    /**
+     * Get the outbox events that have not been processed yet.
+     *
+     * @return List of {@link OutboxEventEntity} that are not processed.
+     */
+    private List<OutboxEventEntity> pendingEvents() {
+        return outboxEventRepo.findAll().stream()
+                .filter(event -> !event.getProcessed())
+                .toList();
+    }
 }
@@ -1,30 +1,65 @@
 package com.github.thorlauridsen;
 
+import com.github.thorlauridsen.consumer.ConsumerDeadLetterJpaRepo;
+import com.github.thorlauridsen.consumer.ConsumerDeadLetterService;
+import com.github.thorlauridsen.consumer.ConsumerFailurePolicy;
+import com.github.thorlauridsen.consumer.ConsumerRedriveFailedException;
+import com.github.thorlauridsen.consumer.GroupCommitExecutor;
+import com.github.thorlauridsen.consumer.PaymentEventRouter;
+import com.github.thorlauridsen.deduplication.ProcessedEventEntity;
 import com.github.thorlauridsen.deduplication.ProcessedEventJpaRepo;
+import com.github.thorlauridsen.deduplication.ProcessedSequenceJpaRepo;
+import com.github.thorlauridsen.event.MessageAttributes;
+import com.github.thorlauridsen.event.PaymentCompletedEventDto;
+import com.github.thorlauridsen.event.PaymentFailedEventDto;
+import com.github.thorlauridsen.model.enumeration.EventType;
+import com.github.thorlauridsen.model.enumeration.FailureType;
 import com.github.thorlauridsen.model.enumeration.OrderStatus;
 import com.github.thorlauridsen.exception.OrderNotFoundException;
 import com.github.thorlauridsen.model.Order;
 import com.github.thorlauridsen.model.OrderCreate;
+import com.github.thorlauridsen.model.event.ConsumerDeadLetter;
 import com.github.thorlauridsen.model.event.PaymentCompletedEvent;
 import com.github.thorlauridsen.model.event.PaymentFailedEvent;
+import com.github.thorlauridsen.model.event.ProcessedEvent;
+import com.github.thorlauridsen.model.repository.IConsumerDeadLetterRepo;
 import com.github.thorlauridsen.outbox.OutboxEventJpaRepo;
 import com.github.thorlauridsen.persistence.OrderJpaRepo;
 import com.github.thorlauridsen.service.OrderService;
 import io.awspring.cloud.sns.core.SnsTemplate;
+import io.awspring.cloud.sqs.listener.acknowledgement.BatchAcknowledgement;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 import lombok.val;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import software.amazon.awssdk.services.sns.SnsClient;
+import tools.jackson.databind.json.JsonMapper;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -42,6 +77,30 @@ class OrderServiceTest {
     @Autowired
     private ProcessedEventJpaRepo processedEventRepo;
 
+    @Autowired
+    private ProcessedSequenceJpaRepo processedSequenceRepo;
+
+    @Autowired
+    private ConsumerDeadLetterJpaRepo consumerDeadLetterJpaRepo;
+
+    @Autowired
+    private IConsumerDeadLetterRepo consumerDeadLetterRepo;
+
+    @Autowired
+    private ConsumerDeadLetterService consumerDeadLetterService;
+
+    @Autowired
+    private ConsumerFailurePolicy consumerFailurePolicy;
+
+    @Autowired
+    private PaymentEventRouter paymentEventRouter;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Autowired
+    private GroupCommitExecutor groupCommitExecutor;
+
     /**
      * Mocked SnsTemplate for testing.
      * Spring Cloud AWS SQS and SNS is disabled in the test profile.
@@ -50,11 +109,20 @@ class OrderServiceTest {
     @MockitoBean
     private SnsTemplate snsTemplate;
 
+    /**
+     * Mocked SnsClient for testing.
+     * The outbox pollers publish events in batches using the SnsClient directly.
+     */
+    @MockitoBean
+    private SnsClient snsClient;
+
     @BeforeEach
     void setup() {
         orderRepo.deleteAll();
         outboxEventRepo.deleteAll();
         processedEventRepo.deleteAll();
+        processedSequenceRepo.deleteAll();
+        consumerDeadLetterJpaRepo.deleteAll();
         assertEquals(0, outboxEventRepo.count());
         assertEquals(0, orderRepo.count());
         assertEquals(0, processedEventRepo.count());
@@ -146,6 +214,287 @@ class OrderServiceTest {
         });
     }
 
+    @Test
+    void createOrders_processPaymentsCompletedBatch_missingOrderReportedAsFailed() {
+        val first = createAndAssertOrder();
+        val second = createAndAssertOrder();
+        val firstEvent = new PaymentCompletedEvent(UUID.randomUUID(), UUID.randomUUID(), first.id(), first.amount());
+        val secondEvent = new PaymentCompletedEvent(UUID.randomUUID(), UUID.randomUUID(), second.id(), second.amount());
+        val missingEvent = new PaymentCompletedEvent(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), 199.0);
+
+        val failed = orderService.processPaymentsCompleted(List.of(firstEvent, missingEvent, secondEvent, firstEvent));
+
+        assertEquals(Set.of(missingEvent.getId()), failed);
+        assertEquals(2, processedEventRepo.count());
+        assertDoesNotThrow(() -> {
+            getAndAssertOrder(first.id(), OrderStatus.COMPLETED);
+            getAndAssertOrder(second.id(), OrderStatus.COMPLETED);
+        });
+
+        val redelivered = orderService.processPaymentsFailed(List.of(
+                new PaymentFailedEvent(firstEvent.getId(), firstEvent.getPaymentId(), first.id())
+        ));
+        assertTrue(redelivered.isEmpty());
+        assertDoesNotThrow(() -> getAndAssertOrder(first.id(), OrderStatus.COMPLETED));
+    }
+
+    @Test
+    void classifyFailure_orderNotFoundIsNotYetConsistent() {
+        val notFound = new OrderNotFoundException("Order not found");
+
+        assertEquals(FailureType.NOT_YET_CONSISTENT, consumerFailurePolicy.classify(notFound));
+        assertEquals(FailureType.TRANSIENT, consumerFailurePolicy.classify(new IllegalStateException("Timeout")));
+    }
+
+    @Test
+    void redriveConsumerDeadLetter_failsUntilOrderExists() {
+        val missing = deadLetterPaymentCompleted(UUID.randomUUID());
+
+        assertThrows(ConsumerRedriveFailedException.class, () -> consumerDeadLetterService.redrive(missing.eventId()));
+        val failedAgain = consumerDeadLetterRepo.findById(missing.eventId());
+        assertTrue(failedAgain.isPresent());
+        assertEquals(2, failedAgain.get().attempts());
+
+        val created = createAndAssertOrder();
+        val deadLetter = deadLetterPaymentCompleted(created.id());
+
+        assertEquals(1, consumerDeadLetterService.redriveAll());
+        assertFalse(consumerDeadLetterRepo.findById(deadLetter.eventId()).isPresent());
+        assertTrue(consumerDeadLetterRepo.findById(missing.eventId()).isPresent());
+        assertDoesNotThrow(() -> getAndAssertOrder(created.id(), OrderStatus.COMPLETED));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void routePaymentEvents_dispatchesByEventType() {
+        val created = createAndAssertOrder();
+        val paymentCompleted = notification(EventType.PAYMENT_COMPLETED, jsonMapper.writeValueAsString(
+                new PaymentCompletedEventDto(UUID.randomUUID(), UUID.randomUUID(), created.id(), 199.0)
+        ));
+        val orderCreated = notification(EventType.ORDER_CREATED, "not an event this service consumes");
+        val acknowledgement = (BatchAcknowledgement<String>) mock(BatchAcknowledgement.class);
+
+        paymentEventRouter.listenBatch(List.of(paymentCompleted, orderCreated), acknowledgement);
+
+        verify(acknowledgement).acknowledge(List.of(orderCreated));
+        verify(acknowledgement).acknowledge(List.of(paymentCompleted));
+        assertDoesNotThrow(() -> getAndAssertOrder(created.id(), OrderStatus.COMPLETED));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void routePaymentEvents_withoutEventTypeAttribute() {
+        val created = createAndAssertOrder();
+        val legacy = MessageBuilder.withPayload(jsonMapper.writeValueAsString(
+                new PaymentCompletedEventDto(UUID.randomUUID(), UUID.randomUUID(), created.id(), 199.0)
+        )).build();
+        val unknown = MessageBuilder.withPayload("""
+                {"id": "%s", "eventType": "PAYMENT_REFUNDED"}
+                """.formatted(UUID.randomUUID())).build();
+        val poison = MessageBuilder.withPayload("not an event").build();
+        val acknowledgement = (BatchAcknowledgement<String>) mock(BatchAcknowledgement.class);
+
+        paymentEventRouter.listenBatch(List.of(legacy, unknown, poison), acknowledgement);
+
+        // The event type of the legacy message is read from the event, the unknown event type is retried later.
+        verify(acknowledgement).acknowledge(List.of(poison));
+        verify(acknowledgement).acknowledge(List.of(legacy));
+        verifyNoMoreInteractions(acknowledgement);
+        assertDoesNotThrow(() -> getAndAssertOrder(created.id(), OrderStatus.COMPLETED));
+
+        // Without an SQS message id, the message is dead lettered under a name-based UUID of its body.
+        val deadLetter = consumerDeadLetterRepo.findById(UUID.nameUUIDFromBytes(poison.getPayload().getBytes(StandardCharsets.UTF_8)));
+        assertTrue(deadLetter.isPresent());
+        assertEquals("PaymentEventRouter", deadLetter.get().consumer());
+        assertEquals(FailureType.POISON, deadLetter.get().failureType());
+        assertEquals(1, consumerDeadLetterJpaRepo.count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reorderBuffer_laterEventOfUnknownAggregateWaitsForFirstEvent() throws Exception {
+        val created = createAndAssertOrder();
+        val first = sequenced(EventType.PAYMENT_FAILED, jsonMapper.writeValueAsString(
+                new PaymentFailedEventDto(UUID.randomUUID(), UUID.randomUUID(), created.id())
+        ), created.id(), 1);
+        val second = sequenced(EventType.PAYMENT_COMPLETED, jsonMapper.writeValueAsString(
+                new PaymentCompletedEventDto(UUID.randomUUID(), UUID.randomUUID(), created.id(), 199.0)
+        ), created.id(), 2);
+        val acknowledgement = (BatchAcknowledgement<String>) mock(BatchAcknowledgement.class);
+
+        // The second event arrives first and is held back, as the order has no processed events yet.
+        val secondDelivery = CompletableFuture.runAsync(() -> paymentEventRouter.listenBatch(List.of(second), acknowledgement));
+        Thread.sleep(500);
+        assertFalse(secondDelivery.isDone());
+        assertEquals(OrderStatus.CREATED, orderService.findById(created.id()).status());
+
+        paymentEventRouter.listenBatch(List.of(first), acknowledgement);
+        secondDelivery.get(5, TimeUnit.SECONDS);
+
+        verify(acknowledgement).acknowledge(List.of(first));
+        verify(acknowledgement).acknowledge(List.of(second));
+        assertEquals(OrderStatus.COMPLETED, orderService.findById(created.id()).status());
+        val processedSequence = processedSequenceRepo.findById(created.id());
+        assertTrue(processedSequence.isPresent());
+        assertEquals(2, processedSequence.get().getLastSequence());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reorderBuffer_eventsOfOtherAggregatesAreNotHeldBack() throws Exception {
+        val waiting = createAndAssertOrder();
+        val other = orderService.create(new OrderCreate("Computer", 199.0));
+        val first = sequenced(EventType.PAYMENT_FAILED, jsonMapper.writeValueAsString(
+                new PaymentFailedEventDto(UUID.randomUUID(), UUID.randomUUID(), waiting.id())
+        ), waiting.id(), 1);
+        val second = sequenced(EventType.PAYMENT_COMPLETED, jsonMapper.writeValueAsString(
+                new PaymentCompletedEventDto(UUID.randomUUID(), UUID.randomUUID(), waiting.id(), 199.0)
+        ), waiting.id(), 2);
+        val unrelated = sequenced(EventType.PAYMENT_COMPLETED, jsonMapper.writeValueAsString(
+                new PaymentCompletedEventDto(UUID.randomUUID(), UUID.randomUUID(), other.id(), 199.0)
+        ), other.id(), 1);
+        val acknowledgement = (BatchAcknowledgement<String>) mock(BatchAcknowledgement.class);
+
+        // Only the second event of the first order is held back, the event of the other order is processed right away.
+        val batchDelivery = CompletableFuture.runAsync(
+                () -> paymentEventRouter.listenBatch(List.of(second, unrelated), acknowledgement)
+        );
+        Thread.sleep(500);
+        assertFalse(batchDelivery.isDone());
+        assertEquals(OrderStatus.COMPLETED, orderService.findById(other.id()).status());
+        assertEquals(OrderStatus.CREATED, orderService.findById(waiting.id()).status());
+
+        paymentEventRouter.listenBatch(List.of(first), acknowledgement);
+        batchDelivery.get(5, TimeUnit.SECONDS);
+
+        verify(acknowledgement).acknowledge(List.of(unrelated, second));
+        assertEquals(OrderStatus.COMPLETED, orderService.findById(waiting.id()).status());
+    }
+
+    @Test
+    void groupCommit_failedEventDoesNotRollBackGroup() {
+        val created = createAndAssertOrder();
+        val completed = new PaymentCompletedEvent(UUID.randomUUID(), UUID.randomUUID(), created.id(), 199.0);
+        val failedEventId = UUID.randomUUID();
+        val failure = new IllegalStateException("Event failed after writing");
+
+        // Both events are submitted at once, so they are processed by the same committer in the same group.
+        // The failing event is flushed before it throws, so only rolling back to its savepoint removes its write.
+        val futures = groupCommitExecutor.submit(created.id(), List.<Callable<?>>of(
+                () -> {
+                    orderService.processPaymentCompleted(completed);
+                    return null;
+                },
+                () -> {
+                    processedEventRepo.saveAndFlush(ProcessedEventEntity.fromModel(
+                            new ProcessedEvent(failedEventId, OffsetDateTime.now())
+                    ));
+                    throw failure;
+                }
+        ));
+
+        assertDoesNotThrow(futures.getFirst()::join);
+        val exception = assertThrows(CompletionException.class, futures.getLast()::join);
+        assertEquals(failure, exception.getCause());
+        assertFalse(processedEventRepo.existsById(failedEventId));
+        assertTrue(processedEventRepo.existsById(completed.getId()));
+        assertDoesNotThrow(() -> getAndAssertOrder(created.id(), OrderStatus.COMPLETED));
+    }
+
+    @Test
+    void groupCommit_failedEventSkipsLaterEventsOfSameAggregate() {
+        val created = createAndAssertOrder();
+        val completed = new PaymentCompletedEvent(UUID.randomUUID(), UUID.randomUUID(), created.id(), 199.0);
+        val failure = new IllegalStateException("Earlier event of the order failed");
+
+        val futures = groupCommitExecutor.submit(created.id(), List.<Callable<?>>of(
+                () -> {
+                    throw failure;
+                },
+                () -> {
+                    orderService.processPaymentCompleted(completed);
+                    return null;
+                }
+        ));
+
+        val first = assertThrows(CompletionException.class, futures.getFirst()::join);
+        assertEquals(failure, first.getCause());
+        val second = assertThrows(CompletionException.class, futures.getLast()::join);
+        assertEquals(failure, second.getCause());
+        val order = assertDoesNotThrow(() -> orderService.findById(created.id()));
+        assertEquals(OrderStatus.CREATED, order.status());
+        assertEquals(0, processedEventRepo.count());
+    }
+
+    /**
+     * Wrap an event in an SNS notification as it is delivered to an SQS queue without raw message delivery.
+     *
+     * @param eventType {@link EventType} set as message attribute.
+     * @param event     JSON of the event.
+     * @return {@link Message} with the SNS notification as payload.
+     */
+    private Message<String> notification(EventType eventType, String event) {
+        val body = jsonMapper.writeValueAsString(Map.of(
+                "Type", "Notification",
+                "MessageId", UUID.randomUUID().toString(),
+                "Message", event,
+                "MessageAttributes", Map.of(
+                        MessageAttributes.EVENT_TYPE, Map.of("Type", "String", "Value", eventType.name())
+                )
+        ));
+        return MessageBuilder.withPayload(body).build();
+    }
+
+    /**
+     * Wrap an event in a message as it is delivered to an SQS queue with raw message delivery,
+     * with the aggregate id and sequence number set as message attributes.
+     *
+     * @param eventType   {@link EventType} set as message attribute.
+     * @param event       JSON of the event.
+     * @param aggregateId UUID of the aggregate set as message attribute.
+     * @param sequence    sequence number of the event set as message attribute.
+     * @return {@link Message} with the event as payload.
+     */
+    private Message<String> sequenced(
+            EventType eventType,
+            String event,
+            UUID aggregateId,
+            long sequence
+    ) {
+        return MessageBuilder.withPayload(event)
+                .setHeader(MessageAttributes.EVENT_TYPE, eventType.name())
+                .setHeader(MessageAttributes.AGGREGATE_ID, aggregateId.toString())
+                .setHeader(MessageAttributes.SEQUENCE, String.valueOf(sequence))
+                .build();
+    }
+
+    /**
+     * Store a dead lettered payment completed event for an order, as delivered with raw message delivery.
+     *
+     * @param orderId UUID of the order the payment belongs to.
+     * @return {@link ConsumerDeadLetter} that was stored.
+     */
+    private ConsumerDeadLetter deadLetterPaymentCompleted(UUID orderId) {
+        val eventId = UUID.randomUUID();
+        val payload = """
+                {"id": "%s", "paymentId": "%s", "orderId": "%s", "amount": 199.0}
+                """.formatted(eventId, UUID.randomUUID(), orderId);
+        val deadLetter = new ConsumerDeadLetter(
+                eventId,
+                EventType.PAYMENT_COMPLETED,
+                "PaymentCompletedConsumer",
+                payload,
+                orderId,
+                1L,
+                FailureType.NOT_YET_CONSISTENT,
+                1,
+                "OrderNotFoundException: Order not found with id: " + orderId,
+                null
+        );
+        consumerDeadLetterRepo.save(deadLetter);
+        return deadLetter;
+    }
+
     /**
      * Create an order and assert that it was created successfully.
      * This will assert that the order is present in the database.
@@ -0,0 +1,105 @@
+package com.github.thorlauridsen.consumer;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final DatabasePoolProbe.PoolSample IDLE_POOL = new DatabasePoolProbe.PoolSample(1, 10, 0);
+    private static final DatabasePoolProbe.PoolSample SATURATED_POOL = new DatabasePoolProbe.PoolSample(10, 10, 3);
+
+    private final AdaptiveConcurrencyLimiter limiter = limiter();
+
+    @Test
+    void adjust_backlogWithAllPermitsInUse_growsLimit() {
+        limiter.acquire();
+        limiter.acquire();
+
+        limiter.adjust(depth(5), IDLE_POOL);
+        assertEquals(3, limiter.limit());
+
+        // Without a backlog, the limit stays the same even though the permits are in use.
+        limiter.adjust(depth(0), IDLE_POOL);
+        assertEquals(3, limiter.limit());
+    }
+
+    @Test
+    void adjust_backlogWithPermitsToSpare_keepsLimit() {
+        limiter.acquire();
+
+        limiter.adjust(depth(5), IDLE_POOL);
+        assertEquals(2, limiter.limit());
+    }
+
+    @Test
+    void adjust_unknownDepth_treatedAsBacklog() {
+        limiter.acquire();
+        limiter.acquire();
+
+        limiter.adjust(Optional.empty(), IDLE_POOL);
+        assertEquals(3, limiter.limit());
+    }
+
+    @Test
+    void adjust_congestedLatency_backsOff() {
+        limiter.acquire();
+        limiter.release(1, TimeUnit.MILLISECONDS.toNanos(10));
+        limiter.adjust(depth(0), IDLE_POOL);
+        assertEquals(2, limiter.limit());
+
+        // Processing takes ten times longer than the long-term average, so the limit is halved.
+        limiter.acquire();
+        limiter.release(1, TimeUnit.MILLISECONDS.toNanos(100));
+        limiter.adjust(depth(0), IDLE_POOL);
+        assertEquals(1, limiter.limit());
+    }
+
+    @Test
+    void adjust_saturatedPool_pausesUntilResumed() throws Exception {
+        limiter.adjust(depth(5), SATURATED_POOL);
+        assertEquals(0, limiter.limit());
+
+        val acquired = CompletableFuture.runAsync(limiter::acquire);
+        Thread.sleep(200);
+        assertFalse(acquired.isDone());
+
+        limiter.adjust(depth(5), IDLE_POOL);
+        acquired.get(5, TimeUnit.SECONDS);
+        assertEquals(1, limiter.limit());
+    }
+
+    /**
+     * Create a limiter that starts at a limit of 2 between 1 and 4, and halves the limit when it backs off.
+     * SQS is not available, so the limiter is only adjusted by calling adjust directly.
+     *
+     * @return {@link AdaptiveConcurrencyLimiter}.
+     */
+    @SuppressWarnings("unchecked")
+    private static AdaptiveConcurrencyLimiter limiter() {
+        val concurrency = new ConsumerProperties.Concurrency(true, 2, 1, 4, Duration.ofSeconds(1), 1, 0.5, 2.0, 1);
+        return new AdaptiveConcurrencyLimiter(
+                new ConsumerProperties(null, null, concurrency, null, null, null),
+                (ObjectProvider<SqsAsyncClient>) mock(ObjectProvider.class)
+        );
+    }
+
+    /**
+     * Create a sample of the queue depth.
+     *
+     * @param visible approximate number of messages waiting to be received.
+     * @return Optional of {@link QueueDepthProbe.QueueDepth}.
+     */
+    private static Optional<QueueDepthProbe.QueueDepth> depth(long visible) {
+        return Optional.of(new QueueDepthProbe.QueueDepth(visible, 0));
+    }
+}
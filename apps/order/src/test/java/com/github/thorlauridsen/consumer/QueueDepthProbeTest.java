@@ -0,0 +1,68 @@
+package com.github.thorlauridsen.consumer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import lombok.val;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesResponse;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QueueDepthProbeTest {
+
+    private static final String CONSUMED_QUEUE = "http://localhost:4566/000000000000/consumed-queue";
+    private static final String FAILING_QUEUE = "http://localhost:4566/000000000000/failing-queue";
+    private static final Duration TIMEOUT = Duration.ofSeconds(1);
+
+    private final SqsAsyncClient sqsAsyncClient = mock(SqsAsyncClient.class);
+    private final QueueDepthProbe probe = new QueueDepthProbe(sqsAsyncClient);
+
+    @BeforeEach
+    void setup() {
+        when(sqsAsyncClient.getQueueAttributes(ArgumentMatchers.<Consumer<GetQueueAttributesRequest.Builder>>any()))
+                .thenAnswer(invocation -> {
+                    Consumer<GetQueueAttributesRequest.Builder> request = invocation.getArgument(0);
+                    val builder = GetQueueAttributesRequest.builder();
+                    request.accept(builder);
+                    if (FAILING_QUEUE.equals(builder.build().queueUrl())) {
+                        return CompletableFuture.failedFuture(new IllegalStateException("Queue does not exist"));
+                    }
+                    return CompletableFuture.completedFuture(GetQueueAttributesResponse.builder()
+                            .attributes(Map.of(
+                                    QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES, "5",
+                                    QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE, "2"
+                            ))
+                            .build());
+                });
+    }
+
+    @Test
+    void sample_noRegisteredQueues_isUnknown() {
+        assertEquals(Optional.empty(), probe.sample(TIMEOUT));
+    }
+
+    @Test
+    void sample_failingQueue_isLeftOut() {
+        probe.register(List.of(CONSUMED_QUEUE, FAILING_QUEUE));
+
+        assertEquals(Optional.of(new QueueDepthProbe.QueueDepth(5, 2)), probe.sample(TIMEOUT));
+    }
+
+    @Test
+    void sample_allQueuesFailing_isUnknown() {
+        probe.register(List.of(FAILING_QUEUE));
+
+        assertEquals(Optional.empty(), probe.sample(TIMEOUT));
+    }
+}
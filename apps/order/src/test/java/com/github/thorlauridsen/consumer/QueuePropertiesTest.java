@@ -0,0 +1,64 @@
+package com.github.thorlauridsen.consumer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class QueuePropertiesTest {
+
+    @Test
+    void findByName_queuesOfListenerWithSameSettings() {
+        val completed = queue("payment-completed-queue", 10);
+        val properties = new QueueProperties(Map.of(
+                "payment-completed", completed,
+                "payment-failed", queue("payment-failed-queue", 10),
+                "payment-outcome", queue("payment-outcome-queue", 20)
+        ));
+
+        val found = properties.findByName(List.of("payment-completed-queue", "payment-failed-queue"));
+
+        assertEquals(10, found.orElseThrow().maxConcurrentMessages());
+        assertEquals(Optional.of(completed), properties.findByName(List.of("payment-completed-queue")));
+        assertEquals(Optional.empty(), properties.findByName(List.of("unknown-queue")));
+    }
+
+    @Test
+    void findByName_queuesOfListenerWithConflictingSettings_throws() {
+        val properties = new QueueProperties(Map.of(
+                "payment-completed", queue("payment-completed-queue", 10),
+                "payment-failed", queue("payment-failed-queue", 20)
+        ));
+
+        assertThrows(
+                IllegalStateException.class,
+                () -> properties.findByName(List.of("payment-completed-queue", "payment-failed-queue"))
+        );
+    }
+
+    /**
+     * Create the properties of a queue with the default settings and the given concurrency.
+     *
+     * @param name                  name of the queue.
+     * @param maxConcurrentMessages maximum number of messages processed at the same time from the queue.
+     * @return {@link QueueProperties.Queue}.
+     */
+    private static QueueProperties.Queue queue(
+            String name,
+            int maxConcurrentMessages
+    ) {
+        return new QueueProperties.Queue(
+                name,
+                maxConcurrentMessages,
+                10,
+                Duration.ofSeconds(10),
+                Duration.ofSeconds(1),
+                10
+        );
+    }
+}
@@ -0,0 +1,162 @@
+package com.github.thorlauridsen.consumer;
+
+import com.github.thorlauridsen.event.MessageAttributes;
+import com.github.thorlauridsen.event.PaymentCompletedEventDto;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnsEnvelopeParserTest {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private final SnsEnvelopeParser parser = new SnsEnvelopeParser(jsonMapper);
+
+    @Test
+    void parse_rawDelivery_eventIsBody() {
+        val event = paymentCompleted();
+
+        val envelope = parser.parse(jsonMapper.writeValueAsString(event), PaymentCompletedEventDto.class);
+
+        assertTrue(envelope.raw());
+        assertEvent(event, envelope.event());
+        assertNull(envelope.aggregateId());
+        assertNull(envelope.sequence());
+    }
+
+    @Test
+    void parse_messageAttributesBeforeMessage() {
+        val event = paymentCompleted();
+        val body = new LinkedHashMap<String, Object>();
+        body.put("Type", "Notification");
+        body.put("MessageId", UUID.randomUUID().toString());
+        body.put("MessageAttributes", attributes(event));
+        body.put("Message", jsonMapper.writeValueAsString(event));
+
+        val envelope = parser.parse(jsonMapper.writeValueAsString(body), PaymentCompletedEventDto.class);
+
+        assertFalse(envelope.raw());
+        assertEvent(event, envelope.event());
+        assertEquals(event.getOrderId().toString(), envelope.aggregateId());
+        assertEquals("7", envelope.sequence());
+    }
+
+    @Test
+    void parse_escapedJsonInMessage() {
+        val event = paymentCompleted();
+        // The id is escaped within the event, and the whole event is escaped again as the message of the notification.
+        val id = event.getId().toString();
+        val escapedEvent = jsonMapper.writeValueAsString(event).replace(id, id.replace("-", "\\u002d"));
+        val body = new LinkedHashMap<String, Object>();
+        body.put("Type", "Notification");
+        body.put("Message", escapedEvent);
+        body.put("MessageAttributes", attributes(event));
+
+        val json = jsonMapper.writeValueAsString(body);
+        val envelope = parser.parse(json, PaymentCompletedEventDto.class);
+
+        assertTrue(json.contains("\\\\u002d"));
+        assertFalse(envelope.raw());
+        assertEvent(event, envelope.event());
+        assertEquals("7", envelope.sequence());
+    }
+
+    @Test
+    void parse_unknownEnvelopeField_fallsBackToRaw() {
+        val event = paymentCompleted();
+        val body = new LinkedHashMap<String, Object>();
+        body.put("Type", "Notification");
+        body.put("id", event.getId().toString());
+        body.put("paymentId", event.getPaymentId().toString());
+        body.put("orderId", event.getOrderId().toString());
+        body.put("amount", event.getAmount());
+
+        val envelope = parser.parse(jsonMapper.writeValueAsString(body), PaymentCompletedEventDto.class);
+
+        assertTrue(envelope.raw());
+        assertEvent(event, envelope.event());
+    }
+
+    @Test
+    void parse_notificationWithoutMessage_throws() {
+        val body = jsonMapper.writeValueAsString(Map.of(
+                "Type", "Notification",
+                "MessageId", UUID.randomUUID().toString(),
+                "MessageAttributes", attributes(paymentCompleted())
+        ));
+
+        assertThrows(IllegalArgumentException.class, () -> parser.parse(body, PaymentCompletedEventDto.class));
+    }
+
+    @Test
+    void readEventType_fromAttributeOrEvent() {
+        val event = paymentCompleted();
+        val withAttribute = jsonMapper.writeValueAsString(Map.of(
+                "Type", "Notification",
+                "Message", jsonMapper.writeValueAsString(event),
+                "MessageAttributes", Map.of(
+                        MessageAttributes.EVENT_TYPE, Map.of("Type", "String", "Value", "PAYMENT_FAILED")
+                )
+        ));
+        val withoutAttribute = jsonMapper.writeValueAsString(Map.of(
+                "Type", "Notification",
+                "Message", jsonMapper.writeValueAsString(event)
+        ));
+
+        assertEquals("PAYMENT_FAILED", parser.readEventType(withAttribute));
+        assertEquals("PAYMENT_COMPLETED", parser.readEventType(withoutAttribute));
+        assertEquals("PAYMENT_COMPLETED", parser.readEventType(jsonMapper.writeValueAsString(event)));
+        assertNull(parser.readEventType("{\"Type\": \"Notification\", \"Message\": \"{}\"}"));
+    }
+
+    /**
+     * Create a payment completed event with random ids.
+     *
+     * @return {@link PaymentCompletedEventDto}.
+     */
+    private static PaymentCompletedEventDto paymentCompleted() {
+        return new PaymentCompletedEventDto(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), 199.0);
+    }
+
+    /**
+     * Create the message attributes of an SNS notification for an event, as set by the producers.
+     *
+     * @param event {@link PaymentCompletedEventDto} the notification is for.
+     * @return Map from the name of every message attribute to its type and value.
+     */
+    private static Map<String, Object> attributes(PaymentCompletedEventDto event) {
+        return Map.of(
+                MessageAttributes.EVENT_TYPE, Map.of("Type", "String", "Value", event.getEventType().name()),
+                MessageAttributes.AGGREGATE_ID, Map.of("Type", "String", "Value", event.getOrderId().toString()),
+                MessageAttributes.SEQUENCE, Map.of("Type", "Number", "Value", "7")
+        );
+    }
+
+    /**
+     * Assert that a parsed event has the same fields as the event it was serialized from.
+     *
+     * @param expected {@link PaymentCompletedEventDto} that was serialized.
+     * @param actual   {@link PaymentCompletedEventDto} that was parsed.
+     */
+    private static void assertEvent(
+            PaymentCompletedEventDto expected,
+            PaymentCompletedEventDto actual
+    ) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getPaymentId(), actual.getPaymentId());
+        assertEquals(expected.getOrderId(), actual.getOrderId());
+        assertEquals(expected.getAmount(), actual.getAmount());
+    }
+}
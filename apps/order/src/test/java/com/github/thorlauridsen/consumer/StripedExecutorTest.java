@@ -0,0 +1,93 @@
+package com.github.thorlauridsen.consumer;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import lombok.val;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StripedExecutorTest {
+
+    private final StripedExecutor stripedExecutor = new StripedExecutor(new ConsumerProperties(
+            null,
+            new ConsumerProperties.Striping(1, 1),
+            null,
+            null,
+            null,
+            null
+    ));
+
+    @AfterEach
+    void tearDown() {
+        stripedExecutor.destroy();
+    }
+
+    @Test
+    void submit_fullLane_blocksUntilCapacity() throws Exception {
+        val running = new CountDownLatch(1);
+        val proceed = new CountDownLatch(1);
+        val first = stripedExecutor.submit(UUID.randomUUID(), () -> {
+            running.countDown();
+            await(proceed);
+            return "first";
+        });
+        running.await(5, TimeUnit.SECONDS);
+
+        // The lane only accepts one task, so the second submit blocks the calling thread until the first completes.
+        val second = CompletableFuture.supplyAsync(() -> StripedExecutor.join(
+                stripedExecutor.submit(UUID.randomUUID(), () -> "second")
+        ));
+        Thread.sleep(200);
+        assertFalse(second.isDone());
+
+        proceed.countDown();
+        assertEquals("first", first.get(5, TimeUnit.SECONDS));
+        assertEquals("second", second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void join_rethrowsRuntimeExceptionUnwrapped() {
+        val failure = new IllegalStateException("Task failed");
+        val future = stripedExecutor.submit(UUID.randomUUID(), () -> {
+            throw failure;
+        });
+
+        val exception = assertThrows(IllegalStateException.class, () -> StripedExecutor.join(future));
+        assertSame(failure, exception);
+    }
+
+    @Test
+    void join_keepsCheckedExceptionWrapped() {
+        val failure = new IOException("Task failed");
+
+        val exception = assertThrows(
+                CompletionException.class,
+                () -> StripedExecutor.join(CompletableFuture.failedFuture(new CompletionException(failure)))
+        );
+        assertInstanceOf(IOException.class, exception.getCause());
+        assertSame(failure, exception.getCause());
+    }
+
+    /**
+     * Wait for a latch from a task, which cannot throw checked exceptions.
+     *
+     * @param latch CountDownLatch to wait for.
+     */
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,8 +1,15 @@
 package com.github.thorlauridsen.consumer;
 
 import com.github.thorlauridsen.event.OrderCreatedEventDto;
+import com.github.thorlauridsen.model.enumeration.EventType;
 import com.github.thorlauridsen.service.PaymentService;
 import io.awspring.cloud.sqs.annotation.SqsListener;
+import io.awspring.cloud.sqs.listener.acknowledgement.BatchAcknowledgement;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import lombok.val;
+import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
 import tools.jackson.databind.json.JsonMapper;
 
@@ -18,14 +25,24 @@ public class OrderCreatedConsumer extends BaseEventConsumer<OrderCreatedEventDto
     /**
      * Constructor for OrderCreatedConsumer.
      *
-     * @param jsonMapper     FasterXML Jackson {@link JsonMapper} for serialization/deserialization.
-     * @param paymentService {@link PaymentService} to process consumed events.
+     * @param jsonMapper          FasterXML Jackson {@link JsonMapper} for serialization/deserialization.
+     * @param reorderBuffer       {@link ReorderBuffer} for processing the events of an order in sequence.
+     * @param stripedExecutor     {@link StripedExecutor} for processing the events of an order one at a time.
+     * @param concurrencyLimiter  {@link AdaptiveConcurrencyLimiter} for limiting the events processed at the same time.
+     * @param failurePolicy       {@link ConsumerFailurePolicy} for retrying or dead lettering failed events.
+     * @param groupCommitExecutor {@link GroupCommitExecutor} for committing events processed one by one together.
+     * @param paymentService      {@link PaymentService} to process consumed events.
      */
     public OrderCreatedConsumer(
             JsonMapper jsonMapper,
+            ReorderBuffer reorderBuffer,
+            StripedExecutor stripedExecutor,
+            AdaptiveConcurrencyLimiter concurrencyLimiter,
+            ConsumerFailurePolicy failurePolicy,
+            GroupCommitExecutor groupCommitExecutor,
             PaymentService paymentService
     ) {
-        super(jsonMapper);
+        super(jsonMapper, reorderBuffer, stripedExecutor, concurrencyLimiter, failurePolicy, groupCommitExecutor);
         this.paymentService = paymentService;
     }
 
@@ -41,15 +58,45 @@ public class OrderCreatedConsumer extends BaseEventConsumer<OrderCreatedEventDto
     }
 
     /**
-     * Listen for messages on the SQS queue.
-     * The queue ARN is defined in application.yml.
+     * Process a batch of events in the {@link PaymentService} with a single transaction.
+     * The events are converted to models and processed together.
      *
-     * @param json The JSON message from the SQS queue as a String.
+     * @param events List of {@link OrderCreatedEventDto} to process.
+     * @return Set of UUIDs of the events that could not be processed.
      */
     @Override
-    @SqsListener("${app.queues.order-created}")
-    public void listen(String json) {
-        super.listen(json);
+    protected Set<UUID> processEvents(List<OrderCreatedEventDto> events) {
+        val models = events.stream()
+                .map(OrderCreatedEventDto::toModel)
+                .toList();
+        return paymentService.processOrdersCreated(models);
+    }
+
+    /**
+     * Listen for batches of messages on the SQS queue.
+     * The queue name is defined in application.yml together with its listener configuration.
+     * Only the processed messages are acknowledged, so failed messages are redelivered.
+     *
+     * @param messages        List of {@link Message} from the SQS queue with JSON payloads.
+     * @param acknowledgement {@link BatchAcknowledgement} for acknowledging the processed messages.
+     */
+    @Override
+    @SqsListener(value = "${app.queues.order-created.name}", acknowledgementMode = "MANUAL")
+    public void listenBatch(
+            List<Message<String>> messages,
+            BatchAcknowledgement<String> acknowledgement
+    ) {
+        super.listenBatch(messages, acknowledgement);
+    }
+
+    /**
+     * Get the type of the event that this consumer consumes.
+     *
+     * @return {@link EventType#ORDER_CREATED}.
+     */
+    @Override
+    protected EventType getEventType() {
+        return EventType.ORDER_CREATED;
     }
 
     /**
@@ -1,5 +1,7 @@
 package com.github.thorlauridsen.persistence;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -20,4 +22,12 @@ public interface PaymentJpaRepo extends JpaRepository<PaymentEntity, UUID> {
      * @return {@link Optional} of {@link PaymentEntity}.
      */
     Optional<PaymentEntity> findByOrderId(UUID orderId);
+
+    /**
+     * Find the payments related to multiple orders.
+     *
+     * @param orderIds Collection of UUIDs of the orders.
+     * @return List of {@link PaymentEntity}.
+     */
+    List<PaymentEntity> findAllByOrderIdIn(Collection<UUID> orderIds);
 }
@@ -3,6 +3,8 @@ package com.github.thorlauridsen.persistence;
 import com.github.thorlauridsen.model.Payment;
 import com.github.thorlauridsen.model.PaymentCreate;
 import com.github.thorlauridsen.model.repository.IPaymentRepo;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
@@ -55,4 +57,40 @@ public class PaymentRepo implements IPaymentRepo {
         val found = jpaRepo.findByOrderId(orderId);
         return found.map(PaymentEntity::toModel);
     }
+
+    /**
+     * Save multiple payments in the database at once.
+     *
+     * @param payments List of {@link PaymentCreate} for creating payments.
+     * @return List of {@link Payment} in the same order.
+     */
+    @Override
+    public List<Payment> saveAll(List<PaymentCreate> payments) {
+        val entities = payments.stream()
+                .map(payment -> new PaymentEntity(
+                        payment.orderId(),
+                        payment.status(),
+                        payment.amount()
+                ))
+                .toList();
+        return jpaRepo.saveAll(entities).stream()
+                .map(PaymentEntity::toModel)
+                .toList();
+    }
+
+    /**
+     * Find the payments related to multiple orders with a single query.
+     *
+     * @param orderIds Collection of UUIDs of the orders.
+     * @return List of {@link Payment} that were found.
+     */
+    @Override
+    public List<Payment> findAllByOrderIds(Collection<UUID> orderIds) {
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+        return jpaRepo.findAllByOrderIdIn(orderIds).stream()
+                .map(PaymentEntity::toModel)
+                .toList();
+    }
 }
@@ -4,6 +4,7 @@ import com.github.thorlauridsen.event.PaymentCompletedEventDto;
 import io.awspring.cloud.sns.core.SnsTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.sns.SnsClient;
 
 /**
  * Producer for the {@link PaymentCompletedEventDto}.
@@ -17,12 +18,14 @@ public class PaymentCompletedProducer extends BaseEventProducer<PaymentCompleted
      * The topic ARN is defined in application.yml.
      *
      * @param snsTemplate {@link SnsTemplate} for publishing events.
+     * @param snsClient   {@link SnsClient} to publish batches of events to the SNS topic.
      * @param topicArn    The SNS topic ARN to publish the event to.
      */
     public PaymentCompletedProducer(
             SnsTemplate snsTemplate,
+            SnsClient snsClient,
             @Value("${app.topics.payment-completed}") String topicArn
     ) {
-        super(snsTemplate, topicArn);
+        super(snsTemplate, snsClient, topicArn);
     }
 }
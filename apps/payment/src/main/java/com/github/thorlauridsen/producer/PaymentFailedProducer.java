@@ -4,6 +4,7 @@ import com.github.thorlauridsen.event.PaymentFailedEventDto;
 import io.awspring.cloud.sns.core.SnsTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.sns.SnsClient;
 
 /**
  * Producer for the {@link PaymentFailedEventDto}.
@@ -17,12 +18,14 @@ public class PaymentFailedProducer extends BaseEventProducer<PaymentFailedEventD
      * The topic ARN is defined in application.yml.
      *
      * @param snsTemplate {@link SnsTemplate} to publish the event to the SNS topic.
+     * @param snsClient   {@link SnsClient} to publish batches of events to the SNS topic.
      * @param topicArn    The SNS topic ARN to publish the event to.
      */
     public PaymentFailedProducer(
             SnsTemplate snsTemplate,
+            SnsClient snsClient,
             @Value("${app.topics.payment-failed}") String topicArn
     ) {
-        super(snsTemplate, topicArn);
+        super(snsTemplate, snsClient, topicArn);
     }
 }
@@ -1,13 +1,22 @@
 package com.github.thorlauridsen.producer;
 
-import com.github.thorlauridsen.event.PaymentCompletedEventDto;
-import com.github.thorlauridsen.event.PaymentFailedEventDto;
+import com.github.thorlauridsen.model.enumeration.EventType;
 import com.github.thorlauridsen.model.event.OutboxEvent;
+import com.github.thorlauridsen.model.event.PublishResult;
 import com.github.thorlauridsen.model.repository.IOutboxEventRepo;
 import com.github.thorlauridsen.outbox.BaseOutboxPoller;
+import com.github.thorlauridsen.outbox.OutboxDispatcher;
+import com.github.thorlauridsen.outbox.OutboxProperties;
+import com.github.thorlauridsen.outbox.OutboxShardLeaseManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
-import tools.jackson.databind.json.JsonMapper;
 
 /**
  * Poller for the outbox table.
@@ -15,62 +24,112 @@ import tools.jackson.databind.json.JsonMapper;
  * The purpose of this is to follow the transactional outbox pattern.
  * When state is updated, the event is saved to the outbox table.
  * The poller will then process the event and publish it to the appropriate topic.
+ * <p>
+ * If the payment outcome topic is enabled, payment completed and payment failed events are published
+ * together to that topic by the {@link PaymentOutcomeProducer}. Otherwise, each type has its own topic.
  */
 @Service
 @Slf4j
 public class PaymentOutboxPoller extends BaseOutboxPoller {
 
+    private static final String OUTCOME_LANE = "PAYMENT_OUTCOME";
+
     private final PaymentCompletedProducer paymentCompletedProducer;
     private final PaymentFailedProducer paymentFailedProducer;
+    private final PaymentOutcomeProducer paymentOutcomeProducer;
 
     /**
      * Constructor for PaymentOutboxPoller.
      *
-     * @param jsonMapper               FasterXML Jackson {@link JsonMapper} for serialization/deserialization.
      * @param outboxEventRepo          {@link IOutboxEventRepo} for interacting with the outbox table.
      * @param paymentCompletedProducer {@link PaymentCompletedProducer} for publishing payment completed events.
      * @param paymentFailedProducer    {@link PaymentFailedProducer} for publishing payment failed events.
+     * @param paymentOutcomeProducer   ObjectProvider of {@link PaymentOutcomeProducer}, which is only available
+     *                                 if the payment outcome topic is enabled.
+     * @param outboxProperties         {@link OutboxProperties} for configuring the poller.
+     * @param outboxDispatcher         {@link OutboxDispatcher} for publishing claimed events in parallel.
+     * @param shardLeaseManager        {@link OutboxShardLeaseManager} for the shards this replica may poll.
      */
     public PaymentOutboxPoller(
-            JsonMapper jsonMapper,
             IOutboxEventRepo outboxEventRepo,
             PaymentCompletedProducer paymentCompletedProducer,
-            PaymentFailedProducer paymentFailedProducer
+            PaymentFailedProducer paymentFailedProducer,
+            ObjectProvider<PaymentOutcomeProducer> paymentOutcomeProducer,
+            OutboxProperties outboxProperties,
+            OutboxDispatcher outboxDispatcher,
+            OutboxShardLeaseManager shardLeaseManager
     ) {
-        super(jsonMapper, outboxEventRepo);
+        super(outboxEventRepo, outboxProperties, outboxDispatcher, shardLeaseManager);
         this.paymentCompletedProducer = paymentCompletedProducer;
         this.paymentFailedProducer = paymentFailedProducer;
+        this.paymentOutcomeProducer = paymentOutcomeProducer.getIfAvailable();
     }
 
     /**
-     * Process the event from the outbox table.
-     * This will publish the event to the appropriate topic.
+     * Get the lane of an event in the {@link OutboxDispatcher}.
+     * If the payment outcome topic is enabled, payment completed and payment failed events share a single lane,
+     * so they are published to the outcome topic together and in the order they were saved.
+     * Otherwise, every event type has a lane of its own.
      *
-     * @param event {@link OutboxEvent} to process.
+     * @param event {@link OutboxEvent} to get the lane of.
+     * @return key of the lane.
      */
     @Override
-    public void process(OutboxEvent event) {
-        try {
+    protected String laneOf(OutboxEvent event) {
+        if (paymentOutcomeProducer != null && (event.eventType() == EventType.PAYMENT_COMPLETED
+                || event.eventType() == EventType.PAYMENT_FAILED)) {
+            return OUTCOME_LANE;
+        }
+        return super.laneOf(event);
+    }
+
+    /**
+     * Process a batch of events from the outbox table.
+     * The events are grouped by type and the stored payloads of each group are published as-is
+     * to the appropriate topic with SNS PublishBatch.
+     * If the payment outcome topic is enabled, the batch holds the events of the outcome lane,
+     * which are published to the outcome topic in the same requests, in the order of the batch.
+     * Events with an invalid type are reported as failed.
+     *
+     * @param events List of {@link OutboxEvent} to process.
+     * @return {@link PublishResult} with the events that were published and the events that failed.
+     */
+    @Override
+    public PublishResult process(List<OutboxEvent> events) {
+        val failed = new HashMap<UUID, String>();
+        val completedEvents = new ArrayList<OutboxEvent>();
+        val failedEvents = new ArrayList<OutboxEvent>();
+
+        for (val event : events) {
             log.info("Publishing payment event: {} - {}", event.eventType(), event.payload());
 
             switch (event.eventType()) {
                 case PAYMENT_COMPLETED:
-                    var completedEvent = jsonMapper.readValue(event.payload(), PaymentCompletedEventDto.class);
-                    paymentCompletedProducer.publish(completedEvent);
+                    completedEvents.add(event);
                     break;
                 case PAYMENT_FAILED:
-                    var failedEvent = jsonMapper.readValue(event.payload(), PaymentFailedEventDto.class);
-                    paymentFailedProducer.publish(failedEvent);
+                    failedEvents.add(event);
                     break;
                 default:
                     log.warn("Invalid payment event type: {}", event.eventType());
-                    return;
+                    failed.put(event.eventId(), "Invalid payment event type: " + event.eventType());
             }
-            outboxEventRepo.markAsProcessed(event.eventId());
-            log.info("Successfully processed payment outbox event: {} {}", event.eventType(), event.eventId());
-
-        } catch (Exception e) {
-            log.error("Failed to process payment event: {}", event.eventId(), e);
         }
+        PublishResult result;
+        if (paymentOutcomeProducer != null) {
+            val outcomeEvents = new ArrayList<OutboxEvent>(completedEvents.size() + failedEvents.size());
+            for (val event : events) {
+                if (!failed.containsKey(event.eventId())) {
+                    outcomeEvents.add(event);
+                }
+            }
+            result = paymentOutcomeProducer.publishPayloads(outcomeEvents);
+        } else {
+            result = paymentCompletedProducer.publishPayloads(completedEvents)
+                    .merge(paymentFailedProducer.publishPayloads(failedEvents));
+        }
+        log.info("Successfully processed {} payment outbox events", result.published().size());
+
+        return result.merge(new PublishResult(Set.of(), failed));
     }
 }
@@ -0,0 +1,37 @@
+package com.github.thorlauridsen.producer;
+
+import com.github.thorlauridsen.event.BaseEventDto;
+import io.awspring.cloud.sns.core.SnsTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.sns.SnsClient;
+
+/**
+ * Producer for the outcome of a payment.
+ * This class will publish both payment completed and payment failed events to a single SNS topic.
+ * Every event carries its type as a message attribute, so consumers can route it before deserializing it.
+ * <p>
+ * This is only active when the payment outcome topic is enabled.
+ * Otherwise, the {@link PaymentCompletedProducer} and {@link PaymentFailedProducer} publish to a topic each.
+ */
+@Service
+@ConditionalOnProperty(name = "app.payment-outcome.enabled", havingValue = "true")
+public class PaymentOutcomeProducer extends BaseEventProducer<BaseEventDto> {
+
+    /**
+     * Constructor for PaymentOutcomeProducer.
+     * The topic ARN is defined in application.yml.
+     *
+     * @param snsTemplate {@link SnsTemplate} to publish the event to the SNS topic.
+     * @param snsClient   {@link SnsClient} to publish batches of events to the SNS topic.
+     * @param topicArn    The SNS topic ARN to publish the event to.
+     */
+    public PaymentOutcomeProducer(
+            SnsTemplate snsTemplate,
+            SnsClient snsClient,
+            @Value("${app.topics.payment-outcome}") String topicArn
+    ) {
+        super(snsTemplate, snsClient, topicArn);
+    }
+}
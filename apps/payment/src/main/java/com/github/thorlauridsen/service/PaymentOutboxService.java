@@ -3,8 +3,8 @@ package com.github.thorlauridsen.service;
 import com.github.thorlauridsen.model.Payment;
 import com.github.thorlauridsen.model.event.PaymentCompletedEvent;
 import com.github.thorlauridsen.model.event.PaymentFailedEvent;
+import com.github.thorlauridsen.model.UuidV7;
 import com.github.thorlauridsen.outbox.OutboxEventRepo;
-import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import lombok.val;
 import org.springframework.stereotype.Service;
@@ -32,7 +32,7 @@ public class PaymentOutboxService {
         switch (payment.status()) {
             case COMPLETED -> {
                 val event = new PaymentCompletedEvent(
-                        UUID.randomUUID(),
+                        UuidV7.generate(),
                         payment.id(),
                         payment.orderId(),
                         payment.amount()
@@ -41,7 +41,7 @@ public class PaymentOutboxService {
             }
             case FAILED -> {
                 val event = new PaymentFailedEvent(
-                        UUID.randomUUID(),
+                        UuidV7.generate(),
                         payment.id(),
                         payment.orderId()
                 );
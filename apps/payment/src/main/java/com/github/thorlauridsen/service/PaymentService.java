@@ -7,13 +7,20 @@ import com.github.thorlauridsen.model.PaymentCreate;
 import com.github.thorlauridsen.model.enumeration.PaymentStatus;
 import com.github.thorlauridsen.model.event.OrderCreatedEvent;
 import com.github.thorlauridsen.model.repository.IPaymentRepo;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.springframework.stereotype.Service;
 
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
 
 /**
  * Payment service class.
@@ -52,14 +59,9 @@ public class PaymentService {
             log.warn("Event already processed with id: {}", event.getId());
             return;
         }
-        val random = new Random().nextBoolean();
-        var status = PaymentStatus.COMPLETED;
-        if (random) {
-            status = PaymentStatus.FAILED;
-        }
         val payment = new PaymentCreate(
                 event.getOrderId(),
-                status,
+                randomStatus(),
                 event.getAmount()
         );
         val saved = paymentRepo.save(payment);
@@ -67,6 +69,56 @@ public class PaymentService {
         outboxService.prepareEvent(saved);
     }
 
+    /**
+     * Process a batch of order created events in a single transaction.
+     * A new payment will be created for every order that does not have a payment yet.
+     * <p>
+     * Duplicates are looked up with a single query, and existing payments of all related orders
+     * are loaded with a single query. The new payments and the processed events are then saved
+     * together, and an outbox event is prepared for every new payment in the same transaction.
+     *
+     * @param events List of {@link OrderCreatedEvent}.
+     * @return Set of UUIDs of the events that could not be processed.
+     */
+    @Transactional
+    public Set<UUID> processOrdersCreated(List<OrderCreatedEvent> events) {
+        val eventIds = events.stream()
+                .map(OrderCreatedEvent::getId)
+                .toList();
+        val duplicates = deduplicationService.findDuplicates(eventIds);
+
+        val orderIds = events.stream()
+                .map(OrderCreatedEvent::getOrderId)
+                .toList();
+        val paidOrderIds = paymentRepo.findAllByOrderIds(orderIds).stream()
+                .map(Payment::orderId)
+                .collect(Collectors.toCollection(HashSet::new));
+
+        val processed = new LinkedHashSet<UUID>();
+        val payments = new ArrayList<PaymentCreate>();
+        for (val event : events) {
+            if (duplicates.contains(event.getId()) || !processed.add(event.getId())) {
+                log.warn("Event already processed with id: {}", event.getId());
+                continue;
+            }
+            if (!paidOrderIds.add(event.getOrderId())) {
+                log.warn("Payment already exists for order id: {}", event.getOrderId());
+                continue;
+            }
+            payments.add(new PaymentCreate(
+                    event.getOrderId(),
+                    randomStatus(),
+                    event.getAmount()
+            ));
+        }
+        val saved = paymentRepo.saveAll(payments);
+        deduplicationService.recordEvents(processed);
+        saved.forEach(outboxService::prepareEvent);
+
+        log.info("Created {} payments for {} events", saved.size(), events.size());
+        return Set.of();
+    }
+
     /**
      * Find a payment by order id.
      *
@@ -84,4 +136,16 @@ public class PaymentService {
         log.info("Found payment: {}", payment);
         return payment.get();
     }
+
+    /**
+     * Randomly pick the status of a new payment.
+     * This is only for demonstration purposes.
+     *
+     * @return {@link PaymentStatus} COMPLETED or FAILED.
+     */
+    private static PaymentStatus randomStatus() {
+        return ThreadLocalRandom.current().nextBoolean()
+                ? PaymentStatus.FAILED
+                : PaymentStatus.COMPLETED;
+    }
 }
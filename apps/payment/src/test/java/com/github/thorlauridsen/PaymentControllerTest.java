@@ -13,6 +13,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import software.amazon.awssdk.services.sns.SnsClient;
 
 import java.util.UUID;
 
@@ -36,6 +37,13 @@ class PaymentControllerTest extends BaseControllerTest {
     @MockitoBean
     private SnsTemplate snsTemplate;
 
+    /**
+     * Mocked SnsClient for testing.
+     * The outbox pollers publish events in batches using the SnsClient directly.
+     */
+    @MockitoBean
+    private SnsClient snsClient;
+
     @Autowired
     public PaymentControllerTest(
             OutboxEventJpaRepo outboxEventRepo,
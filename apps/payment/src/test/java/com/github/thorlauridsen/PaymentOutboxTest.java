@@ -5,6 +5,7 @@ import com.github.thorlauridsen.model.Payment;
 import com.github.thorlauridsen.model.enumeration.EventType;
 import com.github.thorlauridsen.model.enumeration.PaymentStatus;
 import com.github.thorlauridsen.model.event.OutboxEvent;
+import com.github.thorlauridsen.outbox.OutboxEventEntity;
 import com.github.thorlauridsen.outbox.OutboxEventJpaRepo;
 import com.github.thorlauridsen.producer.PaymentOutboxPoller;
 import com.github.thorlauridsen.service.PaymentOutboxService;
@@ -12,17 +13,30 @@ import io.awspring.cloud.sns.core.SnsTemplate;
 import lombok.val;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import software.amazon.awssdk.services.sns.SnsClient;
+import software.amazon.awssdk.services.sns.model.CreateTopicRequest;
+import software.amazon.awssdk.services.sns.model.CreateTopicResponse;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequest;
+import software.amazon.awssdk.services.sns.model.PublishBatchResponse;
+import software.amazon.awssdk.services.sns.model.PublishBatchResultEntry;
 import tools.jackson.databind.json.JsonMapper;
 
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -48,8 +62,25 @@ class PaymentOutboxTest {
     @MockitoBean
     private SnsTemplate snsTemplate;
 
+    /**
+     * Mocked SnsClient for testing.
+     * The outbox pollers publish events in batches using the SnsClient directly.
+     */
+    @MockitoBean
+    private SnsClient snsClient;
+
     @BeforeEach
     void setup() {
+        when(snsClient.createTopic(any(CreateTopicRequest.class))).thenReturn(
+                CreateTopicResponse.builder().topicArn("arn:aws:sns:us-east-1:000000000000:test").build()
+        );
+        when(snsClient.publishBatch(any(PublishBatchRequest.class))).thenAnswer(invocation -> {
+            PublishBatchRequest request = invocation.getArgument(0);
+            val successful = request.publishBatchRequestEntries().stream()
+                    .map(entry -> PublishBatchResultEntry.builder().id(entry.id()).build())
+                    .toList();
+            return PublishBatchResponse.builder().successful(successful).build();
+        });
         outboxEventRepo.deleteAll();
         assertEquals(0, outboxEventRepo.count());
     }
@@ -64,6 +95,31 @@ class PaymentOutboxTest {
         preparePaymentAndAssert(PaymentStatus.FAILED, EventType.PAYMENT_FAILED);
     }
 
+    @Test
+    void prepareMultiplePaymentsForSameOrder_sequencedPerOrder() {
+        val orderId = UUID.randomUUID();
+        val otherOrderId = UUID.randomUUID();
+        paymentOutboxService.prepareEvent(new Payment(UUID.randomUUID(), orderId, OffsetDateTime.now(), PaymentStatus.FAILED, 199.0));
+        paymentOutboxService.prepareEvent(new Payment(UUID.randomUUID(), otherOrderId, OffsetDateTime.now(), PaymentStatus.FAILED, 99.0));
+        paymentOutboxService.prepareEvent(new Payment(UUID.randomUUID(), orderId, OffsetDateTime.now(), PaymentStatus.COMPLETED, 199.0));
+
+        val events = pendingEvents();
+        assertEquals(3, events.size());
+
+        val sequences = events.stream()
+                .filter(event -> orderId.equals(event.getAggregateId()))
+                .map(OutboxEventEntity::getSequence)
+                .sorted()
+                .toList();
+        assertEquals(List.of(1L, 2L), sequences);
+
+        val otherSequences = events.stream()
+                .filter(event -> otherOrderId.equals(event.getAggregateId()))
+                .map(OutboxEventEntity::getSequence)
+                .toList();
+        assertEquals(List.of(1L), otherSequences);
+    }
+
     @Test
     void processEvent_invalidEventType_emptyOutbox() {
         val json = getPaymentCompletedEventJson();
@@ -73,10 +129,15 @@ class PaymentOutboxTest {
     }
 
     @Test
-    void processEvent_invalidPayload_emptyOutbox() {
-        processEvent(EventType.PAYMENT_COMPLETED, "invalidPayload");
-        processEvent(EventType.PAYMENT_FAILED, "invalidPayload");
-
+    void processEvent_invalidPayload_publishedUnchanged() {
+        assertTrue(processEvent(EventType.PAYMENT_COMPLETED, "invalidPayload"));
+        assertTrue(processEvent(EventType.PAYMENT_FAILED, "invalidPayload"));
+
+        val request = ArgumentCaptor.forClass(PublishBatchRequest.class);
+        verify(snsClient, times(2)).publishBatch(request.capture());
+        for (val published : request.getAllValues()) {
+            assertEquals("invalidPayload", published.publishBatchRequestEntries().getFirst().message());
+        }
         assertEquals(0, outboxEventRepo.count());
     }
 
@@ -101,9 +162,9 @@ class PaymentOutboxTest {
         paymentOutboxService.prepareEvent(payment);
 
         assertEquals(1, outboxEventRepo.count());
-        assertEquals(1, outboxEventRepo.findAllByProcessedFalse().size());
+        assertEquals(1, pendingEvents().size());
 
-        val event = outboxEventRepo.findAllByProcessedFalse().getFirst();
+        val event = pendingEvents().getFirst();
 
         assertNotNull(event);
         assertNotNull(event.getEventId());
@@ -112,19 +173,19 @@ class PaymentOutboxTest {
         assertEquals(expectedEventType, event.getEventType());
 
         paymentOutboxPoller.pollOutboxTable();
-        assertEquals(0, outboxEventRepo.findAllByProcessedFalse().size());
+        assertEquals(0, pendingEvents().size());
     }
 
     /**
      * Process an event in the outbox poller.
-     * If the event type is invalid, the event should not be saved to the outbox.
-     * If the event type is valid but the payload is invalid, the event should not be saved to the outbox.
-     * If the event type and payload are valid, the event should be saved to the outbox.
+     * If the event type is invalid, the event should not be published.
+     * Otherwise, the payload is published as-is, without being deserialized.
      *
      * @param eventType The {@link EventType} of the event.
      * @param payload   The JSON payload of the event.
+     * @return true if the event was published, false otherwise.
      */
-    private void processEvent(
+    private boolean processEvent(
             EventType eventType,
             String payload
     ) {
@@ -135,7 +196,7 @@ class PaymentOutboxTest {
                 OffsetDateTime.now(),
                 false
         );
-        paymentOutboxPoller.process(entity);
+        return paymentOutboxPoller.process(entity);
     }
 
     /**
@@ -152,4 +213,15 @@ class PaymentOutboxTest {
         );
         return jsonMapper.writeValueAsString(event);
     }
+
+    /**
+     * Get the outbox events that have not been processed yet.
+     *
+     * @return List of {@link OutboxEventEntity} that are not processed.
+     */
+    private List<OutboxEventEntity> pendingEvents() {
+        return outboxEventRepo.findAll().stream()
+                .filter(event -> !event.getProcessed())
+                .toList();
+    }
 }
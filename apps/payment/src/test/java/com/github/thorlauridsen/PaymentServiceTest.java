@@ -7,6 +7,7 @@ import com.github.thorlauridsen.outbox.OutboxEventJpaRepo;
 import com.github.thorlauridsen.persistence.PaymentJpaRepo;
 import com.github.thorlauridsen.service.PaymentService;
 import io.awspring.cloud.sns.core.SnsTemplate;
+import java.util.List;
 import java.util.UUID;
 import lombok.val;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,11 +16,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import software.amazon.awssdk.services.sns.SnsClient;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -45,6 +48,13 @@ class PaymentServiceTest {
     @MockitoBean
     private SnsTemplate snsTemplate;
 
+    /**
+     * Mocked SnsClient for testing.
+     * The outbox pollers publish events in batches using the SnsClient directly.
+     */
+    @MockitoBean
+    private SnsClient snsClient;
+
     @BeforeEach
     void setup() {
         outboxEventRepo.deleteAll();
@@ -87,6 +97,24 @@ class PaymentServiceTest {
         assertDoesNotThrow(() -> getAndAssertPayment(event.getOrderId()));
     }
 
+    @Test
+    void processOrdersCreatedBatch_onePaymentPerOrder() {
+        val first = new OrderCreatedEvent(UUID.randomUUID(), UUID.randomUUID(), "Computer", 199.0);
+        val second = new OrderCreatedEvent(UUID.randomUUID(), UUID.randomUUID(), "Keyboard", 49.0);
+        val sameOrder = new OrderCreatedEvent(UUID.randomUUID(), first.getOrderId(), "Computer", 199.0);
+
+        val failed = paymentService.processOrdersCreated(List.of(first, second, first, sameOrder));
+
+        assertTrue(failed.isEmpty());
+        assertEquals(2, paymentRepo.count());
+        assertEquals(2, outboxEventRepo.count());
+        assertEquals(3, processedEventRepo.count());
+        assertDoesNotThrow(() -> {
+            paymentService.findByOrderId(first.getOrderId());
+            paymentService.findByOrderId(second.getOrderId());
+        });
+    }
+
     /**
      * Get payment by order id and assert that it was found successfully.
      * This will also assert that the outbox, payment and processed event are present in the database.
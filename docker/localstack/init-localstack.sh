@@ -12,4 +12,8 @@ awslocal sqs create-queue --queue-name payment-failed-queue
 awslocal sns create-topic --name payment-failed-topic
 awslocal sqs get-queue-attributes --queue-url http://sqs.us-east-1.localhost.localstack.cloud:4566/000000000000/payment-failed-queue --attribute-name QueueArn
 awslocal sns subscribe --topic-arn arn:aws:sns:us-east-1:000000000000:payment-failed-topic --protocol sqs --notification-endpoint arn:aws:sqs:us-east-1:000000000000:payment-failed-queue
+awslocal sqs create-queue --queue-name payment-outcome-queue
+awslocal sns create-topic --name payment-outcome-topic
+awslocal sqs get-queue-attributes --queue-url http://sqs.us-east-1.localhost.localstack.cloud:4566/000000000000/payment-outcome-queue --attribute-name QueueArn
+awslocal sns subscribe --topic-arn arn:aws:sns:us-east-1:000000000000:payment-outcome-topic --protocol sqs --notification-endpoint arn:aws:sqs:us-east-1:000000000000:payment-outcome-queue
 awslocal sns list-subscriptions
@@ -3,13 +3,22 @@ plugins {
 }
 
 dependencies {
-	// The consumer subproject needs access to the event and model subprojects
+	// The consumer subproject needs access to the event, exception and model subprojects
 	implementation(projects.event)
+	implementation(projects.exception)
 	implementation(projects.model)
 
+	// The consumer subproject stores dead lettered payloads with the UTF-8 payload converter of the outbox subproject
+	implementation(projects.outbox)
+
 	// Spring Boot dependencies
 	implementation(local.springboot.starter.jackson)
+	implementation(local.springboot.starter.jpa)
+	implementation(local.springboot.starter.webmvc)
 
 	// Spring Cloud dependencies for AWS SQS
 	implementation(local.aws.spring.cloud.sqs)
+
+	// Springdoc OpenAPI for providing Swagger documentation of the dead letter endpoints
+	implementation(local.springdoc.openapi.starter.webmvc)
 }
@@ -0,0 +1,244 @@
+package com.github.thorlauridsen.consumer;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+
+/**
+ * Limits the number of events the consumers of an application process at the same time,
+ * and adapts the limit to the depth of the queues and the load of the database.
+ * <p>
+ * Every event, or partition of a batch, must acquire a permit before it is processed and release it afterward.
+ * On a fixed interval, a controller samples the approximate number of messages in the queues consumed by the listeners,
+ * the number of events in flight, how long processing took per event, and the connection pools.
+ * The limit is then adjusted with additive increase and multiplicative decrease:
+ * <ul>
+ *     <li>While the queues have a backlog and all permits are in use, the limit grows by a fixed increase.</li>
+ *     <li>While processing takes much longer than its long-term average, the limit is multiplied by the backoff ratio.</li>
+ *     <li>While threads are waiting for a database connection, the limit is reduced and processing is paused.</li>
+ * </ul>
+ * A permit is acquired on the listener thread. While no permit is available, the listener thread blocks
+ * and keeps holding its slot in the listener container, so the container stops polling for more messages
+ * instead of draining the connection pool that is shared with the web tier.
+ * <p>
+ * Processing time is measured around the processing of the event, which is a single database transaction
+ * in every consumer, so it covers acquiring a connection, the statements and the commit.
+ */
+@Component
+@Slf4j
+public class AdaptiveConcurrencyLimiter implements SmartLifecycle {
+
+    private static final double LONG_LATENCY_SMOOTHING = 0.05;
+
+    private final ConsumerProperties.Concurrency concurrency;
+    private final DatabasePoolProbe poolProbe;
+    private final QueueDepthProbe depthProbe;
+
+    private volatile ScheduledExecutorService scheduler;
+    private double limit;
+    private boolean paused;
+    private int inFlight;
+    private int peakInFlight;
+    private long latencySum;
+    private long latencyCount;
+    private double longLatency = Double.NaN;
+
+    /**
+     * Constructor for AdaptiveConcurrencyLimiter.
+     *
+     * @param consumerProperties {@link ConsumerProperties} for configuring the limiter.
+     * @param sqsAsyncClient     ObjectProvider of {@link SqsAsyncClient}, which is not available if SQS is disabled.
+     */
+    public AdaptiveConcurrencyLimiter(
+            ConsumerProperties consumerProperties,
+            ObjectProvider<SqsAsyncClient> sqsAsyncClient
+    ) {
+        this.concurrency = consumerProperties.concurrency();
+        this.poolProbe = new DatabasePoolProbe();
+        this.depthProbe = new QueueDepthProbe(sqsAsyncClient.getIfAvailable());
+        this.limit = Math.clamp(concurrency.initialLimit(), concurrency.minLimit(), concurrency.maxLimit());
+    }
+
+    /**
+     * Acquire a permit to process an event.
+     * The calling thread waits while processing is paused or all permits are in use.
+     */
+    public synchronized void acquire() {
+        if (!concurrency.enabled()) {
+            return;
+        }
+        try {
+            while (paused || inFlight >= (int) limit) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for a consumer permit", e);
+        }
+        inFlight++;
+        peakInFlight = Math.max(peakInFlight, inFlight);
+    }
+
+    /**
+     * Release a permit after processing one or more events and record how long it took.
+     *
+     * @param events       number of events that were processed with the permit.
+     * @param elapsedNanos how long processing the events took in nanoseconds.
+     */
+    public synchronized void release(
+            int events,
+            long elapsedNanos
+    ) {
+        if (!concurrency.enabled()) {
+            return;
+        }
+        if (events > 0) {
+            latencySum += elapsedNanos;
+            latencyCount += events;
+        }
+        release();
+    }
+
+    /**
+     * Release a permit without recording a processing time,
+     * for example if the event could not be handed over for processing.
+     */
+    public synchronized void release() {
+        if (!concurrency.enabled()) {
+            return;
+        }
+        inFlight--;
+        notifyAll();
+    }
+
+    /**
+     * Register the queues consumed by a listener, so their depth is sampled when adjusting the limit.
+     *
+     * @param queueNames Collection of names or URLs of the queues.
+     */
+    public void registerQueues(Collection<String> queueNames) {
+        depthProbe.register(queueNames);
+    }
+
+    /**
+     * Get the current number of events that may be processed at the same time.
+     *
+     * @return the current limit, or 0 while processing is paused.
+     */
+    public synchronized int limit() {
+        return paused ? 0 : (int) limit;
+    }
+
+    /**
+     * Start sampling the queues and the database on a dedicated thread.
+     * Nothing is started if the limiter is disabled.
+     */
+    @Override
+    public void start() {
+        if (!concurrency.enabled()) {
+            return;
+        }
+        val threadFactory = Thread.ofPlatform()
+                .name("consumer-concurrency")
+                .daemon(true)
+                .factory();
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        val interval = concurrency.sampleInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::sample, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop sampling and resume processing, so no listener thread stays blocked while the application stops.
+     */
+    @Override
+    public void stop() {
+        val current = scheduler;
+        scheduler = null;
+        if (current == null) {
+            return;
+        }
+        current.shutdownNow();
+        synchronized (this) {
+            paused = false;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Check whether the limiter is sampling the queues and the database.
+     *
+     * @return true if the limit is being adapted.
+     */
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    /**
+     * Sample the queues and the database and adjust the limit.
+     * The samples are taken without holding the lock, as reading the queue depth calls SQS.
+     * Exceptions are logged rather than thrown, so the next sample still runs.
+     */
+    void sample() {
+        try {
+            val depth = depthProbe.sample(concurrency.sampleInterval());
+            val pool = poolProbe.sample();
+            adjust(depth, pool);
+        } catch (RuntimeException e) {
+            log.error("Failed to adjust the consumer concurrency limit", e);
+        }
+    }
+
+    /**
+     * Adjust the limit from a sample of the queues and the database, and wake up the waiting threads.
+     *
+     * @param depth Optional of {@link QueueDepthProbe.QueueDepth}, empty if the depth of the queues is unknown.
+     * @param pool  {@link DatabasePoolProbe.PoolSample} of the connection pools.
+     */
+    synchronized void adjust(
+            Optional<QueueDepthProbe.QueueDepth> depth,
+            DatabasePoolProbe.PoolSample pool
+    ) {
+        val previousLimit = limit();
+        val latency = latencyCount > 0 ? (double) latencySum / latencyCount : Double.NaN;
+        val congested = !Double.isNaN(latency)
+                && !Double.isNaN(longLatency)
+                && latency > longLatency * concurrency.latencyTolerance();
+        val saturated = pool.awaiting() >= concurrency.saturatedAwaitingThreads();
+        val backlog = depth.map(queues -> queues.visible() > 0).orElse(true);
+
+        paused = saturated;
+        if (saturated || congested) {
+            limit = Math.max(concurrency.minLimit(), limit * concurrency.backoffRatio());
+        } else if (backlog && peakInFlight >= (int) limit) {
+            limit = Math.min(concurrency.maxLimit(), limit + concurrency.increase());
+        }
+
+        if (!Double.isNaN(latency)) {
+            longLatency = Double.isNaN(longLatency)
+                    ? latency
+                    : longLatency + (latency - longLatency) * LONG_LATENCY_SMOOTHING;
+        }
+        latencySum = 0;
+        latencyCount = 0;
+        peakInFlight = inFlight;
+
+        if (limit() != previousLimit) {
+            log.info(
+                    "Consumer concurrency limit {} -> {}: in flight {}, queues {}, connections {}/{} with {} waiting, {} ms per event",
+                    previousLimit, limit(), inFlight, depth.map(Object::toString).orElse("unknown"),
+                    pool.active(), pool.total(), pool.awaiting(), Double.isNaN(latency) ? "-" : Math.round(latency / 1_000_000)
+            );
+        }
+        notifyAll();
+    }
+}
@@ -1,54 +1,669 @@
 package com.github.thorlauridsen.consumer;
 
 import com.github.thorlauridsen.event.BaseEventDto;
-import com.github.thorlauridsen.event.SnsNotificationDto;
-import io.awspring.cloud.sqs.annotation.SqsListener;
-import lombok.RequiredArgsConstructor;
+import com.github.thorlauridsen.event.MessageAttributes;
+import com.github.thorlauridsen.model.enumeration.EventType;
+import com.github.thorlauridsen.model.enumeration.FailureType;
+import com.github.thorlauridsen.model.event.ConsumerDeadLetter;
+import io.awspring.cloud.sqs.listener.SqsHeaders;
+import io.awspring.cloud.sqs.listener.Visibility;
+import io.awspring.cloud.sqs.listener.acknowledgement.BatchAcknowledgement;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
+import org.springframework.messaging.Message;
+import org.springframework.util.ClassUtils;
 import tools.jackson.databind.json.JsonMapper;
 
 /**
  * Abstract class for an event consumer.
  * This contains common logic for all event consumers.
+ * <p>
+ * Events that carry an aggregate id and sequence number as message attributes
+ * are passed through the {@link ReorderBuffer}, so the events of an aggregate
+ * are processed in the order they were saved to the outbox of the publisher.
+ * Events are then processed in the lane of their aggregate in the {@link StripedExecutor},
+ * so events of the same aggregate never run concurrently, even when they are received from
+ * different queues, while events of different aggregates are processed in parallel.
+ * The {@link AdaptiveConcurrencyLimiter} bounds how many events are processed at the same time.
+ * Events that are processed one by one are handed to the {@link GroupCommitExecutor},
+ * so events from many messages share a single transaction and are only acknowledged once it has committed.
+ * <p>
+ * Exceptions thrown while processing an event are handled by the {@link ConsumerFailurePolicy}.
+ * Transient and not-yet-consistent failures are retried by changing the visibility timeout of the message
+ * to an exponential backoff, so SQS redelivers it later instead of right away. Poison events, and events
+ * that ran out of attempts, are moved to the consumer dead letter table and their message is acknowledged.
+ * <p>
+ * A consumer can either listen for one message at a time with {@link #listen(String)},
+ * or for a batch of messages with {@link #listenBatch(List, BatchAcknowledgement)}.
+ * The listener method is chosen by annotating the override in the subclass with {@code @SqsListener}.
+ * Alternatively, the consumer can be registered with a {@link RoutingEventConsumer},
+ * which listens for messages of several event types on one queue and passes each message to its consumer.
  *
  * @param <T> The type of event to consume.
  */
-@RequiredArgsConstructor
 @Slf4j
 public abstract class BaseEventConsumer<T extends BaseEventDto> {
 
-    private final JsonMapper jsonMapper;
+    private final ReorderBuffer reorderBuffer;
+    private final StripedExecutor stripedExecutor;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final ConsumerFailurePolicy failurePolicy;
+    private final GroupCommitExecutor groupCommitExecutor;
+    private final SnsEnvelopeParser envelopeParser;
+
+    /**
+     * Constructor for BaseEventConsumer.
+     *
+     * @param jsonMapper          FasterXML Jackson {@link JsonMapper} for deserialization.
+     * @param reorderBuffer       {@link ReorderBuffer} for processing the events of an aggregate in sequence.
+     * @param stripedExecutor     {@link StripedExecutor} for processing the events of an aggregate one at a time.
+     * @param concurrencyLimiter  {@link AdaptiveConcurrencyLimiter} for limiting the events processed at the same time.
+     * @param failurePolicy       {@link ConsumerFailurePolicy} for retrying or dead lettering failed events.
+     * @param groupCommitExecutor {@link GroupCommitExecutor} for committing events processed one by one together.
+     */
+    protected BaseEventConsumer(
+            JsonMapper jsonMapper,
+            ReorderBuffer reorderBuffer,
+            StripedExecutor stripedExecutor,
+            AdaptiveConcurrencyLimiter concurrencyLimiter,
+            ConsumerFailurePolicy failurePolicy,
+            GroupCommitExecutor groupCommitExecutor
+    ) {
+        this.reorderBuffer = reorderBuffer;
+        this.stripedExecutor = stripedExecutor;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.failurePolicy = failurePolicy;
+        this.groupCommitExecutor = groupCommitExecutor;
+        this.envelopeParser = new SnsEnvelopeParser(jsonMapper);
+    }
 
     /**
      * Listen for messages on the SQS queue.
-     * Convert the JSON message to an SNS notification.
-     * Deserialize the message and pass it to the processEvent method.
+     * Deserialize the event from the SNS notification, or from the body itself with raw message delivery.
+     * Pass the event to the processEvent method in the lane of its aggregate,
+     * once all earlier events of the same aggregate have been processed.
+     * <p>
+     * The listener thread waits for the event to be processed. A poison event is dead lettered,
+     * so the message is acknowledged. Any other exception is propagated to the listener container,
+     * so the message is not acknowledged and is redelivered once its visibility timeout expires.
+     * Use {@link #listenBatch(List, BatchAcknowledgement)} to retry with exponential backoff instead.
      *
      * @param json The JSON message from the SQS queue as a String.
      */
-    @SqsListener
     public void listen(String json) {
 
         log.debug("Received JSON: {}", json);
 
-        val notification = jsonMapper.readValue(json, SnsNotificationDto.class);
-        log.debug("Received SNS notification: {}", notification);
+        Received<T> received = null;
+        try {
+            received = parse(null, json);
+            process(received);
+        } catch (RuntimeException e) {
+            val failureType = classify(e);
+            if (failureType != FailureType.POISON || !deadLetter(null, json, received, failureType, 1, e)) {
+                throw e;
+            }
+            advance(received);
+        }
+    }
+
+    /**
+     * Listen for a batch of messages on the SQS queue.
+     * <p>
+     * The event of every message is deserialized in a single pass, and the whole batch
+     * is passed to the processEvents method at once. This allows the implementation to look up
+     * duplicates, load the affected entities and commit the batch in a single round-trip each.
+     * The events are passed in sequence order, once the earlier events of their aggregate have been processed.
+     * <p>
+     * The batch is split by the lane of each aggregate in the {@link StripedExecutor},
+     * and the partitions are processed in parallel with one processEvents call each.
+     * The events of an aggregate that is missing earlier events are split off into a partition of their own,
+     * which waits in the {@link ReorderBuffer} while the rest of the batch is processed.
+     * Events that could not be processed together are then processed one by one with processEvent,
+     * so every failure is isolated to its own event and classified by its own exception.
+     * Those events are committed by the {@link GroupCommitExecutor}, together with events of other partitions.
+     * <p>
+     * The listener must use the MANUAL acknowledgement mode. Processed and dead lettered messages
+     * are acknowledged. Every other failed message is left unacknowledged with its visibility timeout
+     * set to the backoff of its attempt, so SQS redelivers it once the backoff has passed.
+     *
+     * @param messages        List of {@link Message} from the SQS queue with JSON payloads.
+     * @param acknowledgement {@link BatchAcknowledgement} for acknowledging the processed messages.
+     */
+    public void listenBatch(
+            List<Message<String>> messages,
+            BatchAcknowledgement<String> acknowledgement
+    ) {
+        log.debug("Received batch of {} messages", messages.size());
+
+        val completed = new ArrayList<Message<String>>(messages.size());
+        val batch = new ArrayList<Received<T>>(messages.size());
+        for (val message : messages) {
+            try {
+                batch.add(parse(message, message.getPayload()));
+            } catch (Exception e) {
+                log.error("Failed to deserialize message: {}", messageId(message), e);
+                if (handleFailure(message, null, e)) {
+                    completed.add(message);
+                }
+            }
+        }
+        batch.sort(Comparator.comparing(Received::sequence, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        val failures = processInLanes(batch);
+
+        var processed = 0;
+        for (val received : batch) {
+            val failure = failures.get(received.event().getId());
+            if (failure == null) {
+                processed++;
+            } else if (!handleFailure(received.message(), received, failure)) {
+                continue;
+            }
+            completed.add(received.message());
+            advance(received);
+        }
+        acknowledgement.acknowledge(completed);
+        log.info("Processed {} of {} messages", processed, messages.size());
+    }
+
+    /**
+     * Process a dead lettered event again in the lane of its aggregate.
+     * The reorder buffer is bypassed, as the successors of the event have usually been processed long ago.
+     *
+     * @param payload body of the message the event was received in.
+     * @return CompletableFuture completed once the event has been processed,
+     * or completed exceptionally if it failed again.
+     */
+    CompletableFuture<Void> redrive(String payload) {
+        val received = parse(null, payload);
+        return submit(received.key(), 1, () -> processUnchecked(received));
+    }
+
+    /**
+     * Get the name of this consumer, which is stored with its dead lettered events.
+     *
+     * @return simple class name of the consumer.
+     */
+    public String getName() {
+        return ClassUtils.getUserClass(getClass()).getSimpleName();
+    }
+
+    /**
+     * Process a single received event in the lane of its aggregate, after the events before it.
+     *
+     * @param received {@link Received} event to process.
+     */
+    private void process(Received<T> received) {
+        Runnable task = () -> StripedExecutor.join(submit(received.key(), 1, () -> processUnchecked(received)));
+        if (received.aggregateId() == null || received.sequence() == null) {
+            task.run();
+            return;
+        }
+        reorderBuffer.process(received.aggregateId(), received.sequence(), task);
+    }
+
+    /**
+     * Split a batch of events by the lane of their aggregate and process the partitions in parallel.
+     * The events of aggregates that are missing earlier events are held back in a partition per aggregate,
+     * which is only submitted to its lane once the earlier events have been processed or the timeout expires.
+     * The order of the events within a partition is preserved.
+     *
+     * @param batch List of {@link Received} events in sequence order.
+     * @return Map from the UUID of every event that could not be processed to the exception it failed with.
+     */
+    private Map<UUID, Exception> processInLanes(List<Received<T>> batch) {
+        val firstSequences = new HashMap<UUID, Long>();
+        for (val received : batch) {
+            if (received.aggregateId() != null && received.sequence() != null) {
+                firstSequences.putIfAbsent(received.aggregateId(), received.sequence());
+            }
+        }
+        val gaps = reorderBuffer.findGaps(firstSequences);
+
+        val partitions = new HashMap<Integer, Partition<T>>();
+        val heldBack = new LinkedHashMap<UUID, Partition<T>>();
+        for (val received : batch) {
+            val key = received.key();
+            val partition = received.aggregateId() != null && gaps.contains(received.aggregateId())
+                    ? heldBack.computeIfAbsent(received.aggregateId(), aggregateId -> new Partition<>(key, new ArrayList<>()))
+                    : partitions.computeIfAbsent(stripedExecutor.laneOf(key), lane -> new Partition<>(key, new ArrayList<>()));
+            partition.events().add(received);
+        }
 
-        val eventJson = notification.message();
-        T event = jsonMapper.readValue(eventJson, getEventClass());
+        val lanes = new ArrayList<Partition<T>>(partitions.size() + heldBack.size());
+        val futures = new ArrayList<CompletableFuture<Map<UUID, Exception>>>(lanes.size());
+        for (val partition : partitions.values()) {
+            lanes.add(partition);
+            futures.add(submit(partition.key(), partition.events().size(), () -> processPartition(partition.events())));
+        }
+        heldBack.forEach((aggregateId, partition) -> {
+            lanes.add(partition);
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> {
+                        if (!reorderBuffer.awaitTurns(Map.of(aggregateId, firstSequences.get(aggregateId)))) {
+                            log.warn("Processing {} events of aggregate {} out of order", partition.events().size(), aggregateId);
+                        }
+                        return StripedExecutor.join(submit(
+                                partition.key(), partition.events().size(), () -> processPartition(partition.events())
+                        ));
+                    },
+                    task -> Thread.ofVirtual().name("reorder-" + aggregateId).start(task)
+            ));
+        });
 
+        val failures = new HashMap<UUID, Exception>();
+        for (var i = 0; i < lanes.size(); i++) {
+            val partition = lanes.get(i);
+            try {
+                failures.putAll(StripedExecutor.join(futures.get(i)));
+            } catch (Exception e) {
+                log.error("Failed to process partition of {} events", partition.events().size(), e);
+                partition.events().forEach(received -> failures.put(received.event().getId(), e));
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Process the events of a partition together with processEvents,
+     * then process the events that were left over one by one with processEvent.
+     * The processEvents call runs in a transaction that also stores the sequence numbers of the processed events.
+     * The leftover events are submitted to the {@link GroupCommitExecutor} at once, in sequence order,
+     * so they are committed in the same group whenever possible. The leftover events of an aggregate
+     * are submitted together, so once one of them fails, the later ones fail with the same exception.
+     *
+     * @param partition List of {@link Received} events to process, in sequence order.
+     * @return Map from the UUID of every event that could not be processed to the exception it failed with.
+     */
+    private Map<UUID, Exception> processPartition(List<Received<T>> partition) {
+        val events = partition.stream()
+                .map(Received::event)
+                .toList();
+        Set<UUID> remaining;
+        try {
+            remaining = groupCommitExecutor.execute(() -> {
+                val notProcessed = processEvents(events);
+                record(partition.stream()
+                        .filter(received -> !notProcessed.contains(received.event().getId()))
+                        .toList());
+                return notProcessed;
+            });
+        } catch (Exception e) {
+            log.warn("Failed to process {} events together, processing them one by one", events.size(), e);
+            remaining = eventIds(events);
+        }
+
+        val aggregates = new LinkedHashMap<UUID, List<Received<T>>>();
+        for (val received : partition) {
+            if (remaining.contains(received.event().getId())) {
+                aggregates.computeIfAbsent(received.key(), key -> new ArrayList<>()).add(received);
+            }
+        }
+
+        val leftovers = new ArrayList<Received<T>>(remaining.size());
+        val futures = new ArrayList<CompletableFuture<Void>>(remaining.size());
+        aggregates.forEach((key, aggregateEvents) -> {
+            leftovers.addAll(aggregateEvents);
+            futures.addAll(commit(key, aggregateEvents));
+        });
+
+        val failures = new HashMap<UUID, Exception>();
+        for (var i = 0; i < leftovers.size(); i++) {
+            val event = leftovers.get(i).event();
+            try {
+                StripedExecutor.join(futures.get(i));
+            } catch (Exception e) {
+                log.warn("Failed to process event: {} {}", event.getEventType(), event.getId(), e);
+                failures.put(event.getId(), e);
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Submit a task to the lane of an aggregate once the {@link AdaptiveConcurrencyLimiter} grants a permit.
+     * The permit is released when the task completes, together with how long the task took.
+     *
+     * @param key    UUID of the aggregate the task belongs to.
+     * @param events number of events the task processes.
+     * @param task   Supplier that processes the events.
+     * @param <R>    type of the result of the task.
+     * @return CompletableFuture completed with the result of the task.
+     */
+    private <R> CompletableFuture<R> submit(
+            UUID key,
+            int events,
+            Supplier<R> task
+    ) {
+        concurrencyLimiter.acquire();
+        try {
+            return stripedExecutor.submit(key, () -> {
+                val start = System.nanoTime();
+                try {
+                    return task.get();
+                } finally {
+                    concurrencyLimiter.release(events, System.nanoTime() - start);
+                }
+            });
+        } catch (RuntimeException e) {
+            concurrencyLimiter.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Process an event with processEvent from a task that cannot throw checked exceptions,
+     * and wait for it to be committed by the {@link GroupCommitExecutor}.
+     *
+     * @param received {@link Received} event to process.
+     * @return null.
+     * @throws CompletionException wrapping a checked exception thrown by processEvent.
+     */
+    private Void processUnchecked(Received<T> received) {
+        return StripedExecutor.join(commit(received.key(), List.of(received)).getFirst());
+    }
+
+    /**
+     * Submit events of an aggregate to be processed with processEvent by the {@link GroupCommitExecutor}.
+     * The sequence number of every event is stored in the same transaction as the event.
+     *
+     * @param key    UUID of the aggregate the events belong to.
+     * @param events List of {@link Received} events of the aggregate to process, in sequence order.
+     * @return List of CompletableFuture in the same order, each completed once its event has been committed.
+     */
+    private List<CompletableFuture<Void>> commit(
+            UUID key,
+            List<Received<T>> events
+    ) {
+        val tasks = new ArrayList<Callable<?>>(events.size());
+        for (val received : events) {
+            tasks.add(() -> {
+                processEvent(received.event());
+                record(List.of(received));
+                return null;
+            });
+        }
+        return groupCommitExecutor.submit(key, tasks);
+    }
+
+    /**
+     * Store the highest sequence number of every aggregate among the given processed events in the
+     * {@link ReorderBuffer}, so the events after them are not held back after a restart.
+     *
+     * @param processed List of {@link Received} events that have been processed.
+     */
+    private void record(List<Received<T>> processed) {
+        val lastSequences = new HashMap<UUID, Long>();
+        for (val received : processed) {
+            if (received.aggregateId() != null && received.sequence() != null) {
+                lastSequences.merge(received.aggregateId(), received.sequence(), Math::max);
+            }
+        }
+        reorderBuffer.record(lastSequences);
+    }
+
+    /**
+     * Handle a message whose event could not be deserialized or processed.
+     * The message is either dead lettered, or its visibility timeout is changed to the backoff of its attempt.
+     *
+     * @param message   Message the event was received in.
+     * @param received  {@link Received} event, or null if the message could not be deserialized.
+     * @param exception Exception the event failed with.
+     * @return true if the message was dead lettered and should be acknowledged.
+     */
+    private boolean handleFailure(
+            Message<String> message,
+            Received<T> received,
+            Exception exception
+    ) {
+        val failureType = classify(exception);
+        val attempt = receiveCount(message);
+        if (failurePolicy.shouldDeadLetter(failureType, attempt)) {
+            return deadLetter(message, message.getPayload(), received, failureType, attempt, exception);
+        }
+        val backoff = failurePolicy.backoffSeconds(attempt);
+        log.warn(
+                "Retrying message {} in {} seconds after {} failure on attempt {}: {}",
+                messageId(message), backoff, failureType, attempt, ConsumerFailurePolicy.describe(exception)
+        );
+        changeVisibility(message, backoff);
+        return false;
+    }
+
+    /**
+     * Move a failed event to the consumer dead letter table.
+     * If the event could not be deserialized, the SQS message id is used instead,
+     * or a name-based UUID of the body when listening for single messages.
+     * Both stay the same when the message is redelivered, so a poison message is only dead lettered once.
+     * The sequence number of the event is stored as processed, so its successors are not held back behind it.
+     *
+     * @param message     Message the event was received in, or null when listening for single messages.
+     * @param body        The JSON body of the SQS message.
+     * @param received    {@link Received} event, or null if the message could not be deserialized.
+     * @param failureType {@link FailureType} of the failure.
+     * @param attempt     number of the attempt that failed.
+     * @param exception   Exception the event failed with.
+     * @return true if the event was dead lettered, false if storing it failed.
+     */
+    private boolean deadLetter(
+            Message<String> message,
+            String body,
+            Received<T> received,
+            FailureType failureType,
+            int attempt,
+            Exception exception
+    ) {
+        UUID eventId;
+        if (received != null) {
+            eventId = received.event().getId();
+        } else if (message != null) {
+            eventId = messageId(message);
+        } else {
+            eventId = UUID.nameUUIDFromBytes(body.getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            failurePolicy.deadLetter(new ConsumerDeadLetter(
+                    eventId,
+                    received != null ? received.event().getEventType() : null,
+                    getName(),
+                    body,
+                    received != null ? received.key() : null,
+                    received != null ? received.sequence() : null,
+                    failureType,
+                    attempt,
+                    ConsumerFailurePolicy.describe(exception),
+                    null
+            ));
+        } catch (RuntimeException e) {
+            log.error("Failed to dead letter event {}", eventId, e);
+            return false;
+        }
+        if (received != null) {
+            try {
+                record(List.of(received));
+            } catch (RuntimeException e) {
+                log.warn("Failed to store the sequence of dead lettered event {}", eventId, e);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Mark an event as done in the {@link ReorderBuffer}, so the events after it are no longer held back.
+     *
+     * @param received {@link Received} event, or null if the message could not be deserialized.
+     */
+    private void advance(Received<T> received) {
+        if (received != null && received.aggregateId() != null && received.sequence() != null) {
+            reorderBuffer.advance(received.aggregateId(), received.sequence());
+        }
+    }
+
+    /**
+     * Change the visibility timeout of a message, so SQS redelivers it once the timeout has passed.
+     *
+     * @param message Message to change the visibility timeout of.
+     * @param seconds new visibility timeout in seconds.
+     */
+    static void changeVisibility(
+            Message<String> message,
+            int seconds
+    ) {
+        val visibility = message.getHeaders().get(SqsHeaders.SQS_VISIBILITY_TIMEOUT_HEADER, Visibility.class);
+        if (visibility != null) {
+            visibility.changeToAsync(seconds).exceptionally(e -> {
+                log.warn("Failed to change visibility of message {}", messageId(message), e);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Get the number of times a message has been received, which is the number of the current attempt.
+     *
+     * @param message Message to read the receive count from.
+     * @return approximate receive count of the message, or 1 if it is not known.
+     */
+    static int receiveCount(Message<String> message) {
+        val count = header(message, SqsHeaders.MessageSystemAttributes.SQS_APPROXIMATE_RECEIVE_COUNT);
+        return count != null ? Integer.parseInt(count) : 1;
+    }
+
+    /**
+     * Deserialize the event contained in an SQS message body in a single pass.
+     * The body is either an SNS notification, or the event itself if SNS raw message delivery is enabled.
+     * With raw message delivery, the aggregate id and sequence number are read from the SQS message attributes,
+     * which are only available when listening for batches of messages.
+     *
+     * @param message Message the body was received in, or null when listening for single messages.
+     * @param body    The JSON body of the SQS message as a String.
+     * @return {@link Received} event with its aggregate id and sequence number, if any.
+     */
+    private Received<T> parse(
+            Message<String> message,
+            String body
+    ) {
+        val envelope = envelopeParser.parse(body, getEventClass());
+        val event = envelope.event();
         log.info("Received event: {} {}", event.getEventType(), event.getId());
-        processEvent(event);
+
+        var aggregateId = envelope.aggregateId();
+        var sequence = envelope.sequence();
+        if (envelope.raw() && message != null) {
+            aggregateId = header(message, MessageAttributes.AGGREGATE_ID);
+            sequence = header(message, MessageAttributes.SEQUENCE);
+        }
+        return new Received<>(
+                message,
+                event,
+                aggregateId != null ? UUID.fromString(aggregateId) : null,
+                sequence != null ? Long.valueOf(sequence) : null
+        );
+    }
+
+    /**
+     * Get the SQS message id of a message, which stays the same every time the message is redelivered,
+     * unlike the id of the Spring {@link Message} that is generated anew for every delivery.
+     * If the message has no SQS message id, a name-based UUID of its body is used instead.
+     *
+     * @param message Message to read the SQS message id from.
+     * @return UUID of the SQS message.
+     */
+    static UUID messageId(Message<String> message) {
+        val messageId = header(message, SqsHeaders.SQS_MESSAGE_ID_HEADER);
+        return messageId != null
+                ? UUID.fromString(messageId)
+                : UUID.nameUUIDFromBytes(message.getPayload().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get the value of an SQS message attribute, which is mapped to a message header of the same name.
+     *
+     * @param message Message to read the header from.
+     * @param name    name of the message attribute.
+     * @return value of the message attribute as a String, or null if it is not set.
+     */
+    private static String header(
+            Message<String> message,
+            String name
+    ) {
+        val value = message.getHeaders().get(name);
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * Get the ids of a list of events.
+     *
+     * @param events List of events.
+     * @return Set of UUIDs of the events.
+     */
+    private Set<UUID> eventIds(List<T> events) {
+        return events.stream()
+                .map(BaseEventDto::getId)
+                .collect(Collectors.toSet());
     }
 
     /**
      * This method will be called by subclasses to handle the event processing.
      * It should call the specific service method needed for the event.
+     * Any exception thrown is classified by {@link #classify(Exception)} to decide how the event is retried.
      *
      * @param event The event to process.
+     * @throws Exception if the event could not be processed.
      */
-    protected abstract void processEvent(T event);
+    protected abstract void processEvent(T event) throws Exception;
+
+    /**
+     * This method will be called when listening for a batch of messages.
+     * Subclasses should override it to process as many events as possible with a single service call.
+     * By default, no events are processed together, so every event is processed one by one.
+     * <p>
+     * Every event that was not processed must be returned. Those events are then processed
+     * one by one with the processEvent method, so the reason each of them fails can be classified.
+     * If this method throws an exception, all events are processed one by one.
+     * The method is called within a transaction, which the service methods it calls should join.
+     *
+     * @param events List of events to process, in sequence order.
+     * @return Set of UUIDs of the events that were not processed.
+     */
+    protected Set<UUID> processEvents(List<T> events) {
+        return eventIds(events);
+    }
+
+    /**
+     * Classify an exception thrown while deserializing or processing an event.
+     * By default, this uses the rules of the {@link ConsumerFailurePolicy}.
+     * Subclasses can override this to classify exceptions that are specific to the consumer.
+     *
+     * @param exception Exception to classify.
+     * @return {@link FailureType} of the exception.
+     */
+    protected FailureType classify(Exception exception) {
+        return failurePolicy.classify(exception);
+    }
+
+    /**
+     * Get the type of the event for the specific consumer.
+     * This is used by a {@link RoutingEventConsumer} to route messages to this consumer.
+     *
+     * @return The {@link EventType} of the event.
+     */
+    protected abstract EventType getEventType();
 
     /**
      * Get the class type of the event for the specific consumer.
@@ -57,4 +672,45 @@ public abstract class BaseEventConsumer<T extends BaseEventDto> {
      * @return The Class type of the event.
      */
     protected abstract Class<T> getEventClass();
+
+    /**
+     * Record class for a received event.
+     *
+     * @param message     Message the event was received in, or null when listening for single messages.
+     * @param event       The deserialized event.
+     * @param aggregateId UUID of the aggregate the event belongs to, or null if not set.
+     * @param sequence    position of the event among the events of its aggregate, or null if not set.
+     * @param <T>         The type of the event.
+     */
+    private record Received<T extends BaseEventDto>(
+            Message<String> message,
+            T event,
+            UUID aggregateId,
+            Long sequence
+    ) {
+
+        /**
+         * Get the key used to choose the lane of the event in the {@link StripedExecutor}.
+         * This is the aggregate id from the message attributes, or from the event itself if not set.
+         *
+         * @return UUID of the aggregate the event belongs to.
+         */
+        UUID key() {
+            return aggregateId != null ? aggregateId : event.aggregateId();
+        }
+    }
+
+    /**
+     * Record class for the events of a batch that are processed in the same lane,
+     * or for the events of a single aggregate that are held back until its earlier events have been processed.
+     *
+     * @param key    UUID of an aggregate in the lane, used to submit the partition to the lane.
+     * @param events List of {@link Received} events to process, in sequence order.
+     * @param <T>    The type of the events.
+     */
+    private record Partition<T extends BaseEventDto>(
+            UUID key,
+            List<Received<T>> events
+    ) {
+    }
 }
@@ -0,0 +1,13 @@
+package com.github.thorlauridsen.consumer;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the consumer subproject.
+ * This registers the {@link ConsumerProperties} and {@link QueueProperties} so they can be injected where needed.
+ */
+@Configuration
+@EnableConfigurationProperties({ConsumerProperties.class, QueueProperties.class})
+public class ConsumerConfig {
+}
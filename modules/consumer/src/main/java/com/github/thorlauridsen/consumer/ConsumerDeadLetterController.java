@@ -0,0 +1,60 @@
+package com.github.thorlauridsen.consumer;
+
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Consumer dead letter controller class.
+ * This class implements the {@link IConsumerDeadLetterController} interface and
+ * overrides the methods defined in the interface with implementations.
+ * The controller is responsible for converting models to data transfer objects.
+ */
+@RestController
+@RequiredArgsConstructor
+public class ConsumerDeadLetterController implements IConsumerDeadLetterController {
+
+    private final ConsumerDeadLetterService deadLetterService;
+
+    /**
+     * Get all dead lettered consumer events.
+     *
+     * @return {@link ResponseEntity} with a list of {@link ConsumerDeadLetterDto}.
+     */
+    @Override
+    public ResponseEntity<List<ConsumerDeadLetterDto>> getAll() {
+        val deadLetters = deadLetterService.findAll()
+                .stream()
+                .map(ConsumerDeadLetterDto::fromModel)
+                .toList();
+        return ResponseEntity.ok(deadLetters);
+    }
+
+    /**
+     * Redrive a dead lettered consumer event given an id.
+     *
+     * @param eventId UUID of the event to redrive.
+     * @return {@link ResponseEntity} without a body.
+     * @throws ConsumerDeadLetterNotFoundException if the dead lettered event is not found.
+     * @throws ConsumerRedriveFailedException      if the event failed to be processed again.
+     */
+    @Override
+    public ResponseEntity<Void> redrive(UUID eventId)
+            throws ConsumerDeadLetterNotFoundException, ConsumerRedriveFailedException {
+        deadLetterService.redrive(eventId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Redrive all dead lettered consumer events.
+     *
+     * @return {@link ResponseEntity} with the number of events redriven.
+     */
+    @Override
+    public ResponseEntity<Integer> redriveAll() {
+        return ResponseEntity.ok(deadLetterService.redriveAll());
+    }
+}
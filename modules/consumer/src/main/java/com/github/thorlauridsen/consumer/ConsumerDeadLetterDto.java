@@ -0,0 +1,76 @@
+package com.github.thorlauridsen.consumer;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.github.thorlauridsen.model.enumeration.EventType;
+import com.github.thorlauridsen.model.enumeration.FailureType;
+import com.github.thorlauridsen.model.event.ConsumerDeadLetter;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Data transfer object for a dead lettered consumer event.
+ *
+ * @param eventId        UUID of the event, or of the message if it could not be deserialized.
+ * @param eventType      type of the event, or null if it could not be deserialized.
+ * @param consumer       name of the consumer that failed to process the event.
+ * @param payload        body of the message the event was received in.
+ * @param aggregateId    UUID of the aggregate the event belongs to.
+ * @param sequence       position of the event among the events of its aggregate.
+ * @param failureType    how the last failure was classified.
+ * @param attempts       number of failed attempts to process the event.
+ * @param lastError      reason the last attempt failed.
+ * @param deadLetteredAt time the event was moved to the dead letter table.
+ */
+@Schema(
+        description = "Data transfer object for a dead lettered consumer event",
+        example = """
+                {
+                    "eventId": "3fa85f64-5717-4562-b3fc-2c963f66afa6",
+                    "eventType": "PAYMENT_COMPLETED",
+                    "consumer": "PaymentCompletedConsumer",
+                    "payload": "{}",
+                    "aggregateId": "0195a2b4-6c1e-7d3f-8a9b-1c2d3e4f5a6b",
+                    "sequence": 2,
+                    "failureType": "NOT_YET_CONSISTENT",
+                    "attempts": 10,
+                    "lastError": "OrderNotFoundException: Order not found with id: 0195a2b4-6c1e-7d3f-8a9b-1c2d3e4f5a6b",
+                    "deadLetteredAt": "2025-03-13T18:49:00Z"
+                }
+                """
+)
+public record ConsumerDeadLetterDto(
+        @JsonProperty("eventId") UUID eventId,
+        @JsonProperty("eventType") EventType eventType,
+        @JsonProperty("consumer") String consumer,
+        @JsonProperty("payload") String payload,
+        @JsonProperty("aggregateId") UUID aggregateId,
+        @JsonProperty("sequence") Long sequence,
+        @JsonProperty("failureType") FailureType failureType,
+        @JsonProperty("attempts") int attempts,
+        @JsonProperty("lastError") String lastError,
+        @JsonProperty("deadLetteredAt") @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ssX") OffsetDateTime deadLetteredAt
+) {
+
+    /**
+     * Static method to convert a {@link ConsumerDeadLetter} model to a {@link ConsumerDeadLetterDto}.
+     *
+     * @param deadLetter {@link ConsumerDeadLetter} to convert.
+     * @return {@link ConsumerDeadLetterDto}.
+     */
+    public static ConsumerDeadLetterDto fromModel(ConsumerDeadLetter deadLetter) {
+        return new ConsumerDeadLetterDto(
+                deadLetter.eventId(),
+                deadLetter.eventType(),
+                deadLetter.consumer(),
+                deadLetter.payload(),
+                deadLetter.aggregateId(),
+                deadLetter.sequence(),
+                deadLetter.failureType(),
+                deadLetter.attempts(),
+                deadLetter.lastError(),
+                deadLetter.deadLetteredAt()
+        );
+    }
+}
@@ -0,0 +1,159 @@
+package com.github.thorlauridsen.consumer;
+
+import com.github.thorlauridsen.model.enumeration.EventType;
+import com.github.thorlauridsen.model.enumeration.FailureType;
+import com.github.thorlauridsen.model.event.ConsumerDeadLetter;
+import com.github.thorlauridsen.outbox.Utf8PayloadConverter;
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.val;
+
+/**
+ * Class representing the consumer dead letter entity for the "consumer_dead_letter" table.
+ * Consumed events are stored here when they are poison, or when they failed to be processed too many times,
+ * so the message can be acknowledged instead of being redelivered forever.
+ * A dead lettered event can be redriven to be processed again by its consumer.
+ */
+@Entity
+@Getter
+@Table(name = "consumer_dead_letter")
+@NoArgsConstructor
+public class ConsumerDeadLetterEntity {
+
+    /**
+     * Maximum length of the stored reason for a failed attempt.
+     */
+    public static final int MAX_ERROR_LENGTH = 1000;
+
+    /**
+     * Unique identifier for the event, or of the message if it could not be deserialized.
+     */
+    @Id
+    @Column(nullable = false)
+    private UUID eventId;
+
+    /**
+     * Event type such as ORDER_CREATED or PAYMENT_COMPLETED.
+     */
+    private EventType eventType;
+
+    /**
+     * Name of the consumer that failed to process the event.
+     */
+    @Column(nullable = false)
+    private String consumer;
+
+    /**
+     * Body of the message the event was received in.
+     * This is stored as UTF-8 encoded bytes in a BYTEA column, like the payloads of the outbox.
+     */
+    @Convert(converter = Utf8PayloadConverter.class)
+    @Column(nullable = false)
+    private String payload;
+
+    /**
+     * Unique identifier of the aggregate the event belongs to.
+     */
+    private UUID aggregateId;
+
+    /**
+     * Position of the event among the events of its aggregate.
+     */
+    private Long sequence;
+
+    /**
+     * How the last failure was classified, such as TRANSIENT or POISON.
+     */
+    @Column(nullable = false)
+    private FailureType failureType;
+
+    /**
+     * Number of failed attempts to process the event.
+     */
+    @Column(nullable = false)
+    private Integer attempts;
+
+    /**
+     * Reason the last attempt to process the event failed.
+     */
+    @Column(length = MAX_ERROR_LENGTH)
+    private String lastError;
+
+    /**
+     * Time the event was moved to the dead letter table.
+     */
+    @Column(nullable = false)
+    private OffsetDateTime deadLetteredAt = OffsetDateTime.now();
+
+    /**
+     * Record another failed attempt to process the event.
+     *
+     * @param error reason the attempt failed.
+     */
+    public void recordFailure(String error) {
+        this.attempts++;
+        this.lastError = truncate(error);
+    }
+
+    /**
+     * Static method to create an entity from a model.
+     *
+     * @param deadLetter {@link ConsumerDeadLetter} model.
+     * @return {@link ConsumerDeadLetterEntity} entity.
+     */
+    public static ConsumerDeadLetterEntity fromModel(ConsumerDeadLetter deadLetter) {
+        val entity = new ConsumerDeadLetterEntity();
+        entity.eventId = deadLetter.eventId();
+        entity.eventType = deadLetter.eventType();
+        entity.consumer = deadLetter.consumer();
+        entity.payload = deadLetter.payload();
+        entity.aggregateId = deadLetter.aggregateId();
+        entity.sequence = deadLetter.sequence();
+        entity.failureType = deadLetter.failureType();
+        entity.attempts = deadLetter.attempts();
+        entity.lastError = truncate(deadLetter.lastError());
+        if (deadLetter.deadLetteredAt() != null) {
+            entity.deadLetteredAt = deadLetter.deadLetteredAt();
+        }
+        return entity;
+    }
+
+    /**
+     * Convert the entity to a model.
+     *
+     * @return {@link ConsumerDeadLetter} model.
+     */
+    public ConsumerDeadLetter toModel() {
+        return new ConsumerDeadLetter(
+                eventId,
+                eventType,
+                consumer,
+                payload,
+                aggregateId,
+                sequence,
+                failureType,
+                attempts,
+                lastError,
+                deadLetteredAt
+        );
+    }
+
+    /**
+     * Truncate the reason for a failed attempt so it fits in its column.
+     *
+     * @param error reason the attempt failed.
+     * @return the reason, cut off at the maximum length.
+     */
+    private static String truncate(String error) {
+        return error != null && error.length() > MAX_ERROR_LENGTH
+                ? error.substring(0, MAX_ERROR_LENGTH)
+                : error;
+    }
+}
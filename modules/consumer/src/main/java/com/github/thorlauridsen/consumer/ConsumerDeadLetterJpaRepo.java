@@ -0,0 +1,22 @@
+package com.github.thorlauridsen.consumer;
+
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Consumer dead letter repository interface.
+ * This is a JPA repository for the {@link ConsumerDeadLetterEntity}.
+ * It extends the {@link JpaRepository} interface which allows us to easily define CRUD methods.
+ */
+@Repository
+public interface ConsumerDeadLetterJpaRepo extends JpaRepository<ConsumerDeadLetterEntity, UUID> {
+
+    /**
+     * Find all dead lettered events, most recently dead lettered first.
+     *
+     * @return List of {@link ConsumerDeadLetterEntity}.
+     */
+    List<ConsumerDeadLetterEntity> findAllByOrderByDeadLetteredAtDesc();
+}
@@ -0,0 +1,21 @@
+package com.github.thorlauridsen.consumer;
+
+import com.github.thorlauridsen.exception.DomainException;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Exception thrown when a dead lettered consumer event is not found.
+ * Extends {@link DomainException}.
+ */
+public class ConsumerDeadLetterNotFoundException extends DomainException {
+
+    /**
+     * Constructor for a consumer dead letter not found exception.
+     * Sets the http status to {@link HttpStatus#NOT_FOUND}.
+     *
+     * @param message The message of the exception.
+     */
+    public ConsumerDeadLetterNotFoundException(String message) {
+        super(message, HttpStatus.NOT_FOUND);
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.thorlauridsen.consumer;
+
+import com.github.thorlauridsen.model.event.ConsumerDeadLetter;
+import com.github.thorlauridsen.model.repository.IConsumerDeadLetterRepo;
+import jakarta.transaction.Transactional;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Consumer dead letter repository class.
+ * <p>
+ * This class implements the {@link IConsumerDeadLetterRepo} interface.
+ * It is responsible for interacting with the consumer dead letter table in the database.
+ * <p>
+ * It is annotated with {@link Repository} to allow Spring to
+ * automatically detect it as a bean and inject it where needed.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ConsumerDeadLetterRepo implements IConsumerDeadLetterRepo {
+
+    private final ConsumerDeadLetterJpaRepo deadLetterJpaRepo;
+
+    /**
+     * Save a dead lettered event.
+     * An event that was already dead lettered is overwritten.
+     *
+     * @param deadLetter {@link ConsumerDeadLetter} to save.
+     */
+    @Override
+    public void save(ConsumerDeadLetter deadLetter) {
+        deadLetterJpaRepo.save(ConsumerDeadLetterEntity.fromModel(deadLetter));
+    }
+
+    /**
+     * Find all dead lettered events, most recently dead lettered first.
+     *
+     * @return List of {@link ConsumerDeadLetter}.
+     */
+    @Override
+    public List<ConsumerDeadLetter> findAll() {
+        return deadLetterJpaRepo.findAllByOrderByDeadLetteredAtDesc()
+                .stream()
+                .map(ConsumerDeadLetterEntity::toModel)
+                .toList();
+    }
+
+    /**
+     * Find a dead lettered event by id.
+     *
+     * @param eventId UUID of the event.
+     * @return Optional of {@link ConsumerDeadLetter}.
+     */
+    @Override
+    public Optional<ConsumerDeadLetter> findById(UUID eventId) {
+        return deadLetterJpaRepo.findById(eventId).map(ConsumerDeadLetterEntity::toModel);
+    }
+
+    /**
+     * Delete a dead lettered event after it was redriven.
+     *
+     * @param eventId UUID of the event.
+     */
+    @Override
+    public void delete(UUID eventId) {
+        deadLetterJpaRepo.deleteById(eventId);
+    }
+
+    /**
+     * Record that redriving a dead lettered event failed again.
+     *
+     * @param eventId   UUID of the event.
+     * @param lastError reason the redrive failed.
+     */
+    @Override
+    @Transactional
+    public void recordFailure(UUID eventId, String lastError) {
+        deadLetterJpaRepo.findById(eventId).ifPresent(deadLetter -> deadLetter.recordFailure(lastError));
+    }
+}
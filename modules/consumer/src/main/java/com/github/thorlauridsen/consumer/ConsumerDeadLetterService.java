@@ -0,0 +1,145 @@
+package com.github.thorlauridsen.consumer;
+
+import com.github.thorlauridsen.model.event.ConsumerDeadLetter;
+import com.github.thorlauridsen.model.repository.IConsumerDeadLetterRepo;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service class for dead lettered consumer events.
+ * This class is responsible for listing dead lettered events and redriving them to their consumers.
+ * <p>
+ * A redriven event is processed again by the consumer that dead lettered it, in the lane of its aggregate.
+ * Events are handed to the consumers at a limited rate, so a large redrive does not starve the listeners,
+ * while events of different aggregates are still processed in parallel. The events of an aggregate are
+ * handed over in sequence order, so they are processed in order within their lane.
+ * An event that is processed is removed from the dead letter table. An event that fails again stays,
+ * with its attempts and last error updated.
+ */
+@Service
+@Slf4j
+public class ConsumerDeadLetterService {
+
+    private final IConsumerDeadLetterRepo deadLetterRepo;
+    private final Map<String, BaseEventConsumer<?>> consumers;
+    private final ConsumerProperties.Redrive redrive;
+
+    /**
+     * Constructor for ConsumerDeadLetterService.
+     *
+     * @param deadLetterRepo     {@link IConsumerDeadLetterRepo} for reading and removing dead lettered events.
+     * @param consumers          List of {@link BaseEventConsumer} that dead lettered events are redriven to.
+     * @param consumerProperties {@link ConsumerProperties} for configuring the redrive rate.
+     */
+    public ConsumerDeadLetterService(
+            IConsumerDeadLetterRepo deadLetterRepo,
+            List<BaseEventConsumer<?>> consumers,
+            ConsumerProperties consumerProperties
+    ) {
+        this.deadLetterRepo = deadLetterRepo;
+        this.consumers = consumers.stream().collect(Collectors.toMap(BaseEventConsumer::getName, Function.identity()));
+        this.redrive = consumerProperties.redrive();
+    }
+
+    /**
+     * Find all dead lettered consumer events.
+     *
+     * @return List of {@link ConsumerDeadLetter}.
+     */
+    public List<ConsumerDeadLetter> findAll() {
+        return deadLetterRepo.findAll();
+    }
+
+    /**
+     * Redrive a dead lettered event and wait for it to be processed.
+     *
+     * @param eventId UUID of the event to redrive.
+     * @throws ConsumerDeadLetterNotFoundException if no dead lettered event exists with the given id.
+     * @throws ConsumerRedriveFailedException      if the event failed to be processed again.
+     */
+    public void redrive(UUID eventId) throws ConsumerDeadLetterNotFoundException, ConsumerRedriveFailedException {
+        val deadLetter = deadLetterRepo.findById(eventId);
+        if (deadLetter.isEmpty()) {
+            throw new ConsumerDeadLetterNotFoundException("Dead lettered consumer event not found with id: " + eventId);
+        }
+        if (!redrive(deadLetter.get()).join()) {
+            throw new ConsumerRedriveFailedException("Dead lettered consumer event failed again with id: " + eventId);
+        }
+    }
+
+    /**
+     * Redrive all dead lettered events in parallel at the configured rate, and wait for them to be processed.
+     *
+     * @return number of events that were processed and removed from the dead letter table.
+     */
+    public int redriveAll() {
+        val deadLetters = new ArrayList<>(deadLetterRepo.findAll());
+        deadLetters.sort(Comparator.comparing(ConsumerDeadLetter::sequence, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        val interval = TimeUnit.SECONDS.toNanos(1) / Math.max(redrive.ratePerSecond(), 1);
+        var next = System.nanoTime();
+        val results = new ArrayList<CompletableFuture<Boolean>>(deadLetters.size());
+        for (val deadLetter : deadLetters) {
+            val wait = next - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.warn("Interrupted while redriving dead lettered consumer events");
+                    break;
+                }
+            }
+            next = Math.max(next, System.nanoTime()) + interval;
+            results.add(redrive(deadLetter));
+        }
+
+        val redriven = (int) results.stream()
+                .filter(CompletableFuture::join)
+                .count();
+        log.info("Redrove {} of {} dead lettered consumer events", redriven, deadLetters.size());
+        return redriven;
+    }
+
+    /**
+     * Hand a dead lettered event to its consumer, and remove it from the dead letter table once it is processed.
+     * If it fails again, its attempts and last error are updated instead.
+     *
+     * @param deadLetter {@link ConsumerDeadLetter} to redrive.
+     * @return CompletableFuture completed with true if the event was processed.
+     */
+    private CompletableFuture<Boolean> redrive(ConsumerDeadLetter deadLetter) {
+        val consumer = consumers.get(deadLetter.consumer());
+        if (consumer == null) {
+            log.warn("No consumer {} to redrive dead lettered event {}", deadLetter.consumer(), deadLetter.eventId());
+            return CompletableFuture.completedFuture(false);
+        }
+        CompletableFuture<Void> processed;
+        try {
+            processed = consumer.redrive(deadLetter.payload());
+        } catch (RuntimeException e) {
+            processed = CompletableFuture.failedFuture(e);
+        }
+        return processed.handle((result, exception) -> {
+            if (exception == null) {
+                deadLetterRepo.delete(deadLetter.eventId());
+                log.info("Redrove dead lettered consumer event: {} {}", deadLetter.eventType(), deadLetter.eventId());
+                return true;
+            }
+            val error = ConsumerFailurePolicy.describe(exception);
+            deadLetterRepo.recordFailure(deadLetter.eventId(), error);
+            log.warn("Dead lettered consumer event {} failed again: {}", deadLetter.eventId(), error);
+            return false;
+        });
+    }
+}
@@ -0,0 +1,158 @@
+package com.github.thorlauridsen.consumer;
+
+import com.github.thorlauridsen.model.enumeration.FailureType;
+import com.github.thorlauridsen.model.event.ConsumerDeadLetter;
+import com.github.thorlauridsen.model.repository.IConsumerDeadLetterRepo;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+
+/**
+ * Uniform failure policy for the event consumers.
+ * <p>
+ * Every exception thrown while processing an event is classified as a {@link FailureType}:
+ * <ul>
+ *     <li>Exceptions configured under "app.consumer.retry.not-yet-consistent" are NOT_YET_CONSISTENT.</li>
+ *     <li>Exceptions configured under "app.consumer.retry.poison", and messages that cannot be
+ *     deserialized, are POISON.</li>
+ *     <li>All other exceptions are TRANSIENT.</li>
+ * </ul>
+ * The cause chain of the exception is checked as well, so a wrapped exception is classified by its cause.
+ * <p>
+ * Transient and not-yet-consistent failures are retried with exponential backoff and jitter until
+ * the maximum number of attempts is reached. Poison events, and events that ran out of attempts,
+ * are moved to the consumer dead letter table so their message can be acknowledged.
+ */
+@Component
+@Slf4j
+public class ConsumerFailurePolicy {
+
+    private static final int MAX_VISIBILITY_TIMEOUT_SECONDS = 12 * 60 * 60;
+
+    private final ConsumerProperties.Retry retry;
+    private final IConsumerDeadLetterRepo deadLetterRepo;
+
+    /**
+     * Constructor for ConsumerFailurePolicy.
+     *
+     * @param consumerProperties {@link ConsumerProperties} for configuring the retries.
+     * @param deadLetterRepo     {@link IConsumerDeadLetterRepo} for storing dead lettered events.
+     */
+    public ConsumerFailurePolicy(
+            ConsumerProperties consumerProperties,
+            IConsumerDeadLetterRepo deadLetterRepo
+    ) {
+        this.retry = consumerProperties.retry();
+        this.deadLetterRepo = deadLetterRepo;
+    }
+
+    /**
+     * Classify an exception thrown while processing an event.
+     *
+     * @param exception Exception to classify.
+     * @return {@link FailureType} of the exception.
+     */
+    public FailureType classify(Exception exception) {
+        for (Throwable cause = unwrap(exception); cause != null; cause = cause.getCause()) {
+            if (isInstance(retry.notYetConsistent(), cause)) {
+                return FailureType.NOT_YET_CONSISTENT;
+            }
+            if (isInstance(retry.poison(), cause) || cause instanceof JacksonException) {
+                return FailureType.POISON;
+            }
+        }
+        return FailureType.TRANSIENT;
+    }
+
+    /**
+     * Check whether an event should be dead lettered rather than retried.
+     *
+     * @param failureType {@link FailureType} of the failure.
+     * @param attempt     number of the attempt that failed, starting at 1.
+     * @return true if the event is poison or has run out of attempts.
+     */
+    public boolean shouldDeadLetter(
+            FailureType failureType,
+            int attempt
+    ) {
+        return failureType == FailureType.POISON || attempt >= retry.maxAttempts();
+    }
+
+    /**
+     * Get the backoff before the next attempt, with equal jitter.
+     * The backoff grows exponentially with the attempt, and a random half of it is added as jitter,
+     * so messages that failed together are not all redelivered at the same time.
+     *
+     * @param attempt number of the attempt that failed, starting at 1.
+     * @return backoff in whole seconds, at least 1 second and at most the maximum backoff.
+     */
+    public int backoffSeconds(int attempt) {
+        val exponential = retry.initialBackoff().toMillis() * Math.pow(retry.multiplier(), Math.max(attempt - 1, 0));
+        val capped = Math.min(exponential, retry.maxBackoff().toMillis());
+        val jittered = capped / 2 + ThreadLocalRandom.current().nextDouble() * capped / 2;
+        val seconds = Math.round(jittered / 1000);
+        return Math.clamp(seconds, 1, MAX_VISIBILITY_TIMEOUT_SECONDS);
+    }
+
+    /**
+     * Move an event to the consumer dead letter table.
+     *
+     * @param deadLetter {@link ConsumerDeadLetter} to store.
+     */
+    public void deadLetter(ConsumerDeadLetter deadLetter) {
+        deadLetterRepo.save(deadLetter);
+        log.warn(
+                "Dead lettered {} event {} in {} after {} attempts: {}",
+                deadLetter.failureType(), deadLetter.eventId(), deadLetter.consumer(),
+                deadLetter.attempts(), deadLetter.lastError()
+        );
+    }
+
+    /**
+     * Describe an exception for the last error of a dead lettered event.
+     *
+     * @param exception Throwable that caused the failure.
+     * @return class name and message of the exception.
+     */
+    public static String describe(Throwable exception) {
+        val cause = unwrap(exception);
+        return cause.getClass().getSimpleName() + ": " + cause.getMessage();
+    }
+
+    /**
+     * Unwrap an exception thrown by a task in a lane of the {@link StripedExecutor}.
+     *
+     * @param exception Throwable that may be a CompletionException.
+     * @return the cause of a CompletionException, or the exception itself.
+     */
+    static Throwable unwrap(Throwable exception) {
+        if (exception instanceof CompletionException && exception.getCause() != null) {
+            return exception.getCause();
+        }
+        return exception;
+    }
+
+    /**
+     * Check whether a throwable is an instance of any of the given classes.
+     *
+     * @param classes   List of exception classes.
+     * @param throwable Throwable to check.
+     * @return true if the throwable is an instance of one of the classes.
+     */
+    private static boolean isInstance(
+            List<Class<? extends Exception>> classes,
+            Throwable throwable
+    ) {
+        for (val type : classes) {
+            if (type.isInstance(throwable)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
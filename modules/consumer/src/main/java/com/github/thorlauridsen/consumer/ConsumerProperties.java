@@ -0,0 +1,137 @@
+package com.github.thorlauridsen.consumer;
+
+import java.time.Duration;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for the event consumers.
+ * The properties are defined in application.yml under "app.consumer".
+ *
+ * @param reorder     {@link Reorder} properties for processing the events of an aggregate in order.
+ * @param striping    {@link Striping} properties for processing the events of an aggregate one at a time.
+ * @param concurrency {@link Concurrency} properties for adapting the number of events processed at the same time.
+ * @param retry       {@link Retry} properties for retrying events that failed to be processed.
+ * @param redrive     {@link Redrive} properties for redriving dead lettered events.
+ * @param groupCommit {@link GroupCommit} properties for processing events together in one transaction.
+ */
+@ConfigurationProperties(prefix = "app.consumer")
+public record ConsumerProperties(
+        @DefaultValue Reorder reorder,
+        @DefaultValue Striping striping,
+        @DefaultValue Concurrency concurrency,
+        @DefaultValue Retry retry,
+        @DefaultValue Redrive redrive,
+        @DefaultValue GroupCommit groupCommit
+) {
+
+    /**
+     * Configuration properties for the reorder buffer.
+     * The properties are defined in application.yml under "app.consumer.reorder".
+     *
+     * @param enabled       whether events that arrive ahead of their predecessors are held back.
+     * @param timeout       how long an early event waits for the missing events before it is processed anyway.
+     * @param capacity      maximum number of early events held back at the same time.
+     * @param maxAggregates maximum number of aggregates whose next expected sequence number is remembered.
+     */
+    public record Reorder(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("5s") Duration timeout,
+            @DefaultValue("100") int capacity,
+            @DefaultValue("10000") int maxAggregates
+    ) {
+    }
+
+    /**
+     * Configuration properties for the striped executor.
+     * The properties are defined in application.yml under "app.consumer.striping".
+     *
+     * @param lanes         number of lanes events are spread across by aggregate id.
+     * @param queueCapacity maximum number of events queued or running in a single lane.
+     */
+    public record Striping(
+            @DefaultValue("16") int lanes,
+            @DefaultValue("100") int queueCapacity
+    ) {
+    }
+
+    /**
+     * Configuration properties for the adaptive concurrency limiter.
+     * The properties are defined in application.yml under "app.consumer.concurrency".
+     *
+     * @param enabled                  whether the number of events processed at the same time is adapted to the load.
+     * @param initialLimit             number of events processed at the same time when the application starts.
+     * @param minLimit                 lowest number of events processed at the same time.
+     * @param maxLimit                 highest number of events processed at the same time.
+     * @param sampleInterval           how often the queue depth and database load are sampled to adjust the limit.
+     * @param increase                 how much the limit grows per sample while the queues have a backlog.
+     * @param backoffRatio             factor the limit is multiplied with per sample while the database is congested.
+     * @param latencyTolerance         how many times slower than usual processing may become before it is congested.
+     * @param saturatedAwaitingThreads number of threads waiting for a database connection at which processing is paused.
+     */
+    public record Concurrency(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("10") int initialLimit,
+            @DefaultValue("1") int minLimit,
+            @DefaultValue("50") int maxLimit,
+            @DefaultValue("1s") Duration sampleInterval,
+            @DefaultValue("1") int increase,
+            @DefaultValue("0.9") double backoffRatio,
+            @DefaultValue("2.0") double latencyTolerance,
+            @DefaultValue("1") int saturatedAwaitingThreads
+    ) {
+    }
+
+    /**
+     * Configuration properties for retrying events that failed to be processed.
+     * The properties are defined in application.yml under "app.consumer.retry".
+     * <p>
+     * A failed message is not acknowledged, and its visibility timeout is changed to the backoff
+     * of its attempt, so SQS redelivers it once the backoff has passed.
+     *
+     * @param initialBackoff   backoff after the first failed attempt.
+     * @param maxBackoff       maximum backoff between two attempts, at most 12 hours.
+     * @param multiplier       factor the backoff is multiplied with after every failed attempt.
+     * @param maxAttempts      number of attempts after which an event is dead lettered.
+     * @param notYetConsistent exceptions that mean the event depends on state that has not arrived yet.
+     * @param poison           exceptions that mean the event can never be processed.
+     */
+    public record Retry(
+            @DefaultValue("1s") Duration initialBackoff,
+            @DefaultValue("5m") Duration maxBackoff,
+            @DefaultValue("2.0") double multiplier,
+            @DefaultValue("10") int maxAttempts,
+            @DefaultValue List<Class<? extends Exception>> notYetConsistent,
+            @DefaultValue List<Class<? extends Exception>> poison
+    ) {
+    }
+
+    /**
+     * Configuration properties for redriving dead lettered events.
+     * The properties are defined in application.yml under "app.consumer.redrive".
+     *
+     * @param ratePerSecond maximum number of dead lettered events handed to the consumers per second.
+     */
+    public record Redrive(
+            @DefaultValue("50") int ratePerSecond
+    ) {
+    }
+
+    /**
+     * Configuration properties for the group commit executor.
+     * The properties are defined in application.yml under "app.consumer.group-commit".
+     *
+     * @param enabled    whether events processed one by one are gathered and committed together.
+     * @param committers number of committers that commit groups in parallel, each for a share of the lanes.
+     * @param maxSize    maximum number of events committed in a single transaction.
+     * @param maxDelay   how long the first event of a group waits for more events to arrive.
+     */
+    public record GroupCommit(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("4") int committers,
+            @DefaultValue("50") int maxSize,
+            @DefaultValue("5ms") Duration maxDelay
+    ) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.github.thorlauridsen.consumer;
+
+import com.github.thorlauridsen.exception.DomainException;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Exception thrown when a dead lettered consumer event fails to be processed again when it is redriven.
+ * Extends {@link DomainException}.
+ */
+public class ConsumerRedriveFailedException extends DomainException {
+
+    /**
+     * Constructor for a consumer redrive failed exception.
+     * Sets the http status to {@link HttpStatus#CONFLICT}.
+     *
+     * @param message The message of the exception.
+     */
+    public ConsumerRedriveFailedException(String message) {
+        super(message, HttpStatus.CONFLICT);
+    }
+}
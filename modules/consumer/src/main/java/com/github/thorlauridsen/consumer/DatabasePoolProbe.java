@@ -0,0 +1,74 @@
+package com.github.thorlauridsen.consumer;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+/**
+ * Probe for the load of the database connection pools of the application.
+ * <p>
+ * The HikariCP pools are read through the MBeans they register on the platform MBean server,
+ * so the consumer subproject does not depend on the connection pool or the datasource.
+ * This requires "spring.datasource.hikari.register-mbeans" to be enabled.
+ * If no pool is registered, the sample is empty and the database is never considered saturated.
+ */
+@Slf4j
+class DatabasePoolProbe {
+
+    private static final ObjectName POOLS = objectName("com.zaxxer.hikari:type=Pool (*)");
+
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    /**
+     * Sample the connections of all registered connection pools.
+     *
+     * @return {@link PoolSample} with the sum of the connections of all pools.
+     */
+    PoolSample sample() {
+        var active = 0;
+        var total = 0;
+        var awaiting = 0;
+        for (val name : mBeanServer.queryNames(POOLS, null)) {
+            try {
+                active += (Integer) mBeanServer.getAttribute(name, "ActiveConnections");
+                total += (Integer) mBeanServer.getAttribute(name, "TotalConnections");
+                awaiting += (Integer) mBeanServer.getAttribute(name, "ThreadsAwaitingConnection");
+            } catch (JMException e) {
+                log.debug("Failed to read connection pool {}", name, e);
+            }
+        }
+        return new PoolSample(active, total, awaiting);
+    }
+
+    /**
+     * Create an ObjectName from a constant pattern.
+     *
+     * @param name ObjectName pattern as a String.
+     * @return {@link ObjectName}.
+     */
+    private static ObjectName objectName(String name) {
+        try {
+            return new ObjectName(name);
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalStateException("Invalid ObjectName: " + name, e);
+        }
+    }
+
+    /**
+     * Record class for a sample of the database connection pools.
+     *
+     * @param active   number of connections in use.
+     * @param total    number of connections in the pools.
+     * @param awaiting number of threads waiting for a connection, as all connections are in use.
+     */
+    record PoolSample(
+            int active,
+            int total,
+            int awaiting
+    ) {
+    }
+}
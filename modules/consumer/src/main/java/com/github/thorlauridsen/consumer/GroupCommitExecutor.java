@@ -0,0 +1,345 @@
+package com.github.thorlauridsen.consumer;
+
+import jakarta.persistence.EntityManager;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.hibernate.Session;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Executor that processes events submitted from many threads together in a single database transaction.
+ * <p>
+ * Processing an event on its own costs a commit, and a flush to disk, for every event. Instead, a committer thread
+ * gathers the events that arrive within the maximum delay of the first one, or up to the maximum group size,
+ * and processes the whole group in one transaction, so the group shares a single commit.
+ * <p>
+ * There is a small, fixed number of committers, each with a queue and a thread of its own. Every lane of the
+ * {@link StripedExecutor} is assigned to one committer, so the lanes of a committer share its groups,
+ * while the committers commit their groups in parallel.
+ * <p>
+ * Every event of a group is processed within a savepoint and flushed before the next one starts.
+ * If an event fails, the transaction is rolled back to its savepoint and the persistence context is cleared,
+ * so the failure is isolated to that event while the other events of the group are still committed.
+ * If the failure left the transaction marked for rollback, the other events are committed again without it.
+ * The future of every event is only completed once the transaction has committed, so a message
+ * is never acknowledged before its changes are durable. If the commit fails, every event of the group fails.
+ * <p>
+ * A committer commits its groups one at a time, in the order the events were submitted.
+ * The events of an aggregate are always submitted to the committer of their lane, in sequence order,
+ * so they are also committed in sequence order. Events of an aggregate that are submitted together
+ * depend on each other: once one of them fails, the later ones are failed with the same exception
+ * without being processed, so they are never committed ahead of the event before them.
+ */
+@Component
+@Slf4j
+public class GroupCommitExecutor implements DisposableBean {
+
+    private final ConsumerProperties.GroupCommit groupCommit;
+    private final StripedExecutor stripedExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final List<BlockingQueue<Item>> queues;
+    private final ExecutorService committers;
+
+    /**
+     * Constructor for GroupCommitExecutor.
+     *
+     * @param consumerProperties {@link ConsumerProperties} for configuring the committers, group size and delay.
+     * @param stripedExecutor    {@link StripedExecutor} for the lane, and therefore the committer, of an aggregate.
+     * @param transactionManager {@link PlatformTransactionManager} for the transaction of every group.
+     * @param entityManager      {@link EntityManager} for flushing and clearing the persistence context.
+     */
+    public GroupCommitExecutor(
+            ConsumerProperties consumerProperties,
+            StripedExecutor stripedExecutor,
+            PlatformTransactionManager transactionManager,
+            EntityManager entityManager
+    ) {
+        this.groupCommit = consumerProperties.groupCommit();
+        this.stripedExecutor = stripedExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        val threadFactory = Thread.ofPlatform()
+                .name("consumer-group-commit-", 0)
+                .daemon(true)
+                .factory();
+        this.committers = Executors.newFixedThreadPool(groupCommit.committers(), threadFactory);
+        val queues = new ArrayList<BlockingQueue<Item>>(groupCommit.committers());
+        for (var i = 0; i < groupCommit.committers(); i++) {
+            queues.add(new LinkedBlockingQueue<>());
+        }
+        this.queues = List.copyOf(queues);
+        if (groupCommit.enabled()) {
+            for (val queue : this.queues) {
+                committers.execute(() -> run(queue));
+            }
+        }
+    }
+
+    /**
+     * Submit an event to be processed in the next group of the committer of its aggregate.
+     * If group commit is disabled, the event is processed right away on the calling thread instead.
+     *
+     * @param key  UUID of the aggregate the event belongs to.
+     * @param task Callable that processes the event.
+     * @return CompletableFuture completed once the transaction of the group has committed,
+     * or completed exceptionally with the exception the event or the commit failed with.
+     */
+    public CompletableFuture<Void> submit(
+            UUID key,
+            Callable<?> task
+    ) {
+        return submit(key, List.<Callable<?>>of(task)).getFirst();
+    }
+
+    /**
+     * Submit events of the same aggregate, in sequence order, to be processed by the committer of the aggregate.
+     * Once an event fails, the events after it are failed with the same exception without being processed.
+     * If group commit is disabled, the events are processed right away on the calling thread instead.
+     *
+     * @param key   UUID of the aggregate the events belong to.
+     * @param tasks List of Callable that process the events, in sequence order.
+     * @return List of CompletableFuture in the same order, each completed once the transaction of its group
+     * has committed, or completed exceptionally with the exception the event or the commit failed with.
+     */
+    public List<CompletableFuture<Void>> submit(
+            UUID key,
+            List<Callable<?>> tasks
+    ) {
+        val items = new ArrayList<Item>(tasks.size());
+        Item previous = null;
+        for (val task : tasks) {
+            previous = new Item(task, new CompletableFuture<>(), previous);
+            items.add(previous);
+        }
+        if (!groupCommit.enabled()) {
+            items.forEach(this::call);
+        } else if (committers.isShutdown()) {
+            val stopped = new RejectedExecutionException("Group commit executor is stopped");
+            items.forEach(item -> item.future().completeExceptionally(stopped));
+        } else {
+            queues.get(stripedExecutor.laneOf(key) % queues.size()).addAll(items);
+        }
+        return items.stream()
+                .map(Item::future)
+                .toList();
+    }
+
+    /**
+     * Process events right away on the calling thread in a transaction of their own, outside of any group.
+     * This is used for events that are processed together with a single call rather than one by one.
+     *
+     * @param task Supplier that processes the events.
+     * @param <R>  type of the result of the task.
+     * @return result of the task, once the transaction has committed.
+     */
+    public <R> R execute(Supplier<R> task) {
+        return transactionTemplate.execute(status -> task.get());
+    }
+
+    /**
+     * Stop the committer threads when the application shuts down.
+     * Events that have not been committed yet are failed, so their messages are redelivered.
+     */
+    @Override
+    public void destroy() {
+        committers.shutdownNow();
+        val remaining = new ArrayList<Item>();
+        queues.forEach(queue -> queue.drainTo(remaining));
+        val stopped = new RejectedExecutionException("Group commit executor is stopped");
+        remaining.forEach(item -> item.future().completeExceptionally(stopped));
+        log.info("Stopped {} group committers with {} pending events", queues.size(), remaining.size());
+    }
+
+    /**
+     * Process an event right away on the calling thread, when group commit is disabled.
+     * The event is failed without being processed if the event before it failed.
+     *
+     * @param item {@link Item} to process.
+     */
+    private void call(Item item) {
+        val previousFailure = item.previousFailure(Map.of());
+        if (previousFailure != null) {
+            item.future().completeExceptionally(previousFailure);
+            return;
+        }
+        try {
+            item.task().call();
+            item.future().complete(null);
+        } catch (Exception e) {
+            item.future().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Gather and commit groups of events from the queue of a committer until its thread is interrupted.
+     *
+     * @param queue BlockingQueue of the committer.
+     */
+    private void run(BlockingQueue<Item> queue) {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                commit(gather(queue));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Wait for the first event of a group, then gather the events that arrive
+     * within the maximum delay, up to the maximum group size.
+     * If the committer thread is interrupted while gathering, the events gathered so far are still returned.
+     *
+     * @param queue BlockingQueue of the committer to gather the events from.
+     * @return List of {@link Item} in the order they were submitted.
+     * @throws InterruptedException if the committer thread is interrupted before the first event arrives.
+     */
+    private List<Item> gather(BlockingQueue<Item> queue) throws InterruptedException {
+        val group = new ArrayList<Item>(groupCommit.maxSize());
+        group.add(queue.take());
+        val deadline = System.nanoTime() + groupCommit.maxDelay().toNanos();
+        try {
+            while (group.size() < groupCommit.maxSize()) {
+                val remaining = deadline - System.nanoTime();
+                val next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                if (next == null) {
+                    break;
+                }
+                group.add(next);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return group;
+    }
+
+    /**
+     * Process a group of events in a single transaction and complete their futures once it has committed.
+     * <p>
+     * A failed event can leave the whole transaction marked for rollback, for example if a statement failed
+     * while flushing. If the commit fails after some events failed, the other events are committed again
+     * in a new transaction without them. If the commit fails otherwise, every event of the group fails.
+     *
+     * @param group List of {@link Item} to process.
+     */
+    private void commit(List<Item> group) {
+        val failures = new HashMap<Item, Exception>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (val item : group) {
+                    process(item, failures);
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            val succeeded = group.stream()
+                    .filter(item -> !failures.containsKey(item))
+                    .toList();
+            if (!failures.isEmpty() && !succeeded.isEmpty()) {
+                log.warn("Failed to commit group of {} events with {} failed events, committing the others again",
+                        group.size(), failures.size(), e);
+                failures.forEach((item, failure) -> item.future().completeExceptionally(failure));
+                commit(succeeded);
+                return;
+            }
+            log.error("Failed to commit group of {} events", group.size(), e);
+            group.forEach(item -> item.future().completeExceptionally(failures.getOrDefault(item, e)));
+            return;
+        }
+
+        for (val item : group) {
+            val failure = failures.get(item);
+            if (failure == null) {
+                item.future().complete(null);
+            } else {
+                item.future().completeExceptionally(failure);
+            }
+        }
+        log.debug("Committed {} of {} events in one transaction", group.size() - failures.size(), group.size());
+    }
+
+    /**
+     * Process a single event of a group within a savepoint of the transaction.
+     * The changes of the event are flushed before the savepoint is released,
+     * so statements that fail are attributed to the event that caused them.
+     * The savepoint is set on the JDBC connection of the Hibernate session that the transaction is bound to.
+     * If the event before it failed, the event is failed with the same exception without being processed.
+     *
+     * @param item     {@link Item} to process.
+     * @param failures Map to put the exception in if the event fails.
+     */
+    private void process(
+            Item item,
+            Map<Item, Exception> failures
+    ) {
+        val previousFailure = item.previousFailure(failures);
+        if (previousFailure != null) {
+            failures.put(item, previousFailure);
+            return;
+        }
+        val session = entityManager.unwrap(Session.class);
+        val savepoint = session.doReturningWork(Connection::setSavepoint);
+        try {
+            item.task().call();
+            entityManager.flush();
+            session.doWork(connection -> connection.releaseSavepoint(savepoint));
+        } catch (Exception e) {
+            failures.put(item, e);
+            session.doWork(connection -> connection.rollback(savepoint));
+            entityManager.clear();
+        }
+    }
+
+    /**
+     * Record class for an event waiting to be processed in a group.
+     *
+     * @param task     Callable that processes the event.
+     * @param future   CompletableFuture completed once the event has been committed.
+     * @param previous {@link Item} of the event of the same aggregate submitted before it, or null.
+     */
+    private record Item(
+            Callable<?> task,
+            CompletableFuture<Void> future,
+            Item previous
+    ) {
+
+        /**
+         * Get the exception the event submitted before this one failed with.
+         * The previous event has either failed in the current group, or its future has already been completed,
+         * as it was submitted to the same committer and therefore processed in the same or an earlier group.
+         *
+         * @param failures Map from the failed events of the current group to their exceptions.
+         * @return exception the previous event failed with, or null if it did not fail or there is none.
+         */
+        Exception previousFailure(Map<Item, Exception> failures) {
+            if (previous == null) {
+                return null;
+            }
+            val failure = failures.get(previous);
+            if (failure != null || !previous.future().isCompletedExceptionally()) {
+                return failure;
+            }
+            val exception = previous.future().exceptionNow();
+            return exception instanceof Exception e ? e : new CompletionException(exception);
+        }
+    }
+}
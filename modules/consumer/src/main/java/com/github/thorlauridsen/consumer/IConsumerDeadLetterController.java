@@ -0,0 +1,95 @@
+package com.github.thorlauridsen.consumer;
+
+import com.github.thorlauridsen.exception.ErrorDto;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import static com.github.thorlauridsen.consumer.IConsumerDeadLetterController.CONSUMER_DEAD_LETTER_BASE_ENDPOINT;
+
+/**
+ * Consumer dead letter controller interface.
+ * This interface defines the endpoints for inspecting and redriving dead lettered consumer events.
+ * It also defines the operations which will be used in the OpenAPI documentation.
+ * The purpose with this interface is to separate the controller definition from the implementation.
+ */
+@Tag(name = "Consumer Dead Letter Controller", description = "API for managing dead lettered consumer events")
+@RequestMapping(CONSUMER_DEAD_LETTER_BASE_ENDPOINT)
+public interface IConsumerDeadLetterController {
+
+    String CONSUMER_DEAD_LETTER_BASE_ENDPOINT = "/consumer/dead-letters";
+
+    /**
+     * Get all dead lettered consumer events.
+     *
+     * @return {@link ResponseEntity} with a list of {@link ConsumerDeadLetterDto}.
+     */
+    @GetMapping
+    @Operation(
+            summary = "Retrieve all dead lettered consumer events",
+            description = "Retrieve all dead lettered consumer events, most recently dead lettered first"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Successfully retrieved dead lettered consumer events"
+    )
+    ResponseEntity<List<ConsumerDeadLetterDto>> getAll();
+
+    /**
+     * Redrive a dead lettered consumer event given an id.
+     *
+     * @param eventId UUID of the event to redrive.
+     * @return {@link ResponseEntity} without a body.
+     * @throws ConsumerDeadLetterNotFoundException if the dead lettered event is not found.
+     * @throws ConsumerRedriveFailedException      if the event failed to be processed again.
+     */
+    @PostMapping("/{eventId}/redrive")
+    @Operation(
+            summary = "Redrive a dead lettered consumer event given an id",
+            description = "Process a dead lettered consumer event again and remove it from the dead letter table"
+    )
+    @ApiResponse(
+            responseCode = "204",
+            description = "Dead lettered consumer event successfully redriven"
+    )
+    @ApiResponse(
+            responseCode = "404",
+            description = "Dead lettered consumer event not found with given id",
+            content = @Content(schema = @Schema(implementation = ErrorDto.class))
+    )
+    @ApiResponse(
+            responseCode = "409",
+            description = "Dead lettered consumer event failed to be processed again",
+            content = @Content(schema = @Schema(implementation = ErrorDto.class))
+    )
+    ResponseEntity<Void> redrive(
+            @Parameter(description = "UUID of the event to redrive", required = true)
+            @PathVariable UUID eventId
+    ) throws ConsumerDeadLetterNotFoundException, ConsumerRedriveFailedException;
+
+    /**
+     * Redrive all dead lettered consumer events.
+     *
+     * @return {@link ResponseEntity} with the number of events redriven.
+     */
+    @PostMapping("/redrive")
+    @Operation(
+            summary = "Redrive all dead lettered consumer events",
+            description = "Process all dead lettered consumer events again in parallel at a limited rate"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Number of dead lettered consumer events redriven"
+    )
+    ResponseEntity<Integer> redriveAll();
+}
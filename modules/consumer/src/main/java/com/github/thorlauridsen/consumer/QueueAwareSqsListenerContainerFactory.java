@@ -0,0 +1,49 @@
+package com.github.thorlauridsen.consumer;
+
+import io.awspring.cloud.sqs.config.Endpoint;
+import io.awspring.cloud.sqs.config.SqsMessageListenerContainerFactory;
+import io.awspring.cloud.sqs.listener.SqsContainerOptionsBuilder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * SQS listener container factory that applies the {@link QueueProperties} of the queue a listener consumes.
+ * <p>
+ * Every listener container is first configured with the defaults of the factory and the attributes
+ * of its {@code @SqsListener} annotation. If the queue of the listener is configured under "app.queues",
+ * its concurrency, messages per poll, poll timeout and acknowledgement batching then take precedence.
+ * The queues of every listener are registered with the {@link AdaptiveConcurrencyLimiter},
+ * so it only samples the depth of queues that are actually consumed.
+ *
+ * @param <T> The payload type of the messages.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class QueueAwareSqsListenerContainerFactory<T> extends SqsMessageListenerContainerFactory<T> {
+
+    private final QueueProperties queueProperties;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * Configure the options of a listener container with the properties of its queue.
+     *
+     * @param endpoint {@link Endpoint} of the listener, holding the names of the queues it consumes.
+     * @param options  {@link SqsContainerOptionsBuilder} for the listener container.
+     */
+    @Override
+    protected void configureContainerOptions(
+            Endpoint endpoint,
+            SqsContainerOptionsBuilder options
+    ) {
+        super.configureContainerOptions(endpoint, options);
+        concurrencyLimiter.registerQueues(endpoint.getLogicalNames());
+        queueProperties.findByName(endpoint.getLogicalNames()).ifPresent(queue -> {
+            log.info("Configuring listener for queue {}: {}", queue.name(), queue);
+            options.maxConcurrentMessages(queue.maxConcurrentMessages())
+                    .maxMessagesPerPoll(queue.maxMessagesPerPoll())
+                    .pollTimeout(queue.pollTimeout())
+                    .acknowledgementInterval(queue.acknowledgementInterval())
+                    .acknowledgementThreshold(queue.acknowledgementThreshold());
+        });
+    }
+}
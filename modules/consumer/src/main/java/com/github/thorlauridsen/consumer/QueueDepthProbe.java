@@ -0,0 +1,122 @@
+package com.github.thorlauridsen.consumer;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+
+/**
+ * Probe for the depth of the SQS queues consumed by the listeners of the application.
+ * <p>
+ * Every listener container registers the queues of its listener when it is created, so only queues
+ * that are actually consumed are sampled. A queue that is configured under "app.queues" but has no listener,
+ * for example because the listener is disabled, is never sampled, so its messages do not look like a backlog.
+ * <p>
+ * The approximate number of visible and in-flight messages is read from the attributes of every queue
+ * and summed. The URL of a queue is resolved on the first sample and cached afterwards.
+ * A queue that cannot be read is left out of the sample. If SQS is disabled, no listener has registered
+ * a queue, or none of the queues can be read, the sample is empty.
+ */
+@RequiredArgsConstructor
+@Slf4j
+class QueueDepthProbe {
+
+    private final SqsAsyncClient sqsAsyncClient;
+    private final Set<String> queues = ConcurrentHashMap.newKeySet();
+    private final Map<String, String> queueUrls = new ConcurrentHashMap<>();
+
+    /**
+     * Register the queues consumed by a listener, so their depth is sampled.
+     *
+     * @param queueNames Collection of names or URLs of the queues.
+     */
+    void register(Collection<String> queueNames) {
+        queues.addAll(queueNames);
+    }
+
+    /**
+     * Sample the depth of all registered queues.
+     * A queue that cannot be read is logged and left out, so one failing queue does not discard the whole sample.
+     *
+     * @param timeout how long to wait for each request to SQS.
+     * @return Optional of {@link QueueDepth}, empty if the depth is unknown.
+     */
+    Optional<QueueDepth> sample(Duration timeout) {
+        if (sqsAsyncClient == null || queues.isEmpty()) {
+            return Optional.empty();
+        }
+        var visible = 0L;
+        var inFlight = 0L;
+        var sampled = 0;
+        for (val queue : queues) {
+            try {
+                val queueUrl = queueUrl(queue, timeout);
+                val attributes = sqsAsyncClient.getQueueAttributes(request -> request
+                                .queueUrl(queueUrl)
+                                .attributeNames(
+                                        QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES,
+                                        QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE
+                                ))
+                        .get(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                        .attributes();
+                visible += Long.parseLong(attributes.getOrDefault(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES, "0"));
+                inFlight += Long.parseLong(attributes.getOrDefault(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE, "0"));
+                sampled++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return Optional.empty();
+            } catch (Exception e) {
+                log.warn("Failed to read the depth of queue {}: {}", queue, e.getMessage());
+            }
+        }
+        if (sampled == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new QueueDepth(visible, inFlight));
+    }
+
+    /**
+     * Get the URL of a queue, resolving it from its name on first use.
+     *
+     * @param queue   name or URL of the queue.
+     * @param timeout how long to wait for SQS to resolve the URL.
+     * @return URL of the queue.
+     * @throws Exception if the URL could not be resolved.
+     */
+    private String queueUrl(
+            String queue,
+            Duration timeout
+    ) throws Exception {
+        if (queue.startsWith("http")) {
+            return queue;
+        }
+        var queueUrl = queueUrls.get(queue);
+        if (queueUrl == null) {
+            queueUrl = sqsAsyncClient.getQueueUrl(request -> request.queueName(queue))
+                    .get(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .queueUrl();
+            queueUrls.put(queue, queueUrl);
+        }
+        return queueUrl;
+    }
+
+    /**
+     * Record class for a sample of the depth of the queues.
+     *
+     * @param visible  approximate number of messages waiting to be received.
+     * @param inFlight approximate number of messages received but not yet acknowledged.
+     */
+    record QueueDepth(
+            long visible,
+            long inFlight
+    ) {
+    }
+}
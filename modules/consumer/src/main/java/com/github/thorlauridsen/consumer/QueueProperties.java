@@ -0,0 +1,86 @@
+package com.github.thorlauridsen.consumer;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import lombok.val;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for the SQS queues consumed by the application.
+ * The properties are defined in application.yml under "app.queues", with one entry per queue.
+ *
+ * @param queues Map from the key of every queue to its {@link Queue} properties.
+ */
+@ConfigurationProperties(prefix = "app")
+public record QueueProperties(
+        Map<String, Queue> queues
+) {
+
+    /**
+     * Find the properties of the queues with one of the given names.
+     * A listener that consumes several queues runs in a single listener container, which can only be configured
+     * one way. The queues of such a listener must therefore share the same settings.
+     *
+     * @param names Collection of queue names, such as the queue names of a listener.
+     * @return Optional of {@link Queue}, empty if none of the queues are configured.
+     * @throws IllegalStateException if the queues are configured with different settings.
+     */
+    public Optional<Queue> findByName(Collection<String> names) {
+        if (queues == null) {
+            return Optional.empty();
+        }
+        val matching = queues.values().stream()
+                .filter(queue -> names.contains(queue.name()))
+                .toList();
+        if (matching.isEmpty()) {
+            return Optional.empty();
+        }
+        val first = matching.getFirst();
+        for (val queue : matching) {
+            if (!queue.hasSameSettings(first)) {
+                throw new IllegalStateException("Queues " + first.name() + " and " + queue.name()
+                        + " are consumed by the same listener, but are configured with different settings");
+            }
+        }
+        return Optional.of(first);
+    }
+
+    /**
+     * Configuration properties for a single SQS queue.
+     * The properties are defined in application.yml under "app.queues.{key}".
+     *
+     * @param name                     name or URL of the queue.
+     * @param maxConcurrentMessages    maximum number of messages processed at the same time from the queue.
+     * @param maxMessagesPerPoll       maximum number of messages received in a single poll, at most 10.
+     *                                 This must not be larger than the maximum number of concurrent messages.
+     * @param pollTimeout              how long a poll waits for messages to arrive, at most 20 seconds.
+     * @param acknowledgementInterval  how long acknowledgements are collected before they are sent.
+     * @param acknowledgementThreshold number of acknowledgements that are sent as soon as they have been collected.
+     */
+    public record Queue(
+            String name,
+            @DefaultValue("10") int maxConcurrentMessages,
+            @DefaultValue("10") int maxMessagesPerPoll,
+            @DefaultValue("10s") Duration pollTimeout,
+            @DefaultValue("1s") Duration acknowledgementInterval,
+            @DefaultValue("10") int acknowledgementThreshold
+    ) {
+
+        /**
+         * Check whether another queue is configured with the same settings, regardless of its name.
+         *
+         * @param other {@link Queue} to compare with.
+         * @return true if all settings other than the name are equal.
+         */
+        boolean hasSameSettings(Queue other) {
+            return maxConcurrentMessages == other.maxConcurrentMessages
+                    && maxMessagesPerPoll == other.maxMessagesPerPoll
+                    && pollTimeout.equals(other.pollTimeout)
+                    && acknowledgementInterval.equals(other.acknowledgementInterval)
+                    && acknowledgementThreshold == other.acknowledgementThreshold;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.github.thorlauridsen.consumer;
+
+import com.github.thorlauridsen.model.event.ProcessedSequence;
+import com.github.thorlauridsen.model.repository.IProcessedSequenceRepo;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded reorder buffer for processing the events of an aggregate in sequence order.
+ * <p>
+ * Every outbox event carries the aggregate id and a per-aggregate sequence number as message attributes.
+ * The buffer remembers the next expected sequence number of each aggregate. An event that arrives ahead
+ * of its predecessors, for example because an earlier event was retried by the outbox poller, is held back
+ * until the missing events have been processed or the timeout expires. Events of different aggregates never
+ * wait for each other, so consumers keep processing messages concurrently.
+ * <p>
+ * An early event is held back by blocking the listener thread that received it. The message is therefore
+ * only acknowledged once it has been processed, and is redelivered by SQS if the application stops in between.
+ * The number of events held back at the same time is bounded by the configured capacity. Once the buffer is
+ * full, or the timeout expires, the event is processed out of order rather than blocking indefinitely.
+ * <p>
+ * The expected sequence numbers are kept in memory for a bounded number of recently seen aggregates.
+ * The last processed sequence number of every aggregate is also stored next to the processed events,
+ * in the same transaction as the event itself. When the buffer has no entry for an aggregate, for example
+ * after a restart or after the aggregate was evicted, or when an event is ahead of the sequence number in memory,
+ * because earlier events were consumed by another replica, the stored sequence number is read instead.
+ * An aggregate without any processed event expects sequence number 1, as the outbox numbers events from 1.
+ * Events with a sequence number lower than expected, such as redeliveries, are processed immediately.
+ * The same buffer is shared by all consumers of an application, as all events of an aggregate
+ * are numbered in the outbox of the application that published them.
+ */
+@Component
+@Slf4j
+public class ReorderBuffer {
+
+    private static final long FIRST_SEQUENCE = 1;
+
+    private final ConsumerProperties.Reorder reorder;
+    private final IProcessedSequenceRepo processedSequenceRepo;
+    private final Map<UUID, Long> nextSequences;
+    private int waiting;
+
+    /**
+     * Constructor for ReorderBuffer.
+     *
+     * @param consumerProperties    {@link ConsumerProperties} for configuring the buffer.
+     * @param processedSequenceRepo {@link IProcessedSequenceRepo} for the last processed sequence of every aggregate.
+     */
+    public ReorderBuffer(
+            ConsumerProperties consumerProperties,
+            IProcessedSequenceRepo processedSequenceRepo
+    ) {
+        this.reorder = consumerProperties.reorder();
+        this.processedSequenceRepo = processedSequenceRepo;
+        this.nextSequences = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Long> eldest) {
+                return size() > reorder.maxAggregates();
+            }
+        };
+    }
+
+    /**
+     * Process an event once all earlier events of its aggregate have been processed.
+     * The calling thread waits until it is the turn of the event or the timeout expires.
+     * The next sequence number is only advanced if the handler completes without an exception,
+     * so a failed event that is redelivered is still processed before its successors.
+     *
+     * @param aggregateId UUID of the aggregate the event belongs to.
+     * @param sequence    position of the event among the events of its aggregate.
+     * @param handler     Runnable that processes the event.
+     */
+    public void process(
+            UUID aggregateId,
+            long sequence,
+            Runnable handler
+    ) {
+        if (!awaitTurn(aggregateId, sequence)) {
+            log.warn("Processing event {} of aggregate {} out of order", sequence, aggregateId);
+        }
+        handler.run();
+        advance(aggregateId, sequence);
+    }
+
+    /**
+     * Wait until all earlier events of the aggregate have been processed.
+     *
+     * @param aggregateId UUID of the aggregate the event belongs to.
+     * @param sequence    position of the event among the events of its aggregate.
+     * @return true if it is the turn of the event, false if the buffer was full or the timeout expired.
+     */
+    private boolean awaitTurn(
+            UUID aggregateId,
+            long sequence
+    ) {
+        return awaitTurns(Map.of(aggregateId, sequence));
+    }
+
+    /**
+     * Find the aggregates whose earlier events have not all been processed yet, without waiting.
+     * This is used for a batch of events, where the first sequence number of every aggregate in the batch is given,
+     * so only the events of those aggregates are held back while the rest of the batch is processed right away.
+     *
+     * @param firstSequences Map from the UUID of every aggregate to its first sequence number in the batch.
+     * @return Set of UUIDs of the aggregates that are missing earlier events.
+     */
+    Set<UUID> findGaps(Map<UUID, Long> firstSequences) {
+        if (!reorder.enabled()) {
+            return Set.of();
+        }
+        load(firstSequences);
+        synchronized (this) {
+            return firstSequences.entrySet().stream()
+                    .filter(entry -> !isTurn(entry.getKey(), entry.getValue()))
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toSet());
+        }
+    }
+
+    /**
+     * Wait until all earlier events of several aggregates have been processed.
+     * The first sequence number of every aggregate is given, and the events wait as one, with a single timeout.
+     *
+     * @param firstSequences Map from the UUID of every aggregate to its first sequence number in the batch.
+     * @return true if it is the turn of all the events, false if the buffer was full or the timeout expired.
+     */
+    boolean awaitTurns(Map<UUID, Long> firstSequences) {
+        if (!reorder.enabled()) {
+            return true;
+        }
+        load(firstSequences);
+        return await(firstSequences);
+    }
+
+    /**
+     * Read the stored last sequence number of every aggregate that the buffer has no entry for,
+     * or whose next event is ahead of the sequence number in memory.
+     * Aggregates without a stored sequence number expect the first sequence number.
+     * The database is queried without holding the lock of the buffer, so other events are not held up.
+     *
+     * @param firstSequences Map from the UUID of every aggregate to the sequence number of its next event.
+     */
+    private void load(Map<UUID, Long> firstSequences) {
+        List<UUID> unknown;
+        synchronized (this) {
+            unknown = firstSequences.entrySet().stream()
+                    .filter(entry -> !isTurn(entry.getKey(), entry.getValue()))
+                    .map(Map.Entry::getKey)
+                    .toList();
+        }
+        if (unknown.isEmpty()) {
+            return;
+        }
+        List<ProcessedSequence> stored;
+        try {
+            stored = processedSequenceRepo.findAllById(unknown);
+        } catch (DataAccessException e) {
+            log.warn("Failed to read the last processed sequence of aggregates {}", unknown, e);
+            stored = List.of();
+        }
+        synchronized (this) {
+            unknown.forEach(aggregateId -> nextSequences.putIfAbsent(aggregateId, FIRST_SEQUENCE));
+            stored.forEach(processed -> nextSequences.merge(
+                    processed.aggregateId(), processed.lastSequence() + 1, Math::max
+            ));
+        }
+    }
+
+    /**
+     * Wait until it is the turn of all the given events, or the timeout expires.
+     *
+     * @param firstSequences Map from the UUID of every aggregate to the sequence number of its next event.
+     * @return true if it is the turn of all the events, false if the buffer was full or the timeout expired.
+     */
+    private synchronized boolean await(Map<UUID, Long> firstSequences) {
+        if (isTurn(firstSequences)) {
+            return true;
+        }
+        if (waiting >= reorder.capacity()) {
+            return false;
+        }
+        log.debug("Holding back events of aggregates {} until the gaps are filled", firstSequences.keySet());
+        waiting++;
+        try {
+            val deadline = System.nanoTime() + reorder.timeout().toNanos();
+            while (!isTurn(firstSequences)) {
+                val remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waiting--;
+        }
+    }
+
+    /**
+     * Check whether all earlier events of the given aggregates have been processed.
+     *
+     * @param firstSequences Map from the UUID of every aggregate to the sequence number of its next event.
+     * @return true if no earlier event of any of the aggregates is missing.
+     */
+    private boolean isTurn(Map<UUID, Long> firstSequences) {
+        for (val entry : firstSequences.entrySet()) {
+            if (!isTurn(entry.getKey(), entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check whether all earlier events of an aggregate have been processed.
+     * An aggregate the buffer has no entry for expects the first sequence number.
+     *
+     * @param aggregateId UUID of the aggregate.
+     * @param sequence    sequence number of the next event of the aggregate.
+     * @return true if no earlier event of the aggregate is missing.
+     */
+    private boolean isTurn(
+            UUID aggregateId,
+            long sequence
+    ) {
+        val nextSequence = nextSequences.get(aggregateId);
+        return nextSequence != null ? sequence <= nextSequence : sequence <= FIRST_SEQUENCE;
+    }
+
+    /**
+     * Store the last processed sequence number of every given aggregate.
+     * This must be called within the transaction that processes the events,
+     * so the stored sequence numbers only move forward once the events have been committed.
+     *
+     * @param lastSequences Map from the UUID of every aggregate to the sequence number of its last processed event.
+     */
+    void record(Map<UUID, Long> lastSequences) {
+        if (!lastSequences.isEmpty()) {
+            processedSequenceRepo.saveAll(lastSequences.entrySet().stream()
+                    .map(entry -> new ProcessedSequence(entry.getKey(), entry.getValue()))
+                    .toList());
+        }
+    }
+
+    /**
+     * Mark an event as processed and wake up the events waiting for it.
+     *
+     * @param aggregateId UUID of the aggregate the event belongs to.
+     * @param sequence    position of the event among the events of its aggregate.
+     */
+    synchronized void advance(
+            UUID aggregateId,
+            long sequence
+    ) {
+        nextSequences.merge(aggregateId, sequence + 1, Math::max);
+        notifyAll();
+    }
+}
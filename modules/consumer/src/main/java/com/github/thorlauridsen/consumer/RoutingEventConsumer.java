@@ -0,0 +1,198 @@
+package com.github.thorlauridsen.consumer;
+
+import com.github.thorlauridsen.event.MessageAttributes;
+import com.github.thorlauridsen.model.enumeration.EventType;
+import com.github.thorlauridsen.model.event.ConsumerDeadLetter;
+import io.awspring.cloud.sqs.listener.acknowledgement.BatchAcknowledgement;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.messaging.Message;
+import org.springframework.util.ClassUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Abstract class for a consumer that listens for events of several types on a single queue.
+ * <p>
+ * Every message is routed by the event type message attribute that the producers set on every event.
+ * With SNS raw message delivery, the attribute is read from the SQS message attributes without touching the body.
+ * Otherwise, it is read from the message attributes of the SNS notification, skipping over the event itself.
+ * If neither is set, for example on messages published before producers set the attribute,
+ * the event type is read from the event in the body instead.
+ * Either way, the event is only deserialized once, by the {@link BaseEventConsumer} registered for its type.
+ * Messages of known event types that no consumer is registered for are acknowledged and dropped without being deserialized.
+ * Messages whose event type cannot be read, or is not known, are handled by the {@link ConsumerFailurePolicy}
+ * instead, so they are retried with backoff, for example until a newer version that knows the type is deployed,
+ * and dead lettered under the name of the router once they are poison or have run out of attempts.
+ * <p>
+ * The messages of a batch are grouped by event type, and every group is passed to the listenBatch method
+ * of its consumer, which handles ordering, lanes, retries and dead lettering as if it listened on its own queue.
+ * The groups are processed in parallel, so events of one aggregate with different types can wait for each other
+ * in the {@link ReorderBuffer}. Every consumer acknowledges its own messages.
+ * <p>
+ * The listener is chosen by annotating the override of
+ * {@link #listenBatch(List, BatchAcknowledgement)} in the subclass with {@code @SqsListener}.
+ */
+@Slf4j
+public abstract class RoutingEventConsumer {
+
+    private final SnsEnvelopeParser envelopeParser;
+    private final ConsumerFailurePolicy failurePolicy;
+    private final Map<EventType, BaseEventConsumer<?>> consumers = new EnumMap<>(EventType.class);
+
+    /**
+     * Constructor for RoutingEventConsumer.
+     *
+     * @param jsonMapper    FasterXML Jackson {@link JsonMapper} for reading the SNS notifications.
+     * @param failurePolicy {@link ConsumerFailurePolicy} for retrying or dead lettering messages without a known type.
+     * @param consumers     List of {@link BaseEventConsumer} to route the messages to, one per event type.
+     * @throws IllegalArgumentException if more than one consumer is registered for the same event type.
+     */
+    protected RoutingEventConsumer(
+            JsonMapper jsonMapper,
+            ConsumerFailurePolicy failurePolicy,
+            List<BaseEventConsumer<?>> consumers
+    ) {
+        this.envelopeParser = new SnsEnvelopeParser(jsonMapper);
+        this.failurePolicy = failurePolicy;
+        for (val consumer : consumers) {
+            val previous = this.consumers.putIfAbsent(consumer.getEventType(), consumer);
+            if (previous != null) {
+                throw new IllegalArgumentException("Both " + previous.getName() + " and " + consumer.getName()
+                        + " consume " + consumer.getEventType());
+            }
+        }
+    }
+
+    /**
+     * Listen for batches of messages on the SQS queue and route them to the consumers of their event types.
+     * <p>
+     * The listener must use the MANUAL acknowledgement mode. Messages that were routed are acknowledged
+     * by their consumer. Messages of a known event type without a consumer are acknowledged right away,
+     * as are messages without a known event type once they have been dead lettered.
+     *
+     * @param messages        List of {@link Message} from the SQS queue with JSON payloads.
+     * @param acknowledgement {@link BatchAcknowledgement} for acknowledging the processed messages.
+     */
+    public void listenBatch(
+            List<Message<String>> messages,
+            BatchAcknowledgement<String> acknowledgement
+    ) {
+        val routes = new LinkedHashMap<BaseEventConsumer<?>, List<Message<String>>>();
+        val completed = new ArrayList<Message<String>>();
+        for (val message : messages) {
+            EventType eventType;
+            try {
+                eventType = readEventType(message);
+            } catch (RuntimeException e) {
+                log.warn("Failed to read event type of message {}", BaseEventConsumer.messageId(message), e);
+                if (handleFailure(message, e)) {
+                    completed.add(message);
+                }
+                continue;
+            }
+            val consumer = consumers.get(eventType);
+            if (consumer == null) {
+                log.warn("Rejected message {} without a consumer for event type {}", BaseEventConsumer.messageId(message), eventType);
+                completed.add(message);
+                continue;
+            }
+            routes.computeIfAbsent(consumer, key -> new ArrayList<>()).add(message);
+        }
+        if (!completed.isEmpty()) {
+            acknowledgement.acknowledge(completed);
+        }
+
+        if (routes.size() == 1) {
+            val route = routes.entrySet().iterator().next();
+            route.getKey().listenBatch(route.getValue(), acknowledgement);
+            return;
+        }
+        val futures = new ArrayList<CompletableFuture<Void>>(routes.size());
+        routes.forEach((consumer, routed) -> futures.add(CompletableFuture.runAsync(
+                () -> consumer.listenBatch(routed, acknowledgement),
+                task -> Thread.ofVirtual().name("event-router-" + consumer.getName()).start(task)
+        )));
+        for (val future : futures) {
+            StripedExecutor.join(future);
+        }
+    }
+
+    /**
+     * Get the name of this router, which is stored with the messages it dead letters.
+     *
+     * @return simple class name of the router.
+     */
+    public String getName() {
+        return ClassUtils.getUserClass(getClass()).getSimpleName();
+    }
+
+    /**
+     * Read the event type of a message without deserializing its event.
+     * The SQS message attribute is used if present, which is the case with SNS raw message delivery.
+     * Otherwise, the message attribute of the SNS notification in the body is used,
+     * or the event type field of the event if the attribute is not set at all.
+     *
+     * @param message Message to read the event type of.
+     * @return {@link EventType} of the message.
+     * @throws IllegalArgumentException if the message has no event type, or the event type is not known.
+     */
+    private EventType readEventType(Message<String> message) {
+        val header = message.getHeaders().get(MessageAttributes.EVENT_TYPE);
+        val value = header != null ? header.toString() : envelopeParser.readEventType(message.getPayload());
+        if (value == null) {
+            throw new IllegalArgumentException("Message does not have an event type");
+        }
+        return EventType.valueOf(value);
+    }
+
+    /**
+     * Handle a message whose event type could not be read, or is not known.
+     * The message is either dead lettered under the SQS message id, or its visibility timeout
+     * is changed to the backoff of its attempt, so it is retried later.
+     *
+     * @param message   Message that could not be routed.
+     * @param exception Exception the event type could not be read with.
+     * @return true if the message was dead lettered and should be acknowledged.
+     */
+    private boolean handleFailure(
+            Message<String> message,
+            Exception exception
+    ) {
+        val messageId = BaseEventConsumer.messageId(message);
+        val failureType = failurePolicy.classify(exception);
+        val attempt = BaseEventConsumer.receiveCount(message);
+        if (failurePolicy.shouldDeadLetter(failureType, attempt)) {
+            try {
+                failurePolicy.deadLetter(new ConsumerDeadLetter(
+                        messageId,
+                        null,
+                        getName(),
+                        message.getPayload(),
+                        null,
+                        null,
+                        failureType,
+                        attempt,
+                        ConsumerFailurePolicy.describe(exception),
+                        null
+                ));
+                return true;
+            } catch (RuntimeException e) {
+                log.error("Failed to dead letter message {}", messageId, e);
+                return false;
+            }
+        }
+        val backoff = failurePolicy.backoffSeconds(attempt);
+        log.warn(
+                "Retrying message {} in {} seconds after {} failure on attempt {}: {}",
+                messageId, backoff, failureType, attempt, ConsumerFailurePolicy.describe(exception)
+        );
+        BaseEventConsumer.changeVisibility(message, backoff);
+        return false;
+    }
+}
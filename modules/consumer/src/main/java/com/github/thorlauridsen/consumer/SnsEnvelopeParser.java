@@ -0,0 +1,259 @@
+package com.github.thorlauridsen.consumer;
+
+import com.github.thorlauridsen.event.MessageAttributes;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Single-pass parser for SNS notifications received from an SQS queue.
+ * <p>
+ * The SNS envelope is walked token by token only once. Fields that are not needed, such as
+ * the signature, the signing certificate URL and the unsubscribe URL, are skipped without being
+ * materialized. Only the aggregate id and sequence number are read from the message attributes.
+ * The "Message" field is deserialized into the event directly from the character buffer of the
+ * parser, without first copying it into an intermediate String.
+ * <p>
+ * If the subscription uses SNS raw message delivery, the body is the event itself rather than an envelope.
+ * This is detected as soon as the first field that is not part of an SNS envelope is encountered,
+ * in which case the body is deserialized into the event as-is. The message attributes are then
+ * delivered as SQS message attributes instead, so they are not part of the result.
+ */
+@RequiredArgsConstructor
+class SnsEnvelopeParser {
+
+    private static final String MESSAGE = "Message";
+    private static final String MESSAGE_ATTRIBUTES = "MessageAttributes";
+    private static final String VALUE = "Value";
+    private static final String EVENT_TYPE = "eventType";
+    private static final Set<String> ENVELOPE_FIELDS = Set.of(
+            "Type",
+            "MessageId",
+            "TopicArn",
+            "Subject",
+            MESSAGE,
+            "Timestamp",
+            "SignatureVersion",
+            "Signature",
+            "SigningCertURL",
+            "UnsubscribeURL",
+            MESSAGE_ATTRIBUTES,
+            "SequenceNumber"
+    );
+
+    private final JsonMapper jsonMapper;
+
+    /**
+     * Parse a message body received from an SQS queue.
+     *
+     * @param body       The JSON body of the SQS message.
+     * @param eventClass Class of the event to deserialize.
+     * @param <T>        The type of the event.
+     * @return {@link Envelope} with the event and its aggregate id and sequence number, if any.
+     */
+    <T> Envelope<T> parse(
+            String body,
+            Class<T> eventClass
+    ) {
+        try (JsonParser parser = jsonMapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return raw(body, eventClass);
+            }
+            T event = null;
+            String aggregateId = null;
+            String sequence = null;
+
+            String name;
+            while ((name = parser.nextName()) != null) {
+                if (!ENVELOPE_FIELDS.contains(name)) {
+                    return raw(body, eventClass);
+                }
+                parser.nextToken();
+                switch (name) {
+                    case MESSAGE -> event = readMessage(parser, eventClass);
+                    case MESSAGE_ATTRIBUTES -> {
+                        while ((name = parser.nextName()) != null) {
+                            parser.nextToken();
+                            switch (name) {
+                                case MessageAttributes.AGGREGATE_ID -> aggregateId = readAttributeValue(parser);
+                                case MessageAttributes.SEQUENCE -> sequence = readAttributeValue(parser);
+                                default -> parser.skipChildren();
+                            }
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+            if (event == null) {
+                throw new IllegalArgumentException("SNS notification does not contain a message");
+            }
+            return new Envelope<>(event, aggregateId, sequence, false);
+        }
+    }
+
+    /**
+     * Read the event type of a message without deserializing the event.
+     * The envelope is walked token by token, and the "Message" field is skipped without being materialized,
+     * so a message can be routed, or rejected, before its event is deserialized.
+     * <p>
+     * If the message attribute is not set, for example on messages published before producers set it,
+     * the event type is read from the event itself instead. This is either the body itself with raw message
+     * delivery, or the "Message" field of the SNS notification.
+     *
+     * @param body The JSON body of the SQS message.
+     * @return value of the event type message attribute, or of the event type field of the event,
+     * or null if neither is set.
+     */
+    String readEventType(String body) {
+        try (JsonParser parser = jsonMapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            String name;
+            while ((name = parser.nextName()) != null) {
+                if (!ENVELOPE_FIELDS.contains(name)) {
+                    return readEventTypeField(body);
+                }
+                parser.nextToken();
+                if (!MESSAGE_ATTRIBUTES.equals(name)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while ((name = parser.nextName()) != null) {
+                    parser.nextToken();
+                    if (MessageAttributes.EVENT_TYPE.equals(name)) {
+                        return readAttributeValue(parser);
+                    }
+                    parser.skipChildren();
+                }
+            }
+        }
+        return readEventTypeField(body);
+    }
+
+    /**
+     * Read the event type field of the event in a message body, without deserializing the rest of the event.
+     * The top-level fields of the body are walked, and the event type is read from the event itself
+     * if the body is the event, or from the "Message" field if the body is an SNS notification.
+     *
+     * @param body The JSON body of the SQS message.
+     * @return value of the event type field of the event, or null if it is not set.
+     */
+    private String readEventTypeField(String body) {
+        try (JsonParser parser = jsonMapper.createParser(body)) {
+            return readEventTypeField(parser);
+        }
+    }
+
+    /**
+     * Read the event type field among the top-level fields of an object, skipping the values of the other fields.
+     * If the object has a "Message" field holding a string, the event type is also looked up in that string.
+     *
+     * @param parser JsonParser positioned before the start of the object.
+     * @return value of the event type field, or null if it is not set.
+     */
+    private String readEventTypeField(JsonParser parser) {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+        String name;
+        while ((name = parser.nextName()) != null) {
+            val token = parser.nextToken();
+            if (EVENT_TYPE.equals(name) && token == JsonToken.VALUE_STRING) {
+                return parser.getString();
+            }
+            if (MESSAGE.equals(name) && token == JsonToken.VALUE_STRING) {
+                try (JsonParser message = jsonMapper.createParser(
+                        parser.getStringCharacters(),
+                        parser.getStringOffset(),
+                        parser.getStringLength()
+                )) {
+                    val eventType = readEventTypeField(message);
+                    if (eventType != null) {
+                        return eventType;
+                    }
+                }
+                continue;
+            }
+            parser.skipChildren();
+        }
+        return null;
+    }
+
+    /**
+     * Deserialize the "Message" field into the event.
+     * The unescaped characters of the string are read straight from the buffer of the parser.
+     *
+     * @param parser     JsonParser positioned at the value of the "Message" field.
+     * @param eventClass Class of the event to deserialize.
+     * @param <T>        The type of the event.
+     * @return The deserialized event.
+     */
+    private <T> T readMessage(
+            JsonParser parser,
+            Class<T> eventClass
+    ) {
+        try (JsonParser message = jsonMapper.createParser(
+                parser.getStringCharacters(),
+                parser.getStringOffset(),
+                parser.getStringLength()
+        )) {
+            return jsonMapper.readValue(message, eventClass);
+        }
+    }
+
+    /**
+     * Read the "Value" field of a message attribute and skip its other fields.
+     *
+     * @param parser JsonParser positioned at the start of the message attribute object.
+     * @return value of the attribute, or null if it has no value.
+     */
+    private static String readAttributeValue(JsonParser parser) {
+        String value = null;
+        String name;
+        while ((name = parser.nextName()) != null) {
+            parser.nextToken();
+            if (VALUE.equals(name)) {
+                value = parser.getString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Deserialize a body delivered with SNS raw message delivery, which is the event itself.
+     *
+     * @param body       The JSON body of the SQS message.
+     * @param eventClass Class of the event to deserialize.
+     * @param <T>        The type of the event.
+     * @return {@link Envelope} with the event and without message attributes.
+     */
+    private <T> Envelope<T> raw(
+            String body,
+            Class<T> eventClass
+    ) {
+        return new Envelope<>(jsonMapper.readValue(body, eventClass), null, null, true);
+    }
+
+    /**
+     * Record class for a parsed SQS message body.
+     *
+     * @param event       The deserialized event.
+     * @param aggregateId aggregate id message attribute, or null if not set.
+     * @param sequence    sequence message attribute, or null if not set.
+     * @param raw         whether the body was delivered with SNS raw message delivery.
+     * @param <T>         The type of the event.
+     */
+    record Envelope<T>(
+            T event,
+            String aggregateId,
+            String sequence,
+            boolean raw
+    ) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.thorlauridsen.consumer;
+
+import io.awspring.cloud.sqs.config.SqsMessageListenerContainerFactory;
+import lombok.val;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+
+/**
+ * Configuration class for the SQS listeners.
+ * <p>
+ * This replaces the default SQS listener container factory of Spring Cloud AWS with a
+ * {@link QueueAwareSqsListenerContainerFactory}, so every queue can be tuned under "app.queues".
+ * Messages are processed on virtual threads, so listeners that block on JPA or the reorder buffer
+ * do not occupy a small pool of platform threads. The number of messages processed at the same time
+ * is still bounded per queue by the maximum number of concurrent messages.
+ * <p>
+ * This is only active when SQS is enabled, which is not the case in the test profile.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.cloud.aws.sqs.enabled", havingValue = "true", matchIfMissing = true)
+public class SqsListenerConfig {
+
+    /**
+     * Create the default SQS listener container factory used by all {@code @SqsListener} methods.
+     *
+     * @param sqsAsyncClient     {@link SqsAsyncClient} for receiving and acknowledging messages.
+     * @param queueProperties    {@link QueueProperties} with the configuration of every queue.
+     * @param concurrencyLimiter {@link AdaptiveConcurrencyLimiter} that samples the depth of the consumed queues.
+     * @return {@link SqsMessageListenerContainerFactory}.
+     */
+    @Bean
+    public SqsMessageListenerContainerFactory<Object> defaultSqsListenerContainerFactory(
+            SqsAsyncClient sqsAsyncClient,
+            QueueProperties queueProperties,
+            AdaptiveConcurrencyLimiter concurrencyLimiter
+    ) {
+        val executor = new SimpleAsyncTaskExecutor("sqs-listener-");
+        executor.setVirtualThreads(true);
+
+        val factory = new QueueAwareSqsListenerContainerFactory<Object>(queueProperties, concurrencyLimiter);
+        factory.setSqsAsyncClient(sqsAsyncClient);
+        factory.configure(options -> options.componentsTaskExecutor(executor));
+        return factory;
+    }
+}
@@ -0,0 +1,144 @@
+package com.github.thorlauridsen.consumer;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * Executor that processes the events of the same aggregate one at a time.
+ * <p>
+ * Every event is routed to one of a fixed number of lanes by a hash of its aggregate id.
+ * Each lane runs its tasks one after another on its own virtual thread, so two events of
+ * the same order never race each other, while events of different orders run in parallel.
+ * <p>
+ * Every lane accepts a bounded number of queued and running tasks. Once a lane is full,
+ * submitting another task blocks the calling listener thread until the lane has capacity again.
+ * As the listener containers only poll for more messages once a listener thread is available,
+ * this applies backpressure all the way to the SQS queue instead of buffering messages in memory.
+ */
+@Component
+@Slf4j
+public class StripedExecutor implements DisposableBean {
+
+    private final ExecutorService[] lanes;
+    private final Semaphore[] capacity;
+
+    /**
+     * Constructor for StripedExecutor.
+     *
+     * @param consumerProperties {@link ConsumerProperties} for configuring the lanes.
+     */
+    public StripedExecutor(ConsumerProperties consumerProperties) {
+        val striping = consumerProperties.striping();
+        this.lanes = new ExecutorService[striping.lanes()];
+        this.capacity = new Semaphore[striping.lanes()];
+        for (var i = 0; i < lanes.length; i++) {
+            lanes[i] = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("consumer-lane-" + i).factory());
+            capacity[i] = new Semaphore(striping.queueCapacity());
+        }
+    }
+
+    /**
+     * Get the lane the tasks of an aggregate are routed to.
+     *
+     * @param key UUID of the aggregate.
+     * @return index of the lane.
+     */
+    public int laneOf(UUID key) {
+        return Math.floorMod(key.hashCode(), lanes.length);
+    }
+
+    /**
+     * Submit a task to the lane of an aggregate.
+     * The calling thread blocks while the lane is full.
+     *
+     * @param key  UUID of the aggregate the task belongs to.
+     * @param task Supplier to run in the lane.
+     * @param <R>  type of the result of the task.
+     * @return CompletableFuture completed with the result of the task.
+     */
+    public <R> CompletableFuture<R> submit(
+            UUID key,
+            Supplier<R> task
+    ) {
+        val lane = laneOf(key);
+        try {
+            capacity[lane].acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for lane " + lane, e);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return task.get();
+                } finally {
+                    capacity[lane].release();
+                }
+            }, lanes[lane]);
+        } catch (RejectedExecutionException e) {
+            capacity[lane].release();
+            throw e;
+        }
+    }
+
+    /**
+     * Run a task in the lane of an aggregate and wait for it to complete.
+     * An exception thrown by the task is rethrown to the calling thread.
+     *
+     * @param key  UUID of the aggregate the task belongs to.
+     * @param task Runnable to run in the lane.
+     */
+    public void execute(
+            UUID key,
+            Runnable task
+    ) {
+        join(submit(key, () -> {
+            task.run();
+            return null;
+        }));
+    }
+
+    /**
+     * Wait for a task submitted to a lane to complete.
+     * An exception thrown by the task is rethrown as-is rather than wrapped.
+     *
+     * @param future CompletableFuture of the task.
+     * @param <R>    type of the result of the task.
+     * @return result of the task.
+     */
+    public static <R> R join(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Stop all lanes when the application shuts down.
+     * Tasks that are already queued are allowed to complete.
+     */
+    @Override
+    public void destroy() {
+        for (val lane : lanes) {
+            lane.shutdown();
+        }
+        log.info("Stopped {} consumer lanes", lanes.length);
+    }
+}
@@ -7,6 +7,8 @@ import lombok.val;
 import org.springframework.stereotype.Service;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -29,6 +31,16 @@ public class DeduplicationService {
         return processedEventRepo.existsById(eventId);
     }
 
+    /**
+     * Find which of the given events are duplicates with a single query.
+     *
+     * @param eventIds Collection of UUIDs of the events to check.
+     * @return Set of UUIDs of the events that have already been processed.
+     */
+    public Set<UUID> findDuplicates(Collection<UUID> eventIds) {
+        return processedEventRepo.findExistingIds(eventIds);
+    }
+
     /**
      * Record an event as processed.
      *
@@ -41,4 +53,17 @@ public class DeduplicationService {
         );
         processedEventRepo.save(processedEvent);
     }
+
+    /**
+     * Record multiple events as processed at once.
+     *
+     * @param eventIds Collection of UUIDs of the events to record.
+     */
+    public void recordEvents(Collection<UUID> eventIds) {
+        val processedAt = OffsetDateTime.now();
+        val processedEvents = eventIds.stream()
+                .map(eventId -> new ProcessedEvent(eventId, processedAt))
+                .toList();
+        processedEventRepo.saveAll(processedEvents);
+    }
 }
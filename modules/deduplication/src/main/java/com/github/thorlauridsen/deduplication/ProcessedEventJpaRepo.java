@@ -1,7 +1,11 @@
 package com.github.thorlauridsen.deduplication;
 
+import java.util.Collection;
+import java.util.Set;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 /**
  * Processed event repository interface.
@@ -9,4 +13,13 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * It extends the {@link JpaRepository} interface which allows us to easily define CRUD methods.
  */
 public interface ProcessedEventJpaRepo extends JpaRepository<ProcessedEventEntity, UUID> {
+
+    /**
+     * Find which of the given events have already been processed.
+     *
+     * @param eventIds Collection of UUIDs of the events.
+     * @return Set of UUIDs of the events that have already been processed.
+     */
+    @Query("SELECT p.eventId FROM ProcessedEventEntity p WHERE p.eventId IN :eventIds")
+    Set<UUID> findExistingIds(@Param("eventIds") Collection<UUID> eventIds);
 }
@@ -2,6 +2,8 @@ package com.github.thorlauridsen.deduplication;
 
 import com.github.thorlauridsen.model.event.ProcessedEvent;
 import com.github.thorlauridsen.model.repository.IProcessedEventRepo;
+import java.util.Collection;
+import java.util.Set;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import lombok.val;
@@ -35,6 +37,20 @@ public class ProcessedEventRepo implements IProcessedEventRepo {
         return jpaRepo.existsById(eventId);
     }
 
+    /**
+     * Find which of the given events exist with a single query.
+     *
+     * @param eventIds Collection of UUIDs of the events.
+     * @return Set of UUIDs of the events that exist.
+     */
+    @Override
+    public Set<UUID> findExistingIds(Collection<UUID> eventIds) {
+        if (eventIds.isEmpty()) {
+            return Set.of();
+        }
+        return jpaRepo.findExistingIds(eventIds);
+    }
+
     /**
      * Save a processed event to the database.
      *
@@ -47,4 +63,17 @@ public class ProcessedEventRepo implements IProcessedEventRepo {
         val saved = jpaRepo.save(entity);
         return saved.toModel();
     }
+
+    /**
+     * Save multiple processed events to the database at once.
+     *
+     * @param processedEvents Collection of {@link ProcessedEvent} to save.
+     */
+    @Override
+    public void saveAll(Collection<ProcessedEvent> processedEvents) {
+        val entities = processedEvents.stream()
+                .map(ProcessedEventEntity::fromModel)
+                .toList();
+        jpaRepo.saveAll(entities);
+    }
 }
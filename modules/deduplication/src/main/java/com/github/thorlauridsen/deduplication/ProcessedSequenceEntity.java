@@ -0,0 +1,75 @@
+package com.github.thorlauridsen.deduplication;
+
+import com.github.thorlauridsen.model.event.ProcessedSequence;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.util.UUID;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Class representing the last processed event of an aggregate.
+ * This database entity will be saved in the "processed_sequence" table.
+ * The purpose of this entity is to remember which event of an aggregate a consumer expects next,
+ * so events that arrive out of order are still processed in order after a restart.
+ */
+@Entity
+@Table(name = "processed_sequence")
+@Getter
+@NoArgsConstructor
+public class ProcessedSequenceEntity {
+
+    @Id
+    private UUID aggregateId;
+
+    @Column(nullable = false)
+    private long lastSequence;
+
+    /**
+     * Constructor for ProcessedSequenceEntity.
+     *
+     * @param aggregateId  UUID of the aggregate.
+     * @param lastSequence sequence number of the last processed event of the aggregate.
+     */
+    private ProcessedSequenceEntity(
+            UUID aggregateId,
+            long lastSequence
+    ) {
+        this.aggregateId = aggregateId;
+        this.lastSequence = lastSequence;
+    }
+
+    /**
+     * Move the last processed sequence number forward.
+     * A sequence number lower than the current one is ignored.
+     *
+     * @param sequence sequence number of a processed event of the aggregate.
+     */
+    public void advance(long sequence) {
+        lastSequence = Math.max(lastSequence, sequence);
+    }
+
+    /**
+     * Method to convert {@link ProcessedSequenceEntity} to {@link ProcessedSequence} model.
+     *
+     * @return {@link ProcessedSequence}.
+     */
+    public ProcessedSequence toModel() {
+        return new ProcessedSequence(aggregateId, lastSequence);
+    }
+
+    /**
+     * Method to convert {@link ProcessedSequence} model to {@link ProcessedSequenceEntity}.
+     *
+     * @param processedSequence {@link ProcessedSequence} model.
+     * @return {@link ProcessedSequenceEntity}.
+     */
+    public static ProcessedSequenceEntity fromModel(ProcessedSequence processedSequence) {
+        return new ProcessedSequenceEntity(
+                processedSequence.aggregateId(),
+                processedSequence.lastSequence()
+        );
+    }
+}
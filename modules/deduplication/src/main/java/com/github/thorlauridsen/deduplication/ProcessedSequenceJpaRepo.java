@@ -0,0 +1,12 @@
+package com.github.thorlauridsen.deduplication;
+
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Processed sequence repository interface.
+ * This is a JPA repository for the {@link ProcessedSequenceEntity}.
+ * It extends the {@link JpaRepository} interface which allows us to easily define CRUD methods.
+ */
+public interface ProcessedSequenceJpaRepo extends JpaRepository<ProcessedSequenceEntity, UUID> {
+}
@@ -0,0 +1,69 @@
+package com.github.thorlauridsen.deduplication;
+
+import com.github.thorlauridsen.model.event.ProcessedSequence;
+import com.github.thorlauridsen.model.repository.IProcessedSequenceRepo;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Processed sequence repository class.
+ * <p>
+ * This class implements the {@link IProcessedSequenceRepo} interface.
+ * It is responsible for interacting with the processed sequence table in the database.
+ * The table is kept next to the processed event table, and is written in the same transaction
+ * as the processed events, so the two never disagree about which events have been processed.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProcessedSequenceRepo implements IProcessedSequenceRepo {
+
+    private final ProcessedSequenceJpaRepo jpaRepo;
+
+    /**
+     * Find the last processed sequence numbers of the given aggregates with a single query.
+     *
+     * @param aggregateIds Collection of UUIDs of the aggregates.
+     * @return List of {@link ProcessedSequence}.
+     */
+    @Override
+    public List<ProcessedSequence> findAllById(Collection<UUID> aggregateIds) {
+        if (aggregateIds.isEmpty()) {
+            return List.of();
+        }
+        return jpaRepo.findAllById(aggregateIds).stream()
+                .map(ProcessedSequenceEntity::toModel)
+                .toList();
+    }
+
+    /**
+     * Save the last processed sequence numbers of multiple aggregates at once.
+     * The existing rows are loaded with a single query and only moved forward.
+     *
+     * @param processedSequences Collection of {@link ProcessedSequence} to save.
+     */
+    @Override
+    public void saveAll(Collection<ProcessedSequence> processedSequences) {
+        if (processedSequences.isEmpty()) {
+            return;
+        }
+        val aggregateIds = processedSequences.stream()
+                .map(ProcessedSequence::aggregateId)
+                .toList();
+        val entities = new HashMap<UUID, ProcessedSequenceEntity>();
+        jpaRepo.findAllById(aggregateIds).forEach(entity -> entities.put(entity.getAggregateId(), entity));
+        for (val processedSequence : processedSequences) {
+            val entity = entities.get(processedSequence.aggregateId());
+            if (entity == null) {
+                entities.put(processedSequence.aggregateId(), ProcessedSequenceEntity.fromModel(processedSequence));
+            } else {
+                entity.advance(processedSequence.lastSequence());
+            }
+        }
+        jpaRepo.saveAll(entities.values());
+    }
+}
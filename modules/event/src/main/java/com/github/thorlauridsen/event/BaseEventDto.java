@@ -29,4 +29,13 @@ public abstract class BaseEventDto {
         this.time = OffsetDateTime.now();
         this.eventType = eventType;
     }
+
+    /**
+     * Get the UUID of the aggregate the event belongs to, such as the order id.
+     * Consumers process the events of the same aggregate one at a time.
+     * This is deliberately not named as a getter, so it is not serialized by Jackson.
+     *
+     * @return UUID of the aggregate.
+     */
+    public abstract UUID aggregateId();
 }
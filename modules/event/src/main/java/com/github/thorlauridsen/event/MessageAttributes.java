@@ -0,0 +1,34 @@
+package com.github.thorlauridsen.event;
+
+/**
+ * Names of the SNS message attributes set on every published event.
+ * These are shared by the producers that set them and the consumers that read them.
+ */
+public final class MessageAttributes {
+
+    /**
+     * Name of the message attribute holding the type of the event.
+     */
+    public static final String EVENT_TYPE = "eventType";
+
+    /**
+     * Name of the message attribute holding the UUID of the event.
+     */
+    public static final String EVENT_ID = "eventId";
+
+    /**
+     * Name of the message attribute holding the UUID of the aggregate the event belongs to.
+     */
+    public static final String AGGREGATE_ID = "aggregateId";
+
+    /**
+     * Name of the message attribute holding the position of the event among the events of its aggregate.
+     */
+    public static final String SEQUENCE = "sequence";
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private MessageAttributes() {
+    }
+}
@@ -38,6 +38,16 @@ public final class PaymentCompletedEventDto extends BaseEventDto {
         this.amount = amount;
     }
 
+    /**
+     * Get the UUID of the aggregate the event belongs to.
+     *
+     * @return UUID of the order.
+     */
+    @Override
+    public UUID aggregateId() {
+        return orderId;
+    }
+
     /**
      * Method to convert {@link PaymentCompletedEventDto} to {@link PaymentCompletedEvent} model.
      *
@@ -34,6 +34,16 @@ public final class PaymentFailedEventDto extends BaseEventDto {
         this.orderId = orderId;
     }
 
+    /**
+     * Get the UUID of the aggregate the event belongs to.
+     *
+     * @return UUID of the order.
+     */
+    @Override
+    public UUID aggregateId() {
+        return orderId;
+    }
+
     /**
      * Method to convert {@link PaymentFailedEventDto} to {@link PaymentFailedEvent} model.
      *
@@ -0,0 +1,25 @@
+package com.github.thorlauridsen.model.enumeration;
+
+/**
+ * Enum representing how the failure to process a consumed event is handled.
+ */
+public enum FailureType {
+
+    /**
+     * The failure is expected to go away by itself, such as a timeout or an unavailable database.
+     * The event is retried with exponential backoff.
+     */
+    TRANSIENT,
+
+    /**
+     * The event depends on state that has not arrived yet, such as an order that has not been created.
+     * The event is retried with exponential backoff until the state has caught up.
+     */
+    NOT_YET_CONSISTENT,
+
+    /**
+     * The event can never be processed, such as a message that cannot be deserialized.
+     * The event is moved to the consumer dead letter table right away.
+     */
+    POISON,
+}
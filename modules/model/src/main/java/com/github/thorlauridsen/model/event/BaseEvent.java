@@ -54,4 +54,13 @@ public abstract class BaseEvent {
     public EventType getEventType() {
         return eventType;
     }
+
+    /**
+     * Get the UUID of the aggregate the event belongs to.
+     * Events of the same aggregate are published in the order they were created.
+     * This is deliberately not named as a getter, so it is not serialized by Jackson.
+     *
+     * @return UUID of the aggregate.
+     */
+    public abstract UUID aggregateId();
 }
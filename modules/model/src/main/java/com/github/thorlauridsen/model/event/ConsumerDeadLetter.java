@@ -0,0 +1,35 @@
+package com.github.thorlauridsen.model.event;
+
+import com.github.thorlauridsen.model.enumeration.EventType;
+import com.github.thorlauridsen.model.enumeration.FailureType;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Record class representing a consumed event that was moved to the consumer dead letter table
+ * because it could not be processed.
+ *
+ * @param eventId        UUID of the event, or of the message if it could not be deserialized.
+ * @param eventType      type of the event, or null if it could not be deserialized.
+ * @param consumer       name of the consumer that failed to process the event.
+ * @param payload        body of the message the event was received in.
+ * @param aggregateId    UUID of the aggregate the event belongs to, or null if not known.
+ * @param sequence       position of the event among the events of its aggregate, or null if not known.
+ * @param failureType    {@link FailureType} of the last failure.
+ * @param attempts       number of failed attempts to process the event.
+ * @param lastError      reason the last attempt failed.
+ * @param deadLetteredAt time the event was moved to the dead letter table.
+ */
+public record ConsumerDeadLetter(
+        UUID eventId,
+        EventType eventType,
+        String consumer,
+        String payload,
+        UUID aggregateId,
+        Long sequence,
+        FailureType failureType,
+        int attempts,
+        String lastError,
+        OffsetDateTime deadLetteredAt
+) {
+}
@@ -61,4 +61,14 @@ public final class OrderCreatedEvent extends BaseEvent {
     public double getAmount() {
         return amount;
     }
+
+    /**
+     * Get the UUID of the aggregate the event belongs to, which is the order.
+     *
+     * @return UUID of the order.
+     */
+    @Override
+    public UUID aggregateId() {
+        return orderId;
+    }
 }
@@ -0,0 +1,41 @@
+package com.github.thorlauridsen.model.event;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+/**
+ * Record class representing a keyset position in the outbox table.
+ * Outbox events are ordered by creation time and then by event id,
+ * so a page of events can be continued from the last event of the previous page.
+ *
+ * @param createdAt time the last seen event was created in the database.
+ * @param eventId   UUID of the last seen event.
+ */
+public record OutboxCursor(
+        OffsetDateTime createdAt,
+        UUID eventId
+) {
+
+    /**
+     * Cursor positioned before the first event in the outbox table.
+     */
+    public static final OutboxCursor START = new OutboxCursor(
+            Instant.EPOCH.atOffset(ZoneOffset.UTC),
+            new UUID(0L, 0L)
+    );
+
+    /**
+     * Static method to create a cursor positioned right after the given event.
+     *
+     * @param event {@link OutboxEvent} that was last seen.
+     * @return {@link OutboxCursor} for continuing after the event.
+     */
+    public static OutboxCursor after(OutboxEvent event) {
+        return new OutboxCursor(
+                event.createdAt(),
+                event.eventId()
+        );
+    }
+}
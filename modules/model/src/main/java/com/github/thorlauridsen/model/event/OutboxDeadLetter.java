@@ -0,0 +1,28 @@
+package com.github.thorlauridsen.model.event;
+
+import com.github.thorlauridsen.model.enumeration.EventType;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Record class representing an outbox event that was moved to the dead letter table
+ * after it failed to be published too many times.
+ *
+ * @param eventId        UUID of the event.
+ * @param eventType      type of the event.
+ * @param payload        JSON payload of the event.
+ * @param createdAt      time the event was originally created in the outbox table.
+ * @param attempts       number of failed attempts to publish the event.
+ * @param lastError      reason the last attempt failed.
+ * @param deadLetteredAt time the event was moved to the dead letter table.
+ */
+public record OutboxDeadLetter(
+        UUID eventId,
+        EventType eventType,
+        String payload,
+        OffsetDateTime createdAt,
+        int attempts,
+        String lastError,
+        OffsetDateTime deadLetteredAt
+) {
+}
@@ -7,17 +7,40 @@ import java.util.UUID;
 /**
  * Record class representing the fields necessary for an outbox event.
  *
- * @param eventId   UUID of the event.
- * @param eventType type of the event.
- * @param payload   JSON payload of the event.
- * @param createdAt time the event was created in the database.
- * @param processed whether the event has been processed.
+ * @param eventId     UUID of the event.
+ * @param eventType   type of the event.
+ * @param payload     JSON payload of the event.
+ * @param createdAt   time the event was created in the database.
+ * @param processed   whether the event has been processed.
+ * @param aggregateId UUID of the aggregate the event belongs to, or null if unknown.
+ * @param sequence    position of the event among the events of its aggregate, starting at 1, or null if unknown.
  */
 public record OutboxEvent(
         UUID eventId,
         EventType eventType,
         String payload,
         OffsetDateTime createdAt,
-        Boolean processed
+        Boolean processed,
+        UUID aggregateId,
+        Long sequence
 ) {
+
+    /**
+     * Constructor for an outbox event without an aggregate sequence.
+     *
+     * @param eventId   UUID of the event.
+     * @param eventType type of the event.
+     * @param payload   JSON payload of the event.
+     * @param createdAt time the event was created in the database.
+     * @param processed whether the event has been processed.
+     */
+    public OutboxEvent(
+            UUID eventId,
+            EventType eventType,
+            String payload,
+            OffsetDateTime createdAt,
+            Boolean processed
+    ) {
+        this(eventId, eventType, payload, createdAt, processed, null, null);
+    }
 }
@@ -32,6 +32,15 @@ public final class PaymentCompletedEvent extends BaseEvent {
         this.amount = amount;
     }
 
+    /**
+     * Get the UUID of the payment.
+     *
+     * @return UUID of the payment.
+     */
+    public UUID getPaymentId() {
+        return paymentId;
+    }
+
     /**
      * Get the UUID of the order.
      *
@@ -49,4 +58,14 @@ public final class PaymentCompletedEvent extends BaseEvent {
     public double getAmount() {
         return amount;
     }
+
+    /**
+     * Get the UUID of the aggregate the event belongs to, which is the order.
+     *
+     * @return UUID of the order.
+     */
+    @Override
+    public UUID aggregateId() {
+        return orderId;
+    }
 }
@@ -28,6 +28,15 @@ public final class PaymentFailedEvent extends BaseEvent {
         this.orderId = orderId;
     }
 
+    /**
+     * Get the UUID of the payment.
+     *
+     * @return UUID of the payment.
+     */
+    public UUID getPaymentId() {
+        return paymentId;
+    }
+
     /**
      * Get the UUID of the order.
      *
@@ -36,4 +45,14 @@ public final class PaymentFailedEvent extends BaseEvent {
     public UUID getOrderId() {
         return orderId;
     }
+
+    /**
+     * Get the UUID of the aggregate the event belongs to, which is the order.
+     *
+     * @return UUID of the order.
+     */
+    @Override
+    public UUID aggregateId() {
+        return orderId;
+    }
 }
@@ -0,0 +1,15 @@
+package com.github.thorlauridsen.model.event;
+
+import java.util.UUID;
+
+/**
+ * Record class representing the last processed event of an aggregate.
+ *
+ * @param aggregateId  UUID of the aggregate.
+ * @param lastSequence sequence number of the last processed event of the aggregate.
+ */
+public record ProcessedSequence(
+        UUID aggregateId,
+        long lastSequence
+) {
+}
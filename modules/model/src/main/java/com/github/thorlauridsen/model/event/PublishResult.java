@@ -0,0 +1,64 @@
+package com.github.thorlauridsen.model.event;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Record class representing the outcome of publishing a batch of events.
+ * Every event in the batch is either published or failed with a reason.
+ *
+ * @param published Set of UUIDs of the events that were published.
+ * @param failed    Map of UUIDs of the events that failed to the reason they failed.
+ */
+public record PublishResult(
+        Set<UUID> published,
+        Map<UUID, String> failed
+) {
+
+    /**
+     * Static method to create a result without any events.
+     *
+     * @return empty {@link PublishResult}.
+     */
+    public static PublishResult empty() {
+        return new PublishResult(Set.of(), Map.of());
+    }
+
+    /**
+     * Static method to create a result where all the given events failed for the same reason.
+     *
+     * @param eventIds Collection of UUIDs of the events that failed.
+     * @param reason   reason the events failed.
+     * @return {@link PublishResult} with all the given events failed.
+     */
+    public static PublishResult failed(
+            Collection<UUID> eventIds,
+            String reason
+    ) {
+        var failed = new HashMap<UUID, String>();
+        for (var eventId : eventIds) {
+            failed.put(eventId, reason);
+        }
+        return new PublishResult(Set.of(), failed);
+    }
+
+    /**
+     * Merge this result with another result.
+     *
+     * @param other {@link PublishResult} to merge with.
+     * @return {@link PublishResult} containing the events of both results.
+     */
+    public PublishResult merge(PublishResult other) {
+        var published = new HashSet<UUID>(this.published);
+        published.addAll(other.published());
+
+        var failed = new HashMap<UUID, String>(this.failed);
+        failed.putAll(other.failed());
+
+        return new PublishResult(published, failed);
+    }
+}
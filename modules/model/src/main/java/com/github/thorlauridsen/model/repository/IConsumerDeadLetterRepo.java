@@ -0,0 +1,51 @@
+package com.github.thorlauridsen.model.repository;
+
+import com.github.thorlauridsen.model.event.ConsumerDeadLetter;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Consumer dead letter repository interface.
+ * This is an interface containing methods for interacting with the consumer dead letter table.
+ */
+public interface IConsumerDeadLetterRepo {
+
+    /**
+     * Save a dead lettered event.
+     * An event that was already dead lettered is overwritten.
+     *
+     * @param deadLetter {@link ConsumerDeadLetter} to save.
+     */
+    void save(ConsumerDeadLetter deadLetter);
+
+    /**
+     * Find all dead lettered events, most recently dead lettered first.
+     *
+     * @return List of {@link ConsumerDeadLetter}.
+     */
+    List<ConsumerDeadLetter> findAll();
+
+    /**
+     * Find a dead lettered event by id.
+     *
+     * @param eventId UUID of the event.
+     * @return Optional of {@link ConsumerDeadLetter}.
+     */
+    Optional<ConsumerDeadLetter> findById(UUID eventId);
+
+    /**
+     * Delete a dead lettered event after it was redriven.
+     *
+     * @param eventId UUID of the event.
+     */
+    void delete(UUID eventId);
+
+    /**
+     * Record that redriving a dead lettered event failed again.
+     *
+     * @param eventId   UUID of the event.
+     * @param lastError reason the redrive failed.
+     */
+    void recordFailure(UUID eventId, String lastError);
+}
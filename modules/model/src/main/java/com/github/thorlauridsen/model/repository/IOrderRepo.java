@@ -2,6 +2,8 @@ package com.github.thorlauridsen.model.repository;
 
 import com.github.thorlauridsen.model.Order;
 import com.github.thorlauridsen.model.OrderCreate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -36,4 +38,20 @@ public interface IOrderRepo {
      * @return {@link Optional} of {@link Order}.
      */
     Optional<Order> findById(UUID id);
+
+    /**
+     * Find multiple orders by their ids with a single query.
+     *
+     * @param ids Collection of {@link UUID} of the orders to find.
+     * @return List of {@link Order} that were found.
+     */
+    List<Order> findAllById(Collection<UUID> ids);
+
+    /**
+     * Update multiple existing orders at once.
+     *
+     * @param orders Collection of {@link Order} to update.
+     * @return List of updated {@link Order}.
+     */
+    List<Order> updateAll(Collection<Order> orders);
 }
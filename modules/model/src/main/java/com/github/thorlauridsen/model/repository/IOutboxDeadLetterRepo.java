@@ -0,0 +1,35 @@
+package com.github.thorlauridsen.model.repository;
+
+import com.github.thorlauridsen.model.event.OutboxDeadLetter;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outbox dead letter repository interface.
+ * This is an interface containing methods for interacting with the outbox dead letter table.
+ */
+public interface IOutboxDeadLetterRepo {
+
+    /**
+     * Find all dead lettered outbox events.
+     *
+     * @return List of {@link OutboxDeadLetter}.
+     */
+    List<OutboxDeadLetter> findAll();
+
+    /**
+     * Move a dead lettered event back to the outbox table so it is published again.
+     * The retry bookkeeping of the event is reset.
+     *
+     * @param eventId UUID of the event to redrive.
+     * @return true if the event was redriven, false if no dead lettered event exists with the given id.
+     */
+    boolean redrive(UUID eventId);
+
+    /**
+     * Move all dead lettered events back to the outbox table so they are published again.
+     *
+     * @return number of events redriven.
+     */
+    int redriveAll();
+}
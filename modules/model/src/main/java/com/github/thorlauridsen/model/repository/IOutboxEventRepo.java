@@ -1,8 +1,11 @@
 package com.github.thorlauridsen.model.repository;
 
 import com.github.thorlauridsen.model.event.BaseEvent;
+import com.github.thorlauridsen.model.event.OutboxCursor;
 import com.github.thorlauridsen.model.event.OutboxEvent;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -21,18 +24,53 @@ public interface IOutboxEventRepo {
     void save(BaseEvent event);
 
     /**
-     * Find all unprocessed outbox events.
-     * This will return a list of all outbox events where the processed flag is false.
+     * Claim the next batch of unprocessed outbox events after the given cursor.
+     * The claimed events are leased for a limited time so that concurrent pollers skip them.
+     * The claim is committed before this method returns, and an expired lease
+     * makes the events available to be claimed again.
      *
-     * @return List of {@link OutboxEvent}.
+     * @param after     {@link OutboxCursor} to continue after, or {@link OutboxCursor#START}.
+     * @param batchSize maximum number of events to claim.
+     * @return List of {@link OutboxEvent} ordered by creation time and event id.
      */
-    List<OutboxEvent> findAllByProcessedFalse();
+    List<OutboxEvent> claimBatch(OutboxCursor after, int batchSize);
 
     /**
-     * Mark an event as processed.
-     * This will update the processed flag for the event with the given id to true.
+     * Claim the next batch of unprocessed outbox events in the given shards after the given cursor.
+     * This is used when each replica only polls the shards it holds a lease for.
      *
-     * @param eventId {@link UUID} of the event to mark as processed.
+     * @param after     {@link OutboxCursor} to continue after, or {@link OutboxCursor#START}.
+     * @param batchSize maximum number of events to claim.
+     * @param shards    Collection of shards to claim events from.
+     * @return List of {@link OutboxEvent} ordered by creation time and event id.
      */
-    void markAsProcessed(UUID eventId);
+    List<OutboxEvent> claimBatch(OutboxCursor after, int batchSize, Collection<Integer> shards);
+
+    /**
+     * Claim a single unprocessed outbox event by id.
+     * The event is only claimed if it is not processed and not leased by another poller,
+     * in which case it is leased the same way as {@link #claimBatch(OutboxCursor, int)}.
+     *
+     * @param eventId {@link UUID} of the event to claim.
+     * @return true if the event was claimed, false otherwise.
+     */
+    boolean claim(UUID eventId);
+
+    /**
+     * Mark events as processed.
+     * Depending on the configured retention mode, the events are flagged as processed,
+     * deleted, or moved to the outbox archive, so a whole published batch is acknowledged at once.
+     *
+     * @param eventIds Collection of {@link UUID} of the events to mark as processed.
+     */
+    void markAsProcessed(Collection<UUID> eventIds);
+
+    /**
+     * Record failed attempts to publish events.
+     * Each event is scheduled for another attempt with exponential backoff,
+     * or moved to the dead letter table once it has failed too many times.
+     *
+     * @param failures Map of UUIDs of the events that failed to the reason they failed.
+     */
+    void recordFailures(Map<UUID, String> failures);
 }
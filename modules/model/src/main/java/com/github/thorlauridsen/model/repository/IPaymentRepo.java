@@ -2,6 +2,8 @@ package com.github.thorlauridsen.model.repository;
 
 import com.github.thorlauridsen.model.Payment;
 import com.github.thorlauridsen.model.PaymentCreate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -28,4 +30,20 @@ public interface IPaymentRepo {
      * @return {@link Optional} of {@link Payment}.
      */
     Optional<Payment> findByOrderId(UUID orderId);
+
+    /**
+     * Save multiple payments in the database at once.
+     *
+     * @param payments List of {@link PaymentCreate} to save.
+     * @return List of {@link Payment} in the same order.
+     */
+    List<Payment> saveAll(List<PaymentCreate> payments);
+
+    /**
+     * Find the payments related to multiple orders with a single query.
+     *
+     * @param orderIds Collection of UUIDs of the orders.
+     * @return List of {@link Payment} that were found.
+     */
+    List<Payment> findAllByOrderIds(Collection<UUID> orderIds);
 }
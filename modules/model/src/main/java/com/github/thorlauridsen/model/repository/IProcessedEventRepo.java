@@ -1,6 +1,8 @@
 package com.github.thorlauridsen.model.repository;
 
 import com.github.thorlauridsen.model.event.ProcessedEvent;
+import java.util.Collection;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -19,6 +21,14 @@ public interface IProcessedEventRepo {
      */
     boolean existsById(UUID eventId);
 
+    /**
+     * Find which of the given events exist with a single query.
+     *
+     * @param eventIds Collection of UUIDs of the events.
+     * @return Set of UUIDs of the events that exist.
+     */
+    Set<UUID> findExistingIds(Collection<UUID> eventIds);
+
     /**
      * Save a processed event to the database.
      *
@@ -26,4 +36,11 @@ public interface IProcessedEventRepo {
      * @return {@link ProcessedEvent} model class.
      */
     ProcessedEvent save(ProcessedEvent processedEvent);
+
+    /**
+     * Save multiple processed events to the database at once.
+     *
+     * @param processedEvents Collection of {@link ProcessedEvent} to save.
+     */
+    void saveAll(Collection<ProcessedEvent> processedEvents);
 }
@@ -0,0 +1,32 @@
+package com.github.thorlauridsen.model.repository;
+
+import com.github.thorlauridsen.model.event.ProcessedSequence;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Processed sequence repository interface.
+ * This is an interface containing methods for interacting with the processed sequence table.
+ * A repository class will implement this interface to provide the actual implementation.
+ */
+public interface IProcessedSequenceRepo {
+
+    /**
+     * Find the last processed sequence numbers of the given aggregates with a single query.
+     * Aggregates without any processed event are left out.
+     *
+     * @param aggregateIds Collection of UUIDs of the aggregates.
+     * @return List of {@link ProcessedSequence}.
+     */
+    List<ProcessedSequence> findAllById(Collection<UUID> aggregateIds);
+
+    /**
+     * Save the last processed sequence numbers of multiple aggregates at once.
+     * A sequence number lower than the one already saved for an aggregate is ignored,
+     * so a redelivered event never moves its aggregate backwards.
+     *
+     * @param processedSequences Collection of {@link ProcessedSequence} to save.
+     */
+    void saveAll(Collection<ProcessedSequence> processedSequences);
+}
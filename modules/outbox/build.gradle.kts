@@ -5,12 +5,20 @@ plugins {
 }
 
 dependencies {
-	// The outbox subproject needs access to the model subproject
+	// The outbox subproject needs access to the exception and model subprojects
+	implementation(projects.exception)
 	implementation(projects.model)
 
 	// Spring Boot dependencies
 	implementation(local.springboot.starter.jackson)
 	implementation(local.springboot.starter.jpa)
+	implementation(local.springboot.starter.webmvc)
+
+	// Springdoc OpenAPI for providing Swagger documentation of the dead letter endpoints
+	implementation(local.springdoc.openapi.starter.webmvc)
+
+	// PostgreSQL driver API for LISTEN/NOTIFY, the driver itself is provided by the apps at runtime
+	compileOnly(local.postgres)
 }
 
 // Disabling bootJar and bootRun is necessary for a subproject/module
@@ -1,13 +1,21 @@
 package com.github.thorlauridsen.outbox;
 
+import com.github.thorlauridsen.model.event.OutboxCursor;
 import com.github.thorlauridsen.model.event.OutboxEvent;
+import com.github.thorlauridsen.model.event.PublishResult;
 import com.github.thorlauridsen.model.repository.IOutboxEventRepo;
-import jakarta.transaction.Transactional;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
-import org.springframework.scheduling.annotation.Scheduled;
-import tools.jackson.databind.json.JsonMapper;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
 
 /**
  * Abstract class representing an outbox poller.
@@ -21,38 +29,295 @@ import tools.jackson.databind.json.JsonMapper;
  * "product_order" table and saved a related event to the "outbox" table.
  * Then we can use a scheduled poller to fetch events to be processed from the "outbox" table.
  * Essentially, a database transaction is completed before events are published.
+ * <p>
+ * Each poll claims a bounded batch of events with FOR UPDATE SKIP LOCKED.
+ * This allows multiple replicas to poll the same outbox table concurrently,
+ * where each replica publishes a disjoint set of events.
+ * <p>
+ * The poller pages through the backlog with a keyset on (created_at, event_id).
+ * Events that failed to publish are therefore not claimed again on every poll
+ * ahead of newer events, and the poller only wraps around to the start of the
+ * table once it has reached the end of the backlog.
+ * <p>
+ * The outbox lifecycle is split into three phases so that no database transaction
+ * is open during the network round-trips to SNS:
+ * <ol>
+ *     <li>Claim: a short transaction locks and leases a batch of events.</li>
+ *     <li>Publish: the events are published with SNS PublishBatch without any transaction.</li>
+ *     <li>Acknowledge: a second short transaction marks all published events as processed at once.</li>
+ * </ol>
+ * SNS reports the outcome of every entry in a PublishBatch request individually,
+ * so only the events that SNS accepted are acknowledged.
+ * Events that fail to publish are retried with exponential backoff,
+ * and are moved to a dead letter table after too many failed attempts.
+ * If the poller crashes before recording the outcome, the events are retried once their lease expires.
+ * <p>
+ * Each poller runs on its own dedicated scheduler thread rather than the shared Spring scheduler,
+ * and hands the claimed batch to the {@link OutboxDispatcher} which publishes it in parallel.
+ * The polling interval adapts to the backlog: the poller polls again immediately while batches
+ * come back full, and backs off exponentially up to a configurable ceiling while the table is empty.
+ * The poller can also be woken up with {@link #wakeUp()}, for example by a database notification.
+ * <p>
+ * Events are also dispatched right after the transaction that saved them commits.
+ * The scheduled poll then only sweeps events this fast path missed,
+ * for example because publishing failed or the application stopped before dispatching.
+ * <p>
+ * When sharding is enabled, the poller only claims events in the shards this replica
+ * holds a lease for with the {@link OutboxShardLeaseManager}, so replicas scan disjoint parts of the backlog.
  */
 @RequiredArgsConstructor
 @Slf4j
-public abstract class BaseOutboxPoller {
+public abstract class BaseOutboxPoller implements SmartLifecycle {
 
-    protected final JsonMapper jsonMapper;
     protected final IOutboxEventRepo outboxEventRepo;
+    protected final OutboxProperties outboxProperties;
+    protected final OutboxDispatcher outboxDispatcher;
+    protected final OutboxShardLeaseManager shardLeaseManager;
+
+    private OutboxCursor cursor = OutboxCursor.START;
+    private final Object scheduleLock = new Object();
+    private volatile ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> nextPoll;
+    private volatile boolean wakeUpRequested;
+    private Duration idleDelay;
 
     /**
-     * Polls the outbox table every 5 seconds and processes unprocessed events.
-     * Find all events that have not been processed yet and process them.
+     * Start polling the outbox table on a dedicated scheduler thread.
      */
-    @Scheduled(fixedDelay = 5000)
-    @Transactional
-    public void pollOutboxTable() {
-        val events = outboxEventRepo.findAllByProcessedFalse();
+    @Override
+    public void start() {
+        val threadFactory = Thread.ofPlatform()
+                .name(getClass().getSimpleName() + "-scheduler")
+                .daemon(true)
+                .factory();
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        schedule(Duration.ZERO);
+    }
 
-        if (events.isEmpty()) {
+    /**
+     * Stop polling the outbox table.
+     * A poll that is already running is allowed to complete.
+     */
+    @Override
+    public void stop() {
+        val current = scheduler;
+        scheduler = null;
+        if (current == null) {
             return;
         }
-        log.info("Found {} unprocessed events. Processing...", events.size());
+        current.shutdown();
+        try {
+            if (!current.awaitTermination(outboxProperties.leaseDuration().toMillis(), TimeUnit.MILLISECONDS)) {
+                current.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            current.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Check whether the poller starts polling when the application starts.
+     * If polling is disabled, the outbox table is only polled by calling {@link #pollOutboxTable()} explicitly.
+     *
+     * @return true if polling is enabled in the {@link OutboxProperties}.
+     */
+    @Override
+    public boolean isAutoStartup() {
+        return outboxProperties.polling().enabled();
+    }
+
+    /**
+     * Check whether the poller is running.
+     *
+     * @return true if the scheduler has been started and not stopped.
+     */
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    /**
+     * Run a single scheduled poll and schedule the next one.
+     * Exceptions are logged rather than thrown, and the next poll is then scheduled after the maximum interval.
+     */
+    private void poll() {
+        // Any wake-up requested from here on is not guaranteed to be covered by this poll.
+        wakeUpRequested = false;
+        var delay = outboxProperties.polling().maxInterval();
+        try {
+            delay = nextDelay(pollOutboxTable());
+        } catch (Exception e) {
+            log.error("Failed to poll outbox table", e);
+        }
+        schedule(wakeUpRequested ? Duration.ZERO : delay);
+    }
+
+    /**
+     * Wake up the poller so it polls the outbox table immediately instead of waiting for the next tick.
+     * Wake-ups are coalesced: a burst of wake-ups while a poll is pending or running results in one extra poll.
+     */
+    public void wakeUp() {
+        wakeUpRequested = true;
+        synchronized (scheduleLock) {
+            if (nextPoll != null && nextPoll.getDelay(TimeUnit.MILLISECONDS) > 0 && nextPoll.cancel(false)) {
+                schedule(Duration.ZERO);
+            }
+        }
+    }
 
-        for (val event : events) {
-            process(event);
+    /**
+     * Schedule the next poll after the given delay, unless the poller has been stopped.
+     *
+     * @param delay {@link Duration} to wait before the next poll.
+     */
+    private void schedule(Duration delay) {
+        val current = scheduler;
+        if (current == null) {
+            return;
+        }
+        try {
+            synchronized (scheduleLock) {
+                nextPoll = current.schedule(this::poll, delay.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            log.debug("Outbox poller stopped, not scheduling another poll");
         }
     }
 
     /**
-     * Abstract method for processing an unprocessed event.
-     * This method must be implemented for any class that extends BaseOutboxPoller.
+     * Calculate the delay before the next poll based on how many events the last poll claimed.
+     * <ul>
+     *     <li>A full batch means there is more backlog, so the next poll runs immediately.</li>
+     *     <li>A partial batch means the backlog was drained, so the next poll runs after the minimum interval.</li>
+     *     <li>An empty batch doubles the delay on every poll up to the maximum interval.</li>
+     * </ul>
+     *
+     * @param claimed number of events claimed by the last poll.
+     * @return {@link Duration} to wait before the next poll.
+     */
+    private Duration nextDelay(int claimed) {
+        val polling = outboxProperties.polling();
+        if (claimed >= outboxProperties.batchSize()) {
+            idleDelay = null;
+            return Duration.ZERO;
+        }
+        if (claimed > 0) {
+            idleDelay = null;
+            return polling.minInterval();
+        }
+        idleDelay = idleDelay == null
+                ? polling.minInterval()
+                : idleDelay.multipliedBy(2);
+        if (idleDelay.compareTo(polling.maxInterval()) > 0) {
+            idleDelay = polling.maxInterval();
+        }
+        return idleDelay;
+    }
+
+    /**
+     * Polls the outbox table and processes unprocessed events.
+     * Claim the next batch of events that have not been processed yet and dispatch them.
+     * Events claimed by a poller on another replica are skipped.
+     * When sharding is enabled, only events in the shards owned by this replica are claimed.
+     *
+     * @return number of events claimed by this poll.
+     */
+    public synchronized int pollOutboxTable() {
+        val batchSize = outboxProperties.batchSize();
+        final List<OutboxEvent> events;
+        if (shardLeaseManager.isEnabled()) {
+            val shards = shardLeaseManager.ownedShards();
+            events = shards.isEmpty() ? List.of() : outboxEventRepo.claimBatch(cursor, batchSize, shards);
+        } else {
+            events = outboxEventRepo.claimBatch(cursor, batchSize);
+        }
+
+        // A short page means the end of the backlog was reached,
+        // so the next poll starts over from the beginning of the table.
+        cursor = events.size() < batchSize ? OutboxCursor.START : OutboxCursor.after(events.getLast());
+
+        if (events.isEmpty()) {
+            return 0;
+        }
+        log.info("Claimed {} unprocessed events. Processing...", events.size());
+
+        val result = outboxDispatcher.dispatch(events, this::laneOf, this::process);
+        if (!result.failed().isEmpty()) {
+            log.warn("Failed to publish {} of {} events: {}", result.failed().size(), events.size(), result.failed());
+        }
+        outboxEventRepo.markAsProcessed(result.published());
+        outboxEventRepo.recordFailures(result.failed());
+        return events.size();
+    }
+
+    /**
+     * Dispatch an event immediately after it has been committed to the outbox table.
+     * The event is claimed by id first, so it is never published by both this fast path
+     * and the scheduled poller. The dispatch runs asynchronously so the committing
+     * thread is not delayed. If publishing fails, the failure is recorded
+     * and the scheduled poller retries the event once its backoff has expired.
+     * When sharding is enabled, events in shards owned by another replica are left to that replica.
+     *
+     * @param saved {@link OutboxEventSaved} application event.
+     */
+    @EventListener
+    public void onOutboxEventSaved(OutboxEventSaved saved) {
+        if (!isRunning()) {
+            return;
+        }
+        if (shardLeaseManager.isEnabled() && !shardLeaseManager.ownedShards().contains(saved.shard())) {
+            return;
+        }
+        val event = saved.event();
+        outboxDispatcher.submit(() -> {
+            if (!outboxEventRepo.claim(event.eventId())) {
+                return;
+            }
+            val result = outboxDispatcher.dispatch(List.of(event), this::laneOf, this::process);
+            if (!result.failed().isEmpty()) {
+                log.warn("Failed to publish event after commit: {}", result.failed());
+            }
+            outboxEventRepo.markAsProcessed(result.published());
+            outboxEventRepo.recordFailures(result.failed());
+        });
+    }
+
+    /**
+     * Process a single unprocessed event.
+     * The event is published as a batch of one.
      *
      * @param event {@link OutboxEvent} event to be processed.
+     * @return true if the event was published, false otherwise.
+     */
+    public boolean process(OutboxEvent event) {
+        return process(List.of(event)).published().contains(event.eventId());
+    }
+
+    /**
+     * Get the lane of an event in the {@link OutboxDispatcher}.
+     * Events of the same lane are published in chunks one after another, in the order they were claimed.
+     * By default, every event type has a lane of its own, as every event type is published to its own topic.
+     * Pollers that publish several event types to the same topic can override this to put them in one lane.
+     *
+     * @param event {@link OutboxEvent} to get the lane of.
+     * @return key of the lane.
+     */
+    protected String laneOf(OutboxEvent event) {
+        return event.eventType().name();
+    }
+
+    /**
+     * Abstract method for processing a batch of unprocessed events.
+     * This method must be implemented for any class that extends BaseOutboxPoller.
+     * The events should not be marked as processed by the implementation,
+     * as the poller acknowledges all published events of a batch at once.
+     * This is called concurrently by the {@link OutboxDispatcher} with one chunk of events per call,
+     * where every event in a chunk has the same lane given by {@link #laneOf(OutboxEvent)}.
+     * Every event must be reported in the result as either published or failed.
+     *
+     * @param events List of {@link OutboxEvent} to be processed.
+     * @return {@link PublishResult} with the events that were published and the events that failed.
      */
-    protected abstract void process(OutboxEvent event);
+    protected abstract PublishResult process(List<OutboxEvent> events);
 }
@@ -0,0 +1,89 @@
+package com.github.thorlauridsen.outbox;
+
+import com.github.thorlauridsen.exception.ErrorDto;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import static com.github.thorlauridsen.outbox.IOutboxDeadLetterController.OUTBOX_DEAD_LETTER_BASE_ENDPOINT;
+
+/**
+ * Outbox dead letter controller interface.
+ * This interface defines the endpoints for inspecting and redriving dead lettered outbox events.
+ * It also defines the operations which will be used in the OpenAPI documentation.
+ * The purpose with this interface is to separate the controller definition from the implementation.
+ */
+@Tag(name = "Outbox Dead Letter Controller", description = "API for managing dead lettered outbox events")
+@RequestMapping(OUTBOX_DEAD_LETTER_BASE_ENDPOINT)
+public interface IOutboxDeadLetterController {
+
+    String OUTBOX_DEAD_LETTER_BASE_ENDPOINT = "/outbox/dead-letters";
+
+    /**
+     * Get all dead lettered outbox events.
+     *
+     * @return {@link ResponseEntity} with a list of {@link OutboxDeadLetterDto}.
+     */
+    @GetMapping
+    @Operation(
+            summary = "Retrieve all dead lettered outbox events",
+            description = "Retrieve all dead lettered outbox events, most recently dead lettered first"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Successfully retrieved dead lettered outbox events"
+    )
+    ResponseEntity<List<OutboxDeadLetterDto>> getAll();
+
+    /**
+     * Redrive a dead lettered outbox event given an id.
+     *
+     * @param eventId UUID of the event to redrive.
+     * @return {@link ResponseEntity} without a body.
+     * @throws OutboxDeadLetterNotFoundException if the dead lettered event is not found.
+     */
+    @PostMapping("/{eventId}/redrive")
+    @Operation(
+            summary = "Redrive a dead lettered outbox event given an id",
+            description = "Move a dead lettered outbox event back to the outbox table so it is published again"
+    )
+    @ApiResponse(
+            responseCode = "204",
+            description = "Dead lettered outbox event successfully redriven"
+    )
+    @ApiResponse(
+            responseCode = "404",
+            description = "Dead lettered outbox event not found with given id",
+            content = @Content(schema = @Schema(implementation = ErrorDto.class))
+    )
+    ResponseEntity<Void> redrive(
+            @Parameter(description = "UUID of the event to redrive", required = true)
+            @PathVariable UUID eventId
+    ) throws OutboxDeadLetterNotFoundException;
+
+    /**
+     * Redrive all dead lettered outbox events.
+     *
+     * @return {@link ResponseEntity} with the number of events redriven.
+     */
+    @PostMapping("/redrive")
+    @Operation(
+            summary = "Redrive all dead lettered outbox events",
+            description = "Move all dead lettered outbox events back to the outbox table so they are published again"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Number of dead lettered outbox events redriven"
+    )
+    ResponseEntity<Integer> redriveAll();
+}
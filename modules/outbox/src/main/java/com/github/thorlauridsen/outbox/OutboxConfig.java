@@ -0,0 +1,13 @@
+package com.github.thorlauridsen.outbox;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the outbox subproject.
+ * This registers the {@link OutboxProperties} so they can be injected where needed.
+ */
+@Configuration
+@EnableConfigurationProperties(OutboxProperties.class)
+public class OutboxConfig {
+}
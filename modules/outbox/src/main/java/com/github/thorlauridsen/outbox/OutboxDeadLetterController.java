@@ -0,0 +1,58 @@
+package com.github.thorlauridsen.outbox;
+
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Outbox dead letter controller class.
+ * This class implements the {@link IOutboxDeadLetterController} interface and
+ * overrides the methods defined in the interface with implementations.
+ * The controller is responsible for converting models to data transfer objects.
+ */
+@RestController
+@RequiredArgsConstructor
+public class OutboxDeadLetterController implements IOutboxDeadLetterController {
+
+    private final OutboxDeadLetterService deadLetterService;
+
+    /**
+     * Get all dead lettered outbox events.
+     *
+     * @return {@link ResponseEntity} with a list of {@link OutboxDeadLetterDto}.
+     */
+    @Override
+    public ResponseEntity<List<OutboxDeadLetterDto>> getAll() {
+        val deadLetters = deadLetterService.findAll()
+                .stream()
+                .map(OutboxDeadLetterDto::fromModel)
+                .toList();
+        return ResponseEntity.ok(deadLetters);
+    }
+
+    /**
+     * Redrive a dead lettered outbox event given an id.
+     *
+     * @param eventId UUID of the event to redrive.
+     * @return {@link ResponseEntity} without a body.
+     * @throws OutboxDeadLetterNotFoundException if the dead lettered event is not found.
+     */
+    @Override
+    public ResponseEntity<Void> redrive(UUID eventId) throws OutboxDeadLetterNotFoundException {
+        deadLetterService.redrive(eventId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Redrive all dead lettered outbox events.
+     *
+     * @return {@link ResponseEntity} with the number of events redriven.
+     */
+    @Override
+    public ResponseEntity<Integer> redriveAll() {
+        return ResponseEntity.ok(deadLetterService.redriveAll());
+    }
+}
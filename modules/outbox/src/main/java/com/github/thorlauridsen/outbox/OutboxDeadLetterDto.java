@@ -0,0 +1,63 @@
+package com.github.thorlauridsen.outbox;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.github.thorlauridsen.model.enumeration.EventType;
+import com.github.thorlauridsen.model.event.OutboxDeadLetter;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Data transfer object for a dead lettered outbox event.
+ *
+ * @param eventId        UUID of the event.
+ * @param eventType      type of the event.
+ * @param payload        JSON payload of the event.
+ * @param createdAt      time the event was originally created in the outbox table.
+ * @param attempts       number of failed attempts to publish the event.
+ * @param lastError      reason the last attempt failed.
+ * @param deadLetteredAt time the event was moved to the dead letter table.
+ */
+@Schema(
+        description = "Data transfer object for a dead lettered outbox event",
+        example = """
+                {
+                    "eventId": "3fa85f64-5717-4562-b3fc-2c963f66afa6",
+                    "eventType": "ORDER_CREATED",
+                    "payload": "{}",
+                    "createdAt": "2025-03-13T18:39:00Z",
+                    "attempts": 10,
+                    "lastError": "InternalError: Internal error",
+                    "deadLetteredAt": "2025-03-13T18:49:00Z"
+                }
+                """
+)
+public record OutboxDeadLetterDto(
+        @JsonProperty("eventId") UUID eventId,
+        @JsonProperty("eventType") EventType eventType,
+        @JsonProperty("payload") String payload,
+        @JsonProperty("createdAt") @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ssX") OffsetDateTime createdAt,
+        @JsonProperty("attempts") int attempts,
+        @JsonProperty("lastError") String lastError,
+        @JsonProperty("deadLetteredAt") @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ssX") OffsetDateTime deadLetteredAt
+) {
+
+    /**
+     * Static method to convert an {@link OutboxDeadLetter} model to an {@link OutboxDeadLetterDto}.
+     *
+     * @param deadLetter {@link OutboxDeadLetter} to convert.
+     * @return {@link OutboxDeadLetterDto}.
+     */
+    public static OutboxDeadLetterDto fromModel(OutboxDeadLetter deadLetter) {
+        return new OutboxDeadLetterDto(
+                deadLetter.eventId(),
+                deadLetter.eventType(),
+                deadLetter.payload(),
+                deadLetter.createdAt(),
+                deadLetter.attempts(),
+                deadLetter.lastError(),
+                deadLetter.deadLetteredAt()
+        );
+    }
+}
@@ -0,0 +1,144 @@
+package com.github.thorlauridsen.outbox;
+
+import com.github.thorlauridsen.model.enumeration.EventType;
+import com.github.thorlauridsen.model.event.OutboxDeadLetter;
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.val;
+
+/**
+ * Class representing the outbox dead letter entity for the "outbox_dead_letter" table.
+ * Events are moved here from the "outbox" table after they failed to be published too many times,
+ * so a poison event does not keep being retried forever.
+ * A dead lettered event can be moved back to the "outbox" table to be published again.
+ */
+@Entity
+@Getter
+@Table(name = "outbox_dead_letter")
+@NoArgsConstructor
+public class OutboxDeadLetterEntity {
+
+    /**
+     * Unique identifier for the event.
+     */
+    @Id
+    @Column(nullable = false)
+    private UUID eventId;
+
+    /**
+     * Event type such as ORDER_CREATED or PAYMENT_COMPLETED.
+     */
+    @Column(nullable = false)
+    private EventType eventType;
+
+    /**
+     * Event payload as JSON string.
+     * This is stored as UTF-8 encoded bytes in a BYTEA column.
+     */
+    @Convert(converter = Utf8PayloadConverter.class)
+    @Column(nullable = false)
+    private String payload;
+
+    /**
+     * Time the event was originally created in the outbox table.
+     */
+    @Column(nullable = false)
+    private OffsetDateTime createdAt;
+
+    /**
+     * Number of failed attempts to publish the event.
+     */
+    @Column(nullable = false)
+    private Integer attempts;
+
+    /**
+     * Reason the last attempt to publish the event failed.
+     */
+    @Column(length = OutboxEventEntity.MAX_ERROR_LENGTH)
+    private String lastError;
+
+    /**
+     * Time the event was moved to the dead letter table.
+     */
+    @Column(nullable = false)
+    private OffsetDateTime deadLetteredAt = OffsetDateTime.now();
+
+    /**
+     * Logical shard of the event, kept so the event returns to the same shard when redriven.
+     */
+    @Column(nullable = false)
+    private Integer shard = 0;
+
+    /**
+     * Unique identifier of the aggregate the event belongs to.
+     */
+    private UUID aggregateId;
+
+    /**
+     * Position of the event among the events of its aggregate,
+     * kept so the event is still delivered in order when redriven.
+     */
+    private Long sequence;
+
+    /**
+     * Static method to create a dead letter entity from an outbox entity.
+     *
+     * @param outboxEvent {@link OutboxEventEntity} that failed too many times.
+     * @return {@link OutboxDeadLetterEntity} entity.
+     */
+    public static OutboxDeadLetterEntity fromOutboxEvent(OutboxEventEntity outboxEvent) {
+        val entity = new OutboxDeadLetterEntity();
+        entity.eventId = outboxEvent.getEventId();
+        entity.eventType = outboxEvent.getEventType();
+        entity.payload = outboxEvent.getPayload();
+        entity.createdAt = outboxEvent.getCreatedAt();
+        entity.attempts = outboxEvent.getAttempts();
+        entity.lastError = outboxEvent.getLastError();
+        entity.shard = outboxEvent.getShard();
+        entity.aggregateId = outboxEvent.getAggregateId();
+        entity.sequence = outboxEvent.getSequence();
+        return entity;
+    }
+
+    /**
+     * Convert the entity to an outbox entity with reset retry bookkeeping.
+     *
+     * @return {@link OutboxEventEntity} entity.
+     */
+    public OutboxEventEntity toOutboxEvent() {
+        return new OutboxEventEntity(
+                eventId,
+                eventType,
+                payload,
+                createdAt,
+                false,
+                shard,
+                aggregateId,
+                sequence
+        );
+    }
+
+    /**
+     * Convert the entity to a model.
+     *
+     * @return {@link OutboxDeadLetter} model.
+     */
+    public OutboxDeadLetter toModel() {
+        return new OutboxDeadLetter(
+                eventId,
+                eventType,
+                payload,
+                createdAt,
+                attempts,
+                lastError,
+                deadLetteredAt
+        );
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.thorlauridsen.outbox;
+
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Outbox dead letter repository interface.
+ * This is a JPA repository for the {@link OutboxDeadLetterEntity}.
+ * It extends the {@link JpaRepository} interface which allows us to easily define CRUD methods.
+ */
+@Repository
+public interface OutboxDeadLetterJpaRepo extends JpaRepository<OutboxDeadLetterEntity, UUID> {
+
+    /**
+     * Find all dead lettered events, most recently dead lettered first.
+     *
+     * @return List of {@link OutboxDeadLetterEntity}.
+     */
+    List<OutboxDeadLetterEntity> findAllByOrderByDeadLetteredAtDesc();
+}
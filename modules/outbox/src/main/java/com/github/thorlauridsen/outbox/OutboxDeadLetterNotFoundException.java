@@ -0,0 +1,21 @@
+package com.github.thorlauridsen.outbox;
+
+import com.github.thorlauridsen.exception.DomainException;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Exception thrown when a dead lettered outbox event is not found.
+ * Extends {@link DomainException}.
+ */
+public class OutboxDeadLetterNotFoundException extends DomainException {
+
+    /**
+     * Constructor for an outbox dead letter not found exception.
+     * Sets the http status to {@link HttpStatus#NOT_FOUND}.
+     *
+     * @param message The message of the exception.
+     */
+    public OutboxDeadLetterNotFoundException(String message) {
+        super(message, HttpStatus.NOT_FOUND);
+    }
+}
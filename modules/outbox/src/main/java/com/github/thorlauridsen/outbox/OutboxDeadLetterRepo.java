@@ -0,0 +1,87 @@
+package com.github.thorlauridsen.outbox;
+
+import com.github.thorlauridsen.model.event.OutboxDeadLetter;
+import com.github.thorlauridsen.model.repository.IOutboxDeadLetterRepo;
+import jakarta.transaction.Transactional;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Outbox dead letter repository class.
+ * <p>
+ * This class implements the {@link IOutboxDeadLetterRepo} interface.
+ * It is responsible for interacting with the outbox dead letter table in the database,
+ * and for moving dead lettered events back to the outbox table.
+ * <p>
+ * It is annotated with {@link Repository} to allow Spring to
+ * automatically detect it as a bean and inject it where needed.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxDeadLetterRepo implements IOutboxDeadLetterRepo {
+
+    private final OutboxDeadLetterJpaRepo deadLetterJpaRepo;
+    private final OutboxEventJpaRepo outboxEventJpaRepo;
+
+    /**
+     * Find all dead lettered outbox events, most recently dead lettered first.
+     *
+     * @return List of {@link OutboxDeadLetter}.
+     */
+    @Override
+    public List<OutboxDeadLetter> findAll() {
+        return deadLetterJpaRepo.findAllByOrderByDeadLetteredAtDesc()
+                .stream()
+                .map(OutboxDeadLetterEntity::toModel)
+                .toList();
+    }
+
+    /**
+     * Move a dead lettered event back to the outbox table so it is published again.
+     * The insert and delete happen in the same transaction, so the event is never in both tables.
+     *
+     * @param eventId UUID of the event to redrive.
+     * @return true if the event was redriven, false if no dead lettered event exists with the given id.
+     */
+    @Override
+    @Transactional
+    public boolean redrive(UUID eventId) {
+        val deadLetter = deadLetterJpaRepo.findById(eventId);
+        if (deadLetter.isEmpty()) {
+            return false;
+        }
+        redrive(deadLetter.get());
+        return true;
+    }
+
+    /**
+     * Move all dead lettered events back to the outbox table so they are published again.
+     *
+     * @return number of events redriven.
+     */
+    @Override
+    @Transactional
+    public int redriveAll() {
+        val deadLetters = deadLetterJpaRepo.findAll();
+        for (val deadLetter : deadLetters) {
+            redrive(deadLetter);
+        }
+        return deadLetters.size();
+    }
+
+    /**
+     * Move a dead lettered event back to the outbox table with reset retry bookkeeping.
+     *
+     * @param deadLetter {@link OutboxDeadLetterEntity} to redrive.
+     */
+    private void redrive(OutboxDeadLetterEntity deadLetter) {
+        outboxEventJpaRepo.save(deadLetter.toOutboxEvent());
+        deadLetterJpaRepo.delete(deadLetter);
+        log.info("Redrove dead lettered outbox event: {} {}", deadLetter.getEventType(), deadLetter.getEventId());
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.thorlauridsen.outbox;
+
+import com.github.thorlauridsen.model.event.OutboxDeadLetter;
+import com.github.thorlauridsen.model.repository.IOutboxDeadLetterRepo;
+import java.util.List;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service class for dead lettered outbox events.
+ * This class is responsible for listing dead lettered events and redriving them to the outbox table.
+ */
+@RequiredArgsConstructor
+@Service
+@Slf4j
+public class OutboxDeadLetterService {
+
+    private final IOutboxDeadLetterRepo deadLetterRepo;
+
+    /**
+     * Find all dead lettered outbox events.
+     *
+     * @return List of {@link OutboxDeadLetter}.
+     */
+    public List<OutboxDeadLetter> findAll() {
+        return deadLetterRepo.findAll();
+    }
+
+    /**
+     * Redrive a dead lettered event so it is published again by the outbox poller.
+     *
+     * @param eventId UUID of the event to redrive.
+     * @throws OutboxDeadLetterNotFoundException if no dead lettered event exists with the given id.
+     */
+    public void redrive(UUID eventId) throws OutboxDeadLetterNotFoundException {
+        if (!deadLetterRepo.redrive(eventId)) {
+            throw new OutboxDeadLetterNotFoundException("Dead lettered outbox event not found with id: " + eventId);
+        }
+    }
+
+    /**
+     * Redrive all dead lettered events so they are published again by the outbox poller.
+     *
+     * @return number of events redriven.
+     */
+    public int redriveAll() {
+        val redriven = deadLetterRepo.redriveAll();
+        log.info("Redrove {} dead lettered outbox events", redriven);
+        return redriven;
+    }
+}
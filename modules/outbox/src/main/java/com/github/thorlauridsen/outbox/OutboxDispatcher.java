@@ -0,0 +1,205 @@
+package com.github.thorlauridsen.outbox;
+
+import com.github.thorlauridsen.model.enumeration.EventType;
+import com.github.thorlauridsen.model.event.OutboxEvent;
+import com.github.thorlauridsen.model.event.PublishResult;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * Dispatch engine for publishing a claimed batch of outbox events in parallel.
+ * <p>
+ * The batch is split into lanes by a lane key, which is the {@link EventType} of the event by default,
+ * so events going to different topics are never published one after another. Every lane runs on a virtual thread of its own,
+ * and is split into chunks that are published one after another, so the events of a lane are published
+ * in the order they were claimed. A semaphore caps the number of chunks being published at the same time
+ * across all pollers using this dispatcher.
+ * <p>
+ * {@link #dispatch(List, Function, Function)} only returns once every chunk has completed,
+ * so the caller can acknowledge the whole batch at once afterwards.
+ */
+@Component
+@Slf4j
+public class OutboxDispatcher implements DisposableBean {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+    private final int chunkSize;
+    private final Duration shutdownTimeout;
+
+    /**
+     * Constructor for OutboxDispatcher.
+     *
+     * @param outboxProperties {@link OutboxProperties} for configuring the concurrency cap and chunk size.
+     */
+    public OutboxDispatcher(OutboxProperties outboxProperties) {
+        this.permits = new Semaphore(outboxProperties.dispatch().concurrency());
+        this.chunkSize = outboxProperties.dispatch().chunkSize();
+        this.shutdownTimeout = outboxProperties.leaseDuration();
+    }
+
+    /**
+     * Dispatch a batch of events across lanes and wait for all of them to complete.
+     * The lanes are published in parallel, and the chunks of a lane one after another.
+     * Every chunk passed to the publisher contains events with the same lane key,
+     * in the order they appear in the batch.
+     * If a chunk throws, all events in that chunk are reported as failed.
+     *
+     * @param events    List of {@link OutboxEvent} to dispatch.
+     * @param laneKey   function that returns the lane of an event.
+     * @param publisher function that publishes a chunk of events and reports the outcome.
+     * @return {@link PublishResult} combined from all chunks.
+     */
+    public PublishResult dispatch(
+            List<OutboxEvent> events,
+            Function<OutboxEvent, String> laneKey,
+            Function<List<OutboxEvent>, PublishResult> publisher
+    ) {
+        val lanes = new LinkedHashMap<String, List<OutboxEvent>>();
+        for (val event : events) {
+            lanes.computeIfAbsent(laneKey.apply(event), key -> new ArrayList<>()).add(event);
+        }
+
+        val laneEvents = List.copyOf(lanes.values());
+        val futures = new ArrayList<CompletableFuture<PublishResult>>(laneEvents.size());
+        for (val lane : laneEvents) {
+            futures.add(CompletableFuture.supplyAsync(() -> publishLane(lane, publisher), executor));
+        }
+
+        // Completion barrier: wait for every lane before the batch can be acknowledged.
+        var result = PublishResult.empty();
+        for (var i = 0; i < futures.size(); i++) {
+            result = result.merge(await(futures.get(i), laneEvents.get(i)));
+        }
+        log.info("Dispatched {} events across {} lanes", events.size(), lanes.size());
+        return result;
+    }
+
+    /**
+     * Run a task asynchronously on a virtual thread.
+     * Exceptions thrown by the task are logged.
+     *
+     * @param task {@link Runnable} to run.
+     */
+    public void submit(Runnable task) {
+        executor.execute(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("Failed to run outbox dispatch task", e);
+            }
+        });
+    }
+
+    /**
+     * Publish the events of a lane in chunks, one chunk after another, in the order of the lane.
+     * If a chunk throws, all events in that chunk are reported as failed and the next chunk is still published.
+     *
+     * @param lane      List of {@link OutboxEvent} with the same lane key.
+     * @param publisher function that publishes a chunk of events.
+     * @return {@link PublishResult} combined from all chunks of the lane.
+     */
+    private PublishResult publishLane(
+            List<OutboxEvent> lane,
+            Function<List<OutboxEvent>, PublishResult> publisher
+    ) {
+        var result = PublishResult.empty();
+        for (var i = 0; i < lane.size(); i += chunkSize) {
+            val chunk = lane.subList(i, Math.min(i + chunkSize, lane.size()));
+            try {
+                result = result.merge(publish(chunk, publisher));
+            } catch (RuntimeException e) {
+                log.error("Failed to dispatch chunk of {} events", chunk.size(), e);
+                result = result.merge(PublishResult.failed(eventIds(chunk), String.valueOf(e.getMessage())));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Publish a single chunk while holding a permit from the concurrency cap.
+     *
+     * @param chunk     List of {@link OutboxEvent} with the same lane key.
+     * @param publisher function that publishes the chunk.
+     * @return {@link PublishResult} for the chunk.
+     */
+    private PublishResult publish(
+            List<OutboxEvent> chunk,
+            Function<List<OutboxEvent>, PublishResult> publisher
+    ) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return PublishResult.failed(eventIds(chunk), "Interrupted before publishing");
+        }
+        try {
+            return publisher.apply(chunk);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Wait for a lane to complete.
+     *
+     * @param future {@link CompletableFuture} of the lane.
+     * @param lane   List of {@link OutboxEvent} in the lane.
+     * @return {@link PublishResult} for the lane, with all events failed if the lane threw.
+     */
+    private PublishResult await(
+            CompletableFuture<PublishResult> future,
+            List<OutboxEvent> lane
+    ) {
+        try {
+            return future.join();
+        } catch (Exception e) {
+            log.error("Failed to dispatch lane of {} events", lane.size(), e);
+            return PublishResult.failed(eventIds(lane), String.valueOf(e.getMessage()));
+        }
+    }
+
+    /**
+     * Get the UUIDs of a list of events.
+     *
+     * @param events List of {@link OutboxEvent}.
+     * @return List of UUIDs of the events.
+     */
+    private static List<UUID> eventIds(List<OutboxEvent> events) {
+        return events.stream()
+                .map(OutboxEvent::eventId)
+                .toList();
+    }
+
+    /**
+     * Shut down the virtual thread executor.
+     * Chunks that are already running are allowed to complete for up to the lease duration,
+     * after which they are interrupted. Events that were not acknowledged by then are claimed again
+     * once their lease expires.
+     */
+    @Override
+    public void destroy() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -3,9 +3,9 @@ package com.github.thorlauridsen.outbox;
 import com.github.thorlauridsen.model.enumeration.EventType;
 import com.github.thorlauridsen.model.event.OutboxEvent;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
-import jakarta.persistence.Lob;
 import jakarta.persistence.Table;
 import java.time.OffsetDateTime;
 import java.util.UUID;
@@ -30,6 +30,11 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class OutboxEventEntity {
 
+    /**
+     * Maximum length of the stored reason for a failed attempt.
+     */
+    public static final int MAX_ERROR_LENGTH = 1000;
+
     /**
      * Unique identifier for the event.
      */
@@ -45,8 +50,9 @@ public class OutboxEventEntity {
 
     /**
      * Event payload as JSON string.
+     * This is stored as UTF-8 encoded bytes in a BYTEA column.
      */
-    @Lob
+    @Convert(converter = Utf8PayloadConverter.class)
     @Column(nullable = false)
     private String payload;
 
@@ -59,6 +65,50 @@ public class OutboxEventEntity {
     @Column(nullable = false)
     private Boolean processed = false;
 
+    /**
+     * Time until which the event is claimed by a poller.
+     * Other pollers will not claim the event before this time has passed.
+     * If a poller crashes after claiming an event, the lease expires and the event is claimed again.
+     */
+    @Column
+    private OffsetDateTime lockedUntil;
+
+    /**
+     * Number of failed attempts to publish the event.
+     */
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    /**
+     * Time before which the event will not be claimed again after a failed attempt.
+     */
+    @Column
+    private OffsetDateTime nextAttemptAt;
+
+    /**
+     * Reason the last attempt to publish the event failed.
+     */
+    @Column(length = MAX_ERROR_LENGTH)
+    private String lastError;
+
+    /**
+     * Logical shard of the event, derived from the aggregate id of the event.
+     * All events of the same aggregate belong to the same shard.
+     */
+    @Column(nullable = false)
+    private Integer shard = 0;
+
+    /**
+     * Unique identifier of the aggregate the event belongs to, such as the order id.
+     */
+    private UUID aggregateId;
+
+    /**
+     * Position of the event among the events of its aggregate, starting at 1.
+     * Consumers use this to process the events of an aggregate in order.
+     */
+    private Long sequence;
+
     /**
      * Constructor for OutboxEntity.
      */
@@ -67,30 +117,38 @@ public class OutboxEventEntity {
             EventType eventType,
             String payload,
             OffsetDateTime createdAt,
-            boolean processed
+            boolean processed,
+            int shard,
+            UUID aggregateId,
+            Long sequence
     ) {
         this.eventId = eventId;
         this.eventType = eventType;
         this.payload = payload;
         this.createdAt = createdAt;
         this.processed = processed;
+        this.shard = shard;
+        this.aggregateId = aggregateId;
+        this.sequence = sequence;
     }
 
     /**
-     * Static method to set processed to true.
-     * This method is provided to increase immutability.
+     * Record a failed attempt to publish the event.
+     * The lease is released and the event will not be claimed again before the next attempt time.
      *
-     * @param outbox {@link OutboxEventEntity}
-     * @return {@link OutboxEventEntity} with processed as true.
+     * @param error         reason the attempt failed.
+     * @param nextAttemptAt time before which the event will not be claimed again.
      */
-    public static OutboxEventEntity markProcessed(OutboxEventEntity outbox) {
-        return new OutboxEventEntity(
-                outbox.getEventId(),
-                outbox.getEventType(),
-                outbox.getPayload(),
-                outbox.getCreatedAt(),
-                true
-        );
+    public void recordFailure(
+            String error,
+            OffsetDateTime nextAttemptAt
+    ) {
+        this.attempts++;
+        this.lastError = error != null && error.length() > MAX_ERROR_LENGTH
+                ? error.substring(0, MAX_ERROR_LENGTH)
+                : error;
+        this.nextAttemptAt = nextAttemptAt;
+        this.lockedUntil = null;
     }
 
     /**
@@ -104,7 +162,9 @@ public class OutboxEventEntity {
                 eventType,
                 payload,
                 createdAt,
-                processed
+                processed,
+                aggregateId,
+                sequence
         );
     }
 
@@ -112,15 +172,22 @@ public class OutboxEventEntity {
      * Convert a model to an entity.
      *
      * @param outboxEvent {@link OutboxEvent} model.
+     * @param shard       logical shard of the event.
      * @return {@link OutboxEventEntity} entity.
      */
-    public static OutboxEventEntity fromModel(OutboxEvent outboxEvent) {
+    public static OutboxEventEntity fromModel(
+            OutboxEvent outboxEvent,
+            int shard
+    ) {
         return new OutboxEventEntity(
                 outboxEvent.eventId(),
                 outboxEvent.eventType(),
                 outboxEvent.payload(),
                 outboxEvent.createdAt(),
-                outboxEvent.processed()
+                outboxEvent.processed(),
+                shard,
+                outboxEvent.aggregateId(),
+                outboxEvent.sequence()
         );
     }
 }
@@ -1,8 +1,18 @@
 package com.github.thorlauridsen.outbox;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -14,10 +24,143 @@ import org.springframework.stereotype.Repository;
 public interface OutboxEventJpaRepo extends JpaRepository<OutboxEventEntity, UUID> {
 
     /**
-     * Find all unprocessed outbox events.
-     * This will return a list of all outbox events where the processed flag is false.
+     * Find the next page of unprocessed outbox events and lock them for update.
+     * Events with an active lease from another poller are excluded,
+     * as are events waiting for the backoff after a failed attempt to expire.
+     * Pages are ordered by (created_at, event_id) and continue after the given keyset,
+     * so the cost of a page does not grow with the number of rows before it.
+     * <p>
+     * A lock timeout of -2 tells Hibernate to skip rows locked by another transaction,
+     * which on PostgreSQL is rendered as SELECT ... FOR UPDATE SKIP LOCKED.
+     * Concurrent pollers will therefore claim disjoint batches instead of waiting on each other.
      *
-     * @return List of {@link OutboxEventEntity}.
+     * @param now       current time used to determine whether a lease or backoff has expired.
+     * @param createdAt creation time of the last event on the previous page.
+     * @param eventId   UUID of the last event on the previous page.
+     * @param limit     {@link Limit} for the maximum number of events to return.
+     * @return List of {@link OutboxEventEntity} ordered by creation time and event id.
      */
-    List<OutboxEventEntity> findAllByProcessedFalse();
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            SELECT o FROM OutboxEventEntity o
+            WHERE o.processed = false
+            AND (o.lockedUntil IS NULL OR o.lockedUntil < :now)
+            AND (o.nextAttemptAt IS NULL OR o.nextAttemptAt <= :now)
+            AND (o.createdAt > :createdAt OR (o.createdAt = :createdAt AND o.eventId > :eventId))
+            ORDER BY o.createdAt, o.eventId
+            """)
+    List<OutboxEventEntity> findPendingAfter(
+            @Param("now") OffsetDateTime now,
+            @Param("createdAt") OffsetDateTime createdAt,
+            @Param("eventId") UUID eventId,
+            Limit limit
+    );
+
+    /**
+     * Find the next page of unprocessed outbox events in the given shards and lock them for update.
+     * This works the same way as {@link #findPendingAfter(OffsetDateTime, OffsetDateTime, UUID, Limit)},
+     * but only events in the given shards are returned.
+     *
+     * @param now       current time used to determine whether a lease or backoff has expired.
+     * @param shards    Collection of shards to find events in.
+     * @param createdAt creation time of the last event on the previous page.
+     * @param eventId   UUID of the last event on the previous page.
+     * @param limit     {@link Limit} for the maximum number of events to return.
+     * @return List of {@link OutboxEventEntity} ordered by creation time and event id.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            SELECT o FROM OutboxEventEntity o
+            WHERE o.processed = false
+            AND o.shard IN :shards
+            AND (o.lockedUntil IS NULL OR o.lockedUntil < :now)
+            AND (o.nextAttemptAt IS NULL OR o.nextAttemptAt <= :now)
+            AND (o.createdAt > :createdAt OR (o.createdAt = :createdAt AND o.eventId > :eventId))
+            ORDER BY o.createdAt, o.eventId
+            """)
+    List<OutboxEventEntity> findPendingInShardsAfter(
+            @Param("now") OffsetDateTime now,
+            @Param("shards") Collection<Integer> shards,
+            @Param("createdAt") OffsetDateTime createdAt,
+            @Param("eventId") UUID eventId,
+            Limit limit
+    );
+
+    /**
+     * Lease the given outbox events until the given time.
+     * This is a single bulk update statement for all the given events.
+     *
+     * @param eventIds    Collection of {@link UUID} of the events to lease.
+     * @param lockedUntil time until which the events are leased.
+     * @return number of updated rows.
+     */
+    @Modifying
+    @Query("UPDATE OutboxEventEntity o SET o.lockedUntil = :lockedUntil WHERE o.eventId IN :eventIds")
+    int lease(
+            @Param("eventIds") Collection<UUID> eventIds,
+            @Param("lockedUntil") OffsetDateTime lockedUntil
+    );
+
+    /**
+     * Lease a single outbox event until the given time if it is still pending.
+     * The event is only leased if it is not processed and its lease, if any, has expired.
+     *
+     * @param eventId     {@link UUID} of the event to lease.
+     * @param now         current time used to check whether an existing lease has expired.
+     * @param lockedUntil time until which the event is leased.
+     * @return 1 if the event was leased, 0 otherwise.
+     */
+    @Modifying
+    @Query("""
+            UPDATE OutboxEventEntity o SET o.lockedUntil = :lockedUntil
+            WHERE o.eventId = :eventId
+            AND o.processed = false
+            AND (o.lockedUntil IS NULL OR o.lockedUntil < :now)
+            """)
+    int leaseIfPending(
+            @Param("eventId") UUID eventId,
+            @Param("now") OffsetDateTime now,
+            @Param("lockedUntil") OffsetDateTime lockedUntil
+    );
+
+    /**
+     * Mark the given outbox events as processed and release their lease.
+     * This is a single bulk update statement for all the given events.
+     *
+     * @param eventIds Collection of {@link UUID} of the events to mark as processed.
+     * @return number of updated rows.
+     */
+    @Modifying
+    @Query("UPDATE OutboxEventEntity o SET o.processed = true, o.lockedUntil = null WHERE o.eventId IN :eventIds")
+    int markProcessed(@Param("eventIds") Collection<UUID> eventIds);
+
+    /**
+     * Delete the given outbox events.
+     * This is a single bulk delete statement for all the given events.
+     *
+     * @param eventIds Collection of {@link UUID} of the events to delete.
+     * @return number of deleted rows.
+     */
+    @Modifying
+    @Query("DELETE FROM OutboxEventEntity o WHERE o.eventId IN :eventIds")
+    int deleteAllByEventIds(@Param("eventIds") Collection<UUID> eventIds);
+
+    /**
+     * Copy the given outbox events to the "outbox_archive" table.
+     * This is a single INSERT ... SELECT statement for all the given events,
+     * and the processed time of the archived events is set to the current time.
+     *
+     * @param eventIds Collection of {@link UUID} of the events to archive.
+     * @return number of archived rows.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            INSERT INTO outbox_archive (event_id, event_type, payload, created_at, processed_at)
+            SELECT event_id, event_type, payload, created_at, CURRENT_TIMESTAMP
+            FROM outbox
+            WHERE event_id IN (:eventIds)
+            """)
+    int archive(@Param("eventIds") Collection<UUID> eventIds);
 }
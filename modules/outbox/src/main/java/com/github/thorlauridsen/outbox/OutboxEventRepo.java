@@ -1,17 +1,27 @@
 package com.github.thorlauridsen.outbox;
 
 import com.github.thorlauridsen.model.event.BaseEvent;
+import com.github.thorlauridsen.model.event.OutboxCursor;
 import com.github.thorlauridsen.model.event.OutboxEvent;
 import com.github.thorlauridsen.model.repository.IOutboxEventRepo;
-import lombok.RequiredArgsConstructor;
+import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import tools.jackson.databind.json.JsonMapper;
 
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Outbox event repository class.
@@ -25,64 +35,281 @@ import java.util.UUID;
  * automatically detect it as a bean and inject it where needed.
  */
 @Repository
-@RequiredArgsConstructor
 @Slf4j
 public class OutboxEventRepo implements IOutboxEventRepo {
 
     private final JsonMapper jsonMapper;
     private final OutboxEventJpaRepo jpaRepo;
+    private final OutboxDeadLetterJpaRepo deadLetterJpaRepo;
+    private final OutboxSequenceJpaRepo sequenceJpaRepo;
+    private final OutboxProperties outboxProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean postgres;
+
+    /**
+     * Constructor for OutboxEventRepo.
+     * The datasource URL is defined in application.yml.
+     *
+     * @param jsonMapper        FasterXML Jackson {@link JsonMapper} for serializing events.
+     * @param jpaRepo           {@link OutboxEventJpaRepo} for the outbox table.
+     * @param deadLetterJpaRepo {@link OutboxDeadLetterJpaRepo} for the outbox dead letter table.
+     * @param sequenceJpaRepo   {@link OutboxSequenceJpaRepo} for the sequence numbers of aggregates.
+     * @param outboxProperties  {@link OutboxProperties} for configuring the outbox.
+     * @param eventPublisher    {@link ApplicationEventPublisher} for publishing {@link OutboxEventSaved}.
+     * @param url               JDBC URL of the database.
+     */
+    public OutboxEventRepo(
+            JsonMapper jsonMapper,
+            OutboxEventJpaRepo jpaRepo,
+            OutboxDeadLetterJpaRepo deadLetterJpaRepo,
+            OutboxSequenceJpaRepo sequenceJpaRepo,
+            OutboxProperties outboxProperties,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${spring.datasource.url}") String url
+    ) {
+        this.jsonMapper = jsonMapper;
+        this.jpaRepo = jpaRepo;
+        this.deadLetterJpaRepo = deadLetterJpaRepo;
+        this.sequenceJpaRepo = sequenceJpaRepo;
+        this.outboxProperties = outboxProperties;
+        this.eventPublisher = eventPublisher;
+        this.postgres = url.startsWith("jdbc:postgresql:");
+    }
 
     /**
      * Save an event to the outbox table in the database.
      * First, the event will be serialized to JSON.
-     * Then it will be saved to the database.
+     * Then it will be saved to the database in the shard derived from the aggregate id of the event.
+     * <p>
+     * The event is given the next sequence number of its aggregate. The sequence row of the aggregate
+     * is locked until the surrounding transaction commits, so events of the same aggregate saved
+     * concurrently are numbered in commit order. Consumers use the sequence to process events in order.
+     * <p>
+     * Once the event is committed, an {@link OutboxEventSaved} application event is published
+     * from a transaction synchronization so the event can be dispatched immediately instead of
+     * waiting for the next poll. A rolled back event is never dispatched.
      *
      * @param event {@link BaseEvent} to save.
      */
     @Override
+    @Transactional
     public void save(BaseEvent event) {
 
         val json = jsonMapper.writeValueAsString(event);
+        val aggregateId = event.aggregateId();
+        val sequence = nextSequence(aggregateId);
         val outboxEvent = new OutboxEvent(
                 event.getId(),
                 event.getEventType(),
                 json,
                 OffsetDateTime.now(),
-                false
+                false,
+                aggregateId,
+                sequence
         );
-        val outboxEntity = OutboxEventEntity.fromModel(outboxEvent);
+        val shard = Math.floorMod(aggregateId.hashCode(), outboxProperties.sharding().shardCount());
+        val outboxEntity = OutboxEventEntity.fromModel(outboxEvent, shard);
         val saved = jpaRepo.save(outboxEntity);
-        log.info("Saved outbox event: {} {}", saved.getEventType(), saved.getEventId());
+        log.info("Saved outbox event: {} {} with sequence {}", saved.getEventType(), saved.getEventId(), sequence);
+
+        if (!outboxProperties.dispatchOnCommit()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eventPublisher.publishEvent(new OutboxEventSaved(outboxEvent, shard));
+            }
+        });
+    }
+
+    /**
+     * Assign the next sequence number of an aggregate.
+     * On PostgreSQL this is a single upsert, so the first events of an aggregate saved concurrently
+     * wait for each other on the sequence row instead of both inserting it.
+     * Other databases, such as the in-memory H2 database used for local development and tests,
+     * lock the existing sequence row and insert it for the first event of the aggregate.
+     *
+     * @param aggregateId UUID of the aggregate.
+     * @return the next sequence number of the aggregate.
+     */
+    private long nextSequence(UUID aggregateId) {
+        if (postgres) {
+            return sequenceJpaRepo.upsertNext(aggregateId);
+        }
+        return sequenceJpaRepo.findForUpdate(aggregateId)
+                .map(OutboxSequenceEntity::next)
+                .orElseGet(() -> sequenceJpaRepo.save(new OutboxSequenceEntity(aggregateId)).getLastSequence());
     }
 
     /**
-     * Find all unprocessed outbox events.
-     * This will return a list of all outbox events where the processed flag is false.
+     * Claim the next batch of unprocessed outbox events after the given cursor.
+     * <p>
+     * The rows are selected with FOR UPDATE SKIP LOCKED so that concurrent pollers
+     * running on other replicas skip them, and are then leased for the configured
+     * lease duration with a single bulk update. The transaction commits as soon as
+     * the lease is written, so no connection or row lock is held while publishing.
+     * If the poller crashes before acknowledging the events, the lease expires
+     * and the events are claimed again by the next poll.
      *
-     * @return List of {@link OutboxEvent}.
+     * @param after     {@link OutboxCursor} to continue after, or {@link OutboxCursor#START}.
+     * @param batchSize maximum number of events to claim.
+     * @return List of {@link OutboxEvent} ordered by creation time and event id.
      */
     @Override
-    public List<OutboxEvent> findAllByProcessedFalse() {
-        return jpaRepo.findAllByProcessedFalse().stream()
+    @Transactional
+    public List<OutboxEvent> claimBatch(OutboxCursor after, int batchSize) {
+        val now = OffsetDateTime.now();
+        val claimed = jpaRepo.findPendingAfter(now, after.createdAt(), after.eventId(), Limit.of(batchSize));
+        return lease(claimed, now);
+    }
+
+    /**
+     * Lease the given locked events for the configured lease duration with a single bulk update.
+     *
+     * @param claimed List of {@link OutboxEventEntity} locked by the current transaction.
+     * @param now     current time the lease duration is added to.
+     * @return List of {@link OutboxEvent} in the same order.
+     */
+    private List<OutboxEvent> lease(
+            List<OutboxEventEntity> claimed,
+            OffsetDateTime now
+    ) {
+        if (claimed.isEmpty()) {
+            return List.of();
+        }
+        val eventIds = claimed.stream()
+                .map(OutboxEventEntity::getEventId)
+                .toList();
+        jpaRepo.lease(eventIds, now.plus(outboxProperties.leaseDuration()));
+
+        return claimed.stream()
                 .map(OutboxEventEntity::toModel)
                 .toList();
     }
 
     /**
-     * Mark an event as processed.
-     * This will update the processed flag for the event with the given id to true.
+     * Claim the next batch of unprocessed outbox events in the given shards after the given cursor.
+     * This works the same way as {@link #claimBatch(OutboxCursor, int)},
+     * but only events in the given shards are claimed.
      *
-     * @param eventId {@link UUID} of the event to mark as processed.
+     * @param after     {@link OutboxCursor} to continue after, or {@link OutboxCursor#START}.
+     * @param batchSize maximum number of events to claim.
+     * @param shards    Collection of shards to claim events from.
+     * @return List of {@link OutboxEvent} ordered by creation time and event id.
      */
     @Override
-    public void markAsProcessed(UUID eventId) {
-        val found = jpaRepo.findById(eventId);
-        if (found.isEmpty()) {
-            log.warn("Could not find outbox event with ID: {}", eventId);
+    @Transactional
+    public List<OutboxEvent> claimBatch(
+            OutboxCursor after,
+            int batchSize,
+            Collection<Integer> shards
+    ) {
+        val now = OffsetDateTime.now();
+        val claimed = jpaRepo.findPendingInShardsAfter(now, shards, after.createdAt(), after.eventId(), Limit.of(batchSize));
+        return lease(claimed, now);
+    }
+
+    /**
+     * Claim a single unprocessed outbox event by id.
+     * This is a single conditional update, so at most one poller claims the event
+     * even if the scheduled poller and the after-commit dispatch race for it.
+     *
+     * @param eventId {@link UUID} of the event to claim.
+     * @return true if the event was claimed, false otherwise.
+     */
+    @Override
+    @Transactional
+    public boolean claim(UUID eventId) {
+        val now = OffsetDateTime.now();
+        return jpaRepo.leaseIfPending(eventId, now, now.plus(outboxProperties.leaseDuration())) == 1;
+    }
+
+    /**
+     * Mark events as processed in its own short transaction after the events have been published.
+     * What this means depends on {@link OutboxProperties.Retention#mode()}:
+     * <ul>
+     *     <li>MARK issues a single UPDATE ... WHERE event_id IN (...) setting the processed flag.</li>
+     *     <li>DELETE issues a single DELETE ... WHERE event_id IN (...).</li>
+     *     <li>ARCHIVE copies the events to the "outbox_archive" table with a single INSERT ... SELECT
+     *     and then deletes them, in the same transaction.</li>
+     * </ul>
+     * With DELETE and ARCHIVE, the outbox table only ever holds pending events,
+     * so scanning it costs O(backlog) rather than O(history).
+     *
+     * @param eventIds Collection of {@link UUID} of the events to mark as processed.
+     */
+    @Override
+    @Transactional
+    public void markAsProcessed(Collection<UUID> eventIds) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        val mode = outboxProperties.retention().mode();
+        val updated = switch (mode) {
+            case MARK -> jpaRepo.markProcessed(eventIds);
+            case DELETE -> jpaRepo.deleteAllByEventIds(eventIds);
+            case ARCHIVE -> {
+                jpaRepo.archive(eventIds);
+                yield jpaRepo.deleteAllByEventIds(eventIds);
+            }
+        };
+        if (updated < eventIds.size()) {
+            log.warn("Marked {} of {} outbox events as processed ({})", updated, eventIds.size(), mode);
+            return;
+        }
+        log.info("Marked {} outbox events as processed ({})", updated, mode);
+    }
+
+    /**
+     * Record failed attempts to publish events.
+     * <p>
+     * Each event gets its attempt counter incremented, its last error stored and its lease released.
+     * The next attempt is delayed by an exponential backoff with jitter, so events that fail
+     * at the same time are not all retried at the same time.
+     * Once an event has failed the configured maximum number of times, it is moved to the
+     * "outbox_dead_letter" table in the same transaction, so a poison event is not retried forever.
+     *
+     * @param failures Map of UUIDs of the events that failed to the reason they failed.
+     */
+    @Override
+    @Transactional
+    public void recordFailures(Map<UUID, String> failures) {
+        if (failures.isEmpty()) {
             return;
         }
-        val updated = OutboxEventEntity.markProcessed(found.get());
-        jpaRepo.save(updated);
-        log.info("Marked outbox event as processed: {}", eventId);
+        val retry = outboxProperties.retry();
+        val now = OffsetDateTime.now();
+
+        for (val entity : jpaRepo.findAllById(failures.keySet())) {
+            val attempt = entity.getAttempts() + 1;
+            entity.recordFailure(failures.get(entity.getEventId()), now.plus(backoff(attempt)));
+
+            if (attempt >= retry.maxAttempts()) {
+                deadLetterJpaRepo.save(OutboxDeadLetterEntity.fromOutboxEvent(entity));
+                jpaRepo.delete(entity);
+                log.warn("Moved outbox event to dead letter table after {} attempts: {} {}",
+                        attempt, entity.getEventType(), entity.getEventId());
+            }
+        }
+    }
+
+    /**
+     * Calculate the backoff before the next attempt to publish an event.
+     * The backoff doubles with every attempt up to the configured maximum,
+     * and a random jitter of up to half the backoff is subtracted.
+     *
+     * @param attempt number of failed attempts so far, starting at 1.
+     * @return {@link Duration} to wait before the next attempt.
+     */
+    private Duration backoff(int attempt) {
+        val retry = outboxProperties.retry();
+        val exponent = Math.min(attempt - 1, 30);
+        val backoffMillis = Math.min(
+                retry.initialBackoff().toMillis() << exponent,
+                retry.maxBackoff().toMillis()
+        );
+        val jitterMillis = ThreadLocalRandom.current().nextLong(backoffMillis / 2 + 1);
+        return Duration.ofMillis(backoffMillis - jitterMillis);
     }
 }
@@ -0,0 +1,17 @@
+package com.github.thorlauridsen.outbox;
+
+import com.github.thorlauridsen.model.event.OutboxEvent;
+
+/**
+ * Application event published once an event has been committed to the outbox table.
+ * This allows the event to be dispatched immediately after commit,
+ * while the scheduled poller sweeps any events this fast path missed.
+ *
+ * @param event {@link OutboxEvent} that was saved.
+ * @param shard logical shard of the event.
+ */
+public record OutboxEventSaved(
+        OutboxEvent event,
+        int shard
+) {
+}
@@ -0,0 +1,206 @@
+package com.github.thorlauridsen.outbox;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener for PostgreSQL notifications sent when events are inserted into the outbox table.
+ * <p>
+ * A trigger on the outbox table sends a NOTIFY on the "outbox_inserted" channel for every insert statement.
+ * This listener holds a dedicated connection outside the connection pool which LISTENs on that channel,
+ * and wakes up all outbox pollers as soon as a notification arrives instead of waiting for the next tick.
+ * Notifications that arrive in a burst are coalesced into a single poll by {@link BaseOutboxPoller#wakeUp()}.
+ * <p>
+ * If the connection drops, the pollers keep polling on their timed schedule while the listener
+ * reconnects with exponential backoff. The listener is only started for PostgreSQL,
+ * so it is disabled automatically when the application runs against H2.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.outbox.listen", name = "enabled", havingValue = "true")
+@Slf4j
+public class OutboxNotificationListener implements SmartLifecycle {
+
+    /**
+     * Channel the outbox trigger sends notifications on.
+     */
+    public static final String CHANNEL = "outbox_inserted";
+
+    private static final Duration MIN_RECONNECT_INTERVAL = Duration.ofSeconds(1);
+
+    private final List<BaseOutboxPoller> pollers;
+    private final OutboxProperties outboxProperties;
+    private final String url;
+    private final String username;
+    private final String password;
+
+    private volatile boolean running;
+    private volatile Thread thread;
+    private volatile Connection connection;
+
+    /**
+     * Constructor for OutboxNotificationListener.
+     * The datasource properties are defined in application.yml.
+     *
+     * @param pollers          List of {@link BaseOutboxPoller} to wake up on notifications.
+     * @param outboxProperties {@link OutboxProperties} for configuring the listener.
+     * @param url              JDBC URL of the database.
+     * @param username         username for the database.
+     * @param password         password for the database.
+     */
+    public OutboxNotificationListener(
+            List<BaseOutboxPoller> pollers,
+            OutboxProperties outboxProperties,
+            @Value("${spring.datasource.url}") String url,
+            @Value("${spring.datasource.username:}") String username,
+            @Value("${spring.datasource.password:}") String password
+    ) {
+        this.pollers = pollers;
+        this.outboxProperties = outboxProperties;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+    }
+
+    /**
+     * Start listening for notifications on a dedicated thread.
+     * Nothing is started if the database is not PostgreSQL.
+     */
+    @Override
+    public void start() {
+        if (!url.startsWith("jdbc:postgresql:")) {
+            log.info("Outbox notifications are only supported on PostgreSQL, using timed polling only");
+            return;
+        }
+        running = true;
+        thread = Thread.ofPlatform()
+                .name("outbox-notification-listener")
+                .daemon(true)
+                .start(this::run);
+    }
+
+    /**
+     * Stop listening for notifications.
+     * The connection is closed so a thread blocked waiting for notifications returns immediately.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        closeConnection();
+        val current = thread;
+        if (current != null) {
+            current.interrupt();
+        }
+        thread = null;
+    }
+
+    /**
+     * Check whether the listener is running.
+     *
+     * @return true if the listener has been started and not stopped.
+     */
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Listen for notifications until stopped, reconnecting with exponential backoff if the connection drops.
+     */
+    private void run() {
+        var reconnectInterval = MIN_RECONNECT_INTERVAL;
+        while (running) {
+            try {
+                connect();
+                reconnectInterval = MIN_RECONNECT_INTERVAL;
+                awaitNotifications();
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Outbox notification connection lost, falling back to timed polling for {}", reconnectInterval, e);
+            } finally {
+                closeConnection();
+            }
+            try {
+                Thread.sleep(reconnectInterval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            reconnectInterval = reconnectInterval.multipliedBy(2);
+            if (reconnectInterval.compareTo(outboxProperties.listen().maxReconnectInterval()) > 0) {
+                reconnectInterval = outboxProperties.listen().maxReconnectInterval();
+            }
+        }
+    }
+
+    /**
+     * Open a dedicated connection and LISTEN on the outbox channel.
+     * The pollers are woken up once the connection is established,
+     * to pick up any events inserted while the listener was disconnected.
+     *
+     * @throws SQLException if the connection fails.
+     */
+    private void connect() throws SQLException {
+        connection = DriverManager.getConnection(url, username, password);
+        try (var statement = connection.createStatement()) {
+            statement.execute("LISTEN " + CHANNEL);
+        }
+        log.info("Listening for outbox notifications on channel {}", CHANNEL);
+        wakeUpPollers();
+    }
+
+    /**
+     * Wait for notifications and wake up the pollers on every batch of notifications received.
+     * The connection is validated whenever no notification arrived within the timeout.
+     *
+     * @throws SQLException if the connection drops.
+     */
+    private void awaitNotifications() throws SQLException {
+        val pgConnection = connection.unwrap(PGConnection.class);
+        val timeoutMillis = (int) outboxProperties.listen().timeout().toMillis();
+        while (running) {
+            val notifications = pgConnection.getNotifications(timeoutMillis);
+            if (notifications != null && notifications.length > 0) {
+                wakeUpPollers();
+            } else if (!connection.isValid(5)) {
+                throw new SQLException("Outbox notification connection is no longer valid");
+            }
+        }
+    }
+
+    /**
+     * Wake up all outbox pollers.
+     */
+    private void wakeUpPollers() {
+        for (val poller : pollers) {
+            poller.wakeUp();
+        }
+    }
+
+    /**
+     * Close the dedicated connection, if any.
+     */
+    private void closeConnection() {
+        val current = connection;
+        connection = null;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.close();
+        } catch (SQLException e) {
+            log.debug("Failed to close outbox notification connection", e);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.github.thorlauridsen.outbox;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for the transactional outbox.
+ * The properties are defined in application.yml under "app.outbox".
+ *
+ * @param batchSize        maximum number of events claimed by a single poll.
+ * @param leaseDuration    how long claimed events are reserved for the poller that claimed them.
+ * @param dispatch         {@link Dispatch} properties for publishing a claimed batch.
+ * @param polling          {@link Polling} properties for the adaptive polling interval.
+ * @param dispatchOnCommit whether saved events are dispatched immediately after commit.
+ * @param listen           {@link Listen} properties for waking up pollers on PostgreSQL notifications.
+ * @param retry            {@link Retry} properties for events that failed to publish.
+ * @param retention        {@link Retention} properties for published events.
+ * @param sharding         {@link Sharding} properties for lease-based shard ownership across replicas.
+ */
+@ConfigurationProperties(prefix = "app.outbox")
+public record OutboxProperties(
+        @DefaultValue("100") int batchSize,
+        @DefaultValue("30s") Duration leaseDuration,
+        @DefaultValue Dispatch dispatch,
+        @DefaultValue Polling polling,
+        @DefaultValue("true") boolean dispatchOnCommit,
+        @DefaultValue Listen listen,
+        @DefaultValue Retry retry,
+        @DefaultValue Retention retention,
+        @DefaultValue Sharding sharding
+) {
+
+    /**
+     * Configuration properties for dispatching a claimed batch of events.
+     * The properties are defined in application.yml under "app.outbox.dispatch".
+     *
+     * @param concurrency maximum number of chunks published at the same time.
+     * @param chunkSize   maximum number of events in a single chunk.
+     */
+    public record Dispatch(
+            @DefaultValue("8") int concurrency,
+            @DefaultValue("10") int chunkSize
+    ) {
+    }
+
+    /**
+     * Configuration properties for the adaptive polling interval.
+     * The properties are defined in application.yml under "app.outbox.polling".
+     *
+     * @param enabled     whether the pollers start polling in the background when the application starts.
+     * @param minInterval delay after a poll that claimed a partial batch, and the first delay when idle.
+     * @param maxInterval ceiling for the delay when the outbox table stays empty.
+     */
+    public record Polling(
+            @DefaultValue("true") boolean enabled,
+            @DefaultValue("100ms") Duration minInterval,
+            @DefaultValue("10s") Duration maxInterval
+    ) {
+    }
+
+    /**
+     * Configuration properties for waking up pollers with PostgreSQL LISTEN/NOTIFY.
+     * The properties are defined in application.yml under "app.outbox.listen".
+     *
+     * @param enabled              whether the pollers listen for notifications. Ignored for databases other than PostgreSQL.
+     * @param timeout              how long to wait for notifications before checking the connection.
+     * @param maxReconnectInterval ceiling for the delay between attempts to reconnect the listener.
+     */
+    public record Listen(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("10s") Duration timeout,
+            @DefaultValue("30s") Duration maxReconnectInterval
+    ) {
+    }
+
+    /**
+     * Configuration properties for retrying events that failed to publish.
+     * The properties are defined in application.yml under "app.outbox.retry".
+     *
+     * @param maxAttempts    number of failed attempts after which an event is moved to the dead letter table.
+     * @param initialBackoff backoff before the second attempt, doubled on every following attempt.
+     * @param maxBackoff     ceiling for the backoff between attempts.
+     */
+    public record Retry(
+            @DefaultValue("10") int maxAttempts,
+            @DefaultValue("1s") Duration initialBackoff,
+            @DefaultValue("10m") Duration maxBackoff
+    ) {
+    }
+
+    /**
+     * Configuration properties for the retention of published events.
+     * The properties are defined in application.yml under "app.outbox.retention".
+     *
+     * @param mode            {@link RetentionMode} deciding what happens to an event once it is published.
+     * @param window          how long published events are retained before they are dropped.
+     * @param partitionsAhead number of daily archive partitions created ahead of time on PostgreSQL.
+     * @param maintenanceCron cron expression for creating and dropping archive partitions.
+     */
+    public record Retention(
+            @DefaultValue("ARCHIVE") RetentionMode mode,
+            @DefaultValue("7d") Duration window,
+            @DefaultValue("3") int partitionsAhead,
+            @DefaultValue("0 0 * * * *") String maintenanceCron
+    ) {
+    }
+
+    /**
+     * Configuration properties for lease-based shard ownership across replicas.
+     * The properties are defined in application.yml under "app.outbox.sharding".
+     *
+     * @param enabled           whether each replica only polls the shards it holds a lease for.
+     * @param shardCount        number of logical shards events are spread across by aggregate id.
+     *                          The shard of an event is fixed when it is saved, so the count must only be lowered
+     *                          once the outbox has been drained. Startup fails while unprocessed events are stored
+     *                          in shards beyond the count. Raising the count is safe, but the pending events
+     *                          of an aggregate may then be published from two shards until they have been drained.
+     * @param leaseDuration     how long a shard lease or a replica heartbeat is valid without renewal.
+     * @param heartbeatInterval how often a replica renews its leases and rebalances shards.
+     */
+    public record Sharding(
+            @DefaultValue("false") boolean enabled,
+            @DefaultValue("16") int shardCount,
+            @DefaultValue("15s") Duration leaseDuration,
+            @DefaultValue("5s") Duration heartbeatInterval
+    ) {
+    }
+
+    /**
+     * Enum for what happens to an event in the outbox table once it is published.
+     */
+    public enum RetentionMode {
+        /**
+         * Keep the event in the outbox table and set the processed flag.
+         * Processed events are deleted once they are older than the retention window.
+         */
+        MARK,
+        /**
+         * Delete the event from the outbox table.
+         */
+        DELETE,
+        /**
+         * Move the event from the outbox table to the time partitioned "outbox_archive" table.
+         * Archived events are dropped once they are older than the retention window.
+         */
+        ARCHIVE
+    }
+}
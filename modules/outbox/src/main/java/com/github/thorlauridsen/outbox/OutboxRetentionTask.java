@@ -0,0 +1,154 @@
+package com.github.thorlauridsen.outbox;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduled task enforcing the retention window for published outbox events.
+ * <p>
+ * On PostgreSQL the "outbox_archive" table is range partitioned by processed time with one partition per day.
+ * This task creates the partitions for the coming days ahead of time, both on startup and on every run,
+ * and drops whole partitions once they are older than the retention window, which is much cheaper than deleting and vacuuming rows.
+ * Rows that ended up in the default partition are deleted row by row.
+ * On other databases such as H2 the archive is a plain table and old rows are deleted.
+ * <p>
+ * In MARK mode, processed events older than the retention window are deleted from the outbox table.
+ * In DELETE mode there is nothing to clean up.
+ */
+@Component
+@Slf4j
+public class OutboxRetentionTask implements InitializingBean {
+
+    private static final String ARCHIVE_TABLE = "outbox_archive";
+    private static final String PARTITION_PREFIX = ARCHIVE_TABLE + "_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OutboxProperties outboxProperties;
+    private final boolean postgres;
+
+    /**
+     * Constructor for OutboxRetentionTask.
+     * The datasource URL is defined in application.yml.
+     *
+     * @param jdbcTemplate     {@link JdbcTemplate} for running maintenance statements.
+     * @param outboxProperties {@link OutboxProperties} for configuring the retention.
+     * @param url              JDBC URL of the database.
+     */
+    public OutboxRetentionTask(
+            JdbcTemplate jdbcTemplate,
+            OutboxProperties outboxProperties,
+            @Value("${spring.datasource.url}") String url
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.outboxProperties = outboxProperties;
+        this.postgres = url.startsWith("jdbc:postgresql:");
+    }
+
+    /**
+     * Create the archive partitions for today and the coming days when the application starts.
+     * This runs before the outbox pollers are started, so events archived before the first scheduled run
+     * land in their daily partition instead of the default partition, which would otherwise prevent
+     * the partition for the day from being created until those events are older than the retention window.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        val retention = outboxProperties.retention();
+        if (!postgres || retention.mode() != OutboxProperties.RetentionMode.ARCHIVE) {
+            return;
+        }
+        try {
+            createPartitions(retention.partitionsAhead());
+        } catch (DataAccessException e) {
+            log.error("Failed to create outbox archive partitions on startup", e);
+        }
+    }
+
+    /**
+     * Enforce the retention window according to the configured retention mode.
+     * This runs on the cron expression defined in application.yml, every hour by default.
+     */
+    @Scheduled(cron = "${app.outbox.retention.maintenance-cron:0 0 * * * *}")
+    public void enforceRetention() {
+        val retention = outboxProperties.retention();
+        val cutoff = OffsetDateTime.now(ZoneOffset.UTC).minus(retention.window());
+        try {
+            switch (retention.mode()) {
+                case MARK -> {
+                    val deleted = jdbcTemplate.update("DELETE FROM outbox WHERE processed = true AND created_at < ?", cutoff);
+                    log.info("Deleted {} processed outbox events older than {}", deleted, cutoff);
+                }
+                case ARCHIVE -> {
+                    if (postgres) {
+                        createPartitions(retention.partitionsAhead());
+                        dropPartitions(cutoff);
+                    }
+                    val table = postgres ? ARCHIVE_TABLE + "_default" : ARCHIVE_TABLE;
+                    val deleted = jdbcTemplate.update("DELETE FROM " + table + " WHERE processed_at < ?", cutoff);
+                    log.info("Deleted {} archived outbox events older than {}", deleted, cutoff);
+                }
+                case DELETE -> log.debug("Published outbox events are deleted on acknowledgement, nothing to clean up");
+            }
+        } catch (DataAccessException e) {
+            log.error("Failed to enforce outbox retention", e);
+        }
+    }
+
+    /**
+     * Create the daily archive partitions for today and the given number of days ahead, if they do not exist.
+     * Creating a partition fails if the default partition already holds rows in its range,
+     * in which case those rows stay in the default partition.
+     *
+     * @param partitionsAhead number of days ahead to create partitions for.
+     */
+    private void createPartitions(int partitionsAhead) {
+        val today = LocalDate.now(ZoneOffset.UTC);
+        for (var i = 0; i <= partitionsAhead; i++) {
+            val day = today.plusDays(i);
+            val name = PARTITION_PREFIX + day.format(PARTITION_SUFFIX);
+            try {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name
+                        + " PARTITION OF " + ARCHIVE_TABLE
+                        + " FOR VALUES FROM ('" + day + " 00:00:00+00') TO ('" + day.plusDays(1) + " 00:00:00+00')");
+            } catch (DataAccessException e) {
+                log.warn("Failed to create outbox archive partition {}", name, e);
+            }
+        }
+    }
+
+    /**
+     * Drop the daily archive partitions that only hold events older than the given cutoff.
+     *
+     * @param cutoff time before which archived events are dropped.
+     */
+    private void dropPartitions(OffsetDateTime cutoff) {
+        val partitions = jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                JOIN pg_class p ON p.oid = i.inhparent
+                WHERE p.relname = ?
+                """, String.class, ARCHIVE_TABLE);
+
+        for (val partition : partitions) {
+            if (!partition.startsWith(PARTITION_PREFIX)) {
+                continue;
+            }
+            val day = LocalDate.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+            val end = day.plusDays(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+            if (!end.isAfter(cutoff)) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+                log.info("Dropped outbox archive partition {}", partition);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.thorlauridsen.outbox;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.util.UUID;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Class representing the last sequence number assigned to an aggregate in the "outbox_sequence" table.
+ * Every event saved to the outbox is given the next sequence number of its aggregate,
+ * so consumers can process the events of an aggregate in the order they were saved.
+ */
+@Entity
+@Getter
+@Table(name = "outbox_sequence")
+@NoArgsConstructor
+public class OutboxSequenceEntity {
+
+    /**
+     * Unique identifier of the aggregate, such as the order id.
+     */
+    @Id
+    @Column(nullable = false)
+    private UUID aggregateId;
+
+    /**
+     * Last sequence number assigned to an event of the aggregate.
+     */
+    @Column(nullable = false)
+    private Long lastSequence;
+
+    /**
+     * Constructor for OutboxSequenceEntity.
+     * The first event of an aggregate has sequence number 1.
+     *
+     * @param aggregateId UUID of the aggregate.
+     */
+    public OutboxSequenceEntity(UUID aggregateId) {
+        this.aggregateId = aggregateId;
+        this.lastSequence = 1L;
+    }
+
+    /**
+     * Assign the next sequence number of the aggregate.
+     *
+     * @return the next sequence number.
+     */
+    public long next() {
+        return ++lastSequence;
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.thorlauridsen.outbox;
+
+import jakarta.persistence.LockModeType;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Outbox sequence repository interface.
+ * This is a JPA repository for the {@link OutboxSequenceEntity}.
+ * It extends the {@link JpaRepository} interface which allows us to easily define CRUD methods.
+ */
+@Repository
+public interface OutboxSequenceJpaRepo extends JpaRepository<OutboxSequenceEntity, UUID> {
+
+    /**
+     * Find the sequence of an aggregate and lock it for update.
+     * Concurrent transactions saving events for the same aggregate wait for each other,
+     * so every event of an aggregate is given a unique sequence number without gaps.
+     *
+     * @param aggregateId UUID of the aggregate.
+     * @return Optional of {@link OutboxSequenceEntity}, empty if no event has been saved for the aggregate yet.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM OutboxSequenceEntity s WHERE s.aggregateId = :aggregateId")
+    Optional<OutboxSequenceEntity> findForUpdate(@Param("aggregateId") UUID aggregateId);
+
+    /**
+     * Assign the next sequence number of an aggregate on PostgreSQL with a single upsert statement.
+     * The first event of an aggregate inserts the sequence row, and every following event increments it.
+     * The upserted row stays locked until the surrounding transaction commits, so concurrent transactions
+     * saving the first event of the same aggregate wait for each other instead of failing on the primary key.
+     *
+     * @param aggregateId UUID of the aggregate.
+     * @return the next sequence number of the aggregate.
+     */
+    @Query(nativeQuery = true, value = """
+            INSERT INTO outbox_sequence (aggregate_id, last_sequence)
+            VALUES (:aggregateId, 1)
+            ON CONFLICT (aggregate_id) DO UPDATE SET last_sequence = outbox_sequence.last_sequence + 1
+            RETURNING last_sequence
+            """)
+    long upsertNext(@Param("aggregateId") UUID aggregateId);
+}
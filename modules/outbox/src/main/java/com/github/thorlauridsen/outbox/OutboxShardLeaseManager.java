@@ -0,0 +1,245 @@
+package com.github.thorlauridsen.outbox;
+
+import com.github.thorlauridsen.model.UuidV7;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Manages which outbox shards this replica is allowed to poll.
+ * <p>
+ * Every outbox event is assigned to one of a fixed number of logical shards by its aggregate id.
+ * Each shard has a row in the "outbox_lease" table with the replica that owns it and when the lease expires.
+ * Every replica registers itself in the "outbox_lease_member" table and renews its heartbeat and
+ * its shard leases on a fixed interval. On every heartbeat the shards are rebalanced so that each live
+ * replica owns at most its fair share: excess shards are released, and free or expired shards are claimed.
+ * A shard is claimed with a conditional update, so two replicas can never own the same shard at the same time.
+ * <p>
+ * When a replica stops, it releases its leases so the other replicas take over its shards on their next heartbeat.
+ * When a replica crashes, its leases expire after the lease duration and are claimed by the remaining replicas.
+ * If this replica cannot renew its leases, it stops polling its shards once the leases would have expired.
+ * <p>
+ * Shard leases only partition the polling work. The row leases and FOR UPDATE SKIP LOCKED on the outbox table
+ * still guarantee that an event is never claimed twice, for example while a shard changes owner.
+ */
+@Component
+@Slf4j
+public class OutboxShardLeaseManager implements SmartLifecycle {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OutboxProperties.Sharding sharding;
+    private final String memberId = UuidV7.generate().toString();
+
+    private volatile ScheduledExecutorService scheduler;
+    private volatile Set<Integer> ownedShards = Set.of();
+    private volatile OffsetDateTime validUntil = OffsetDateTime.MIN;
+
+    /**
+     * Constructor for OutboxShardLeaseManager.
+     *
+     * @param jdbcTemplate     {@link JdbcTemplate} for reading and updating the lease tables.
+     * @param outboxProperties {@link OutboxProperties} for configuring the sharding.
+     */
+    public OutboxShardLeaseManager(
+            JdbcTemplate jdbcTemplate,
+            OutboxProperties outboxProperties
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sharding = outboxProperties.sharding();
+    }
+
+    /**
+     * Check whether the outbox is sharded across replicas.
+     *
+     * @return true if each replica should only poll the shards it owns.
+     */
+    public boolean isEnabled() {
+        return sharding.enabled();
+    }
+
+    /**
+     * Get the shards this replica currently holds a valid lease for.
+     *
+     * @return Set of owned shards, or an empty set if the leases could not be renewed in time.
+     */
+    public Set<Integer> ownedShards() {
+        if (OffsetDateTime.now(ZoneOffset.UTC).isAfter(validUntil)) {
+            return Set.of();
+        }
+        return ownedShards;
+    }
+
+    /**
+     * Register this replica, claim its first shards and start renewing the leases on a dedicated thread.
+     * Nothing is started if sharding is disabled.
+     *
+     * @throws IllegalStateException if unprocessed events are stored in shards beyond the configured shard count.
+     */
+    @Override
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        checkShardCount();
+        createLeases();
+        val threadFactory = Thread.ofPlatform()
+                .name("outbox-shard-lease")
+                .daemon(true)
+                .factory();
+        scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        val interval = sharding.heartbeatInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::heartbeat, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop renewing the leases, then release all shards owned by this replica and unregister it.
+     */
+    @Override
+    public void stop() {
+        val current = scheduler;
+        scheduler = null;
+        if (current == null) {
+            return;
+        }
+        current.shutdownNow();
+        ownedShards = Set.of();
+        try {
+            jdbcTemplate.update("UPDATE outbox_lease SET owner = NULL, expires_at = NULL WHERE owner = ?", memberId);
+            jdbcTemplate.update("DELETE FROM outbox_lease_member WHERE member_id = ?", memberId);
+            log.info("Released outbox shard leases of member {}", memberId);
+        } catch (DataAccessException e) {
+            log.warn("Failed to release outbox shard leases of member {}", memberId, e);
+        }
+    }
+
+    /**
+     * Check whether the lease manager is running.
+     *
+     * @return true if the leases are being renewed.
+     */
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    /**
+     * Start before and stop after the outbox pollers, so the pollers never run with stale shard leases.
+     *
+     * @return phase of this lifecycle bean.
+     */
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE - 1;
+    }
+
+    /**
+     * Renew the heartbeat of this replica and rebalance the shard leases.
+     * Exceptions are logged rather than thrown, so the next heartbeat still runs.
+     */
+    void heartbeat() {
+        try {
+            rebalance();
+        } catch (DataAccessException e) {
+            log.error("Failed to renew outbox shard leases of member {}", memberId, e);
+        }
+    }
+
+    /**
+     * Renew the heartbeat of this replica, remove replicas that stopped sending heartbeats,
+     * and claim or release shards until this replica owns its fair share.
+     */
+    private void rebalance() {
+        val now = OffsetDateTime.now(ZoneOffset.UTC);
+        val expiresAt = now.plus(sharding.leaseDuration());
+        val shardCount = sharding.shardCount();
+
+        if (jdbcTemplate.update("UPDATE outbox_lease_member SET heartbeat_at = ? WHERE member_id = ?", now, memberId) == 0) {
+            jdbcTemplate.update("INSERT INTO outbox_lease_member (member_id, heartbeat_at) VALUES (?, ?)", memberId, now);
+        }
+        jdbcTemplate.update("DELETE FROM outbox_lease_member WHERE heartbeat_at < ?", now.minus(sharding.leaseDuration()));
+        val members = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_lease_member", Integer.class);
+        val target = (shardCount + Math.max(members, 1) - 1) / Math.max(members, 1);
+
+        jdbcTemplate.update("UPDATE outbox_lease SET expires_at = ? WHERE owner = ? AND shard < ?", expiresAt, memberId, shardCount);
+        val owned = new ArrayList<>(jdbcTemplate.queryForList(
+                "SELECT shard FROM outbox_lease WHERE owner = ? AND shard < ? ORDER BY shard",
+                Integer.class, memberId, shardCount
+        ));
+
+        while (owned.size() > target) {
+            val shard = owned.removeLast();
+            jdbcTemplate.update("UPDATE outbox_lease SET owner = NULL, expires_at = NULL WHERE shard = ? AND owner = ?", shard, memberId);
+        }
+        if (owned.size() < target) {
+            val free = jdbcTemplate.queryForList(
+                    "SELECT shard FROM outbox_lease WHERE (owner IS NULL OR expires_at < ?) AND shard < ? ORDER BY shard",
+                    Integer.class, now, shardCount
+            );
+            for (val shard : free) {
+                if (owned.size() >= target) {
+                    break;
+                }
+                val claimed = jdbcTemplate.update(
+                        "UPDATE outbox_lease SET owner = ?, expires_at = ? WHERE shard = ? AND (owner IS NULL OR expires_at < ?)",
+                        memberId, expiresAt, shard, now
+                );
+                if (claimed == 1) {
+                    owned.add(shard);
+                }
+            }
+        }
+
+        val shards = Set.copyOf(owned);
+        if (!shards.equals(ownedShards)) {
+            log.info("Member {} owns {} of {} outbox shards across {} members: {}", memberId, shards.size(), shardCount, members, shards);
+        }
+        ownedShards = shards;
+        validUntil = expiresAt;
+    }
+
+    /**
+     * Check that no unprocessed event is stored in a shard beyond the configured shard count.
+     * The shard of an event is fixed when it is saved, so after lowering the shard count,
+     * events saved in the higher shards would never be claimed again by any replica.
+     *
+     * @throws IllegalStateException if unprocessed events are stored in shards beyond the shard count.
+     */
+    private void checkShardCount() {
+        val stranded = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM outbox WHERE processed = false AND shard >= ?",
+                Integer.class, sharding.shardCount()
+        );
+        if (stranded != null && stranded > 0) {
+            throw new IllegalStateException("Found " + stranded + " unprocessed outbox events in shards beyond the "
+                    + "shard count of " + sharding.shardCount() + ". Drain the outbox before lowering the shard count.");
+        }
+    }
+
+    /**
+     * Create a lease row for every shard that does not have one yet.
+     * Another replica may create the same row concurrently, in which case the duplicate is ignored.
+     */
+    private void createLeases() {
+        for (int shard = 0; shard < sharding.shardCount(); shard++) {
+            try {
+                jdbcTemplate.update(
+                        "INSERT INTO outbox_lease (shard) SELECT CAST(? AS INT) WHERE NOT EXISTS (SELECT 1 FROM outbox_lease WHERE shard = ?)",
+                        shard, shard
+                );
+            } catch (DuplicateKeyException e) {
+                log.debug("Outbox shard lease {} was created by another member", shard);
+            }
+        }
+    }
+}
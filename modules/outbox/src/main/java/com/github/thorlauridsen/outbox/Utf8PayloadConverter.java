@@ -0,0 +1,36 @@
+package com.github.thorlauridsen.outbox;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Converter for storing a JSON payload as UTF-8 encoded bytes.
+ * The payload column is a BYTEA column rather than a CLOB, so a batch of events
+ * is read in a single fetch without any large object handling or locator round-trips.
+ */
+@Converter
+public class Utf8PayloadConverter implements AttributeConverter<String, byte[]> {
+
+    /**
+     * Convert the JSON payload to UTF-8 encoded bytes.
+     *
+     * @param payload JSON payload.
+     * @return UTF-8 encoded bytes.
+     */
+    @Override
+    public byte[] convertToDatabaseColumn(String payload) {
+        return payload == null ? null : payload.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Convert UTF-8 encoded bytes to the JSON payload.
+     *
+     * @param bytes UTF-8 encoded bytes.
+     * @return JSON payload.
+     */
+    @Override
+    public String convertToEntityAttribute(byte[] bytes) {
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,9 +1,25 @@
 package com.github.thorlauridsen.producer;
 
 import com.github.thorlauridsen.event.BaseEventDto;
+import com.github.thorlauridsen.event.MessageAttributes;
+import com.github.thorlauridsen.model.enumeration.EventType;
+import com.github.thorlauridsen.model.event.OutboxEvent;
+import com.github.thorlauridsen.model.event.PublishResult;
 import io.awspring.cloud.sns.core.SnsTemplate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+import software.amazon.awssdk.services.sns.SnsClient;
+import software.amazon.awssdk.services.sns.model.CreateTopicRequest;
+import software.amazon.awssdk.services.sns.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequest;
+import software.amazon.awssdk.services.sns.model.PublishBatchRequestEntry;
 
 /**
  * Abstract class for an event producer.
@@ -15,16 +31,161 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public abstract class BaseEventProducer<T extends BaseEventDto> {
 
+    /**
+     * Maximum number of entries SNS accepts in a single PublishBatch request.
+     */
+    public static final int MAX_BATCH_SIZE = 10;
+
     private final SnsTemplate snsTemplate;
+    private final SnsClient snsClient;
     private final String topicArn;
 
+    private volatile String resolvedTopicArn;
+
     /**
      * Publish the event.
+     * The event type and id are set as message attributes, so consumers can route the event before deserializing it.
      *
      * @param event The event of type {@link T} to publish.
      */
     public void publish(T event) {
-        snsTemplate.convertAndSend(topicArn, event);
+        val headers = Map.<String, Object>of(
+                MessageAttributes.EVENT_TYPE, event.getEventType().name(),
+                MessageAttributes.EVENT_ID, event.getId().toString()
+        );
+        snsTemplate.convertAndSend(topicArn, event, headers);
         log.info("Published event: {} {}", event.getEventType(), event.getId());
     }
+
+    /**
+     * Publish a list of outbox events using SNS PublishBatch without re-serializing them.
+     * The payload stored in the outbox table is sent as the message as-is,
+     * so the events are neither deserialized nor serialized again on the way out.
+     * The event type and id are set as message attributes, together with the aggregate id
+     * and sequence number so consumers can process the events of an aggregate in order.
+     *
+     * @param events List of {@link OutboxEvent} to publish.
+     * @return {@link PublishResult} with the events that were published and the events that failed.
+     */
+    public PublishResult publishPayloads(List<OutboxEvent> events) {
+        val entries = new ArrayList<PublishBatchRequestEntry>(events.size());
+        for (val event : events) {
+            entries.add(entry(event.eventId(), event.eventType(), event.payload(), event.aggregateId(), event.sequence()));
+        }
+        return publishEntries(entries);
+    }
+
+    /**
+     * Create a PublishBatch entry for an event.
+     * The entry id is the UUID of the event so the response can be mapped back to the events.
+     * The aggregate id and sequence number are only set as message attributes if both are known.
+     *
+     * @param eventId     UUID of the event.
+     * @param eventType   {@link EventType} of the event.
+     * @param message     JSON message to publish.
+     * @param aggregateId UUID of the aggregate the event belongs to, or null.
+     * @param sequence    position of the event among the events of its aggregate, or null.
+     * @return {@link PublishBatchRequestEntry}.
+     */
+    private static PublishBatchRequestEntry entry(
+            UUID eventId,
+            EventType eventType,
+            String message,
+            UUID aggregateId,
+            Long sequence
+    ) {
+        val attributes = new HashMap<String, MessageAttributeValue>();
+        attributes.put(MessageAttributes.EVENT_TYPE, stringAttribute(eventType.name()));
+        attributes.put(MessageAttributes.EVENT_ID, stringAttribute(eventId.toString()));
+        if (aggregateId != null && sequence != null) {
+            attributes.put(MessageAttributes.AGGREGATE_ID, stringAttribute(aggregateId.toString()));
+            attributes.put(MessageAttributes.SEQUENCE, MessageAttributeValue.builder()
+                    .dataType("Number")
+                    .stringValue(sequence.toString())
+                    .build());
+        }
+        return PublishBatchRequestEntry.builder()
+                .id(eventId.toString())
+                .message(message)
+                .messageAttributes(attributes)
+                .build();
+    }
+
+    /**
+     * Create a string message attribute.
+     *
+     * @param value value of the attribute.
+     * @return {@link MessageAttributeValue}.
+     */
+    private static MessageAttributeValue stringAttribute(String value) {
+        return MessageAttributeValue.builder()
+                .dataType("String")
+                .stringValue(value)
+                .build();
+    }
+
+    /**
+     * Publish a list of entries in requests of up to {@link #MAX_BATCH_SIZE} entries.
+     *
+     * @param entries List of {@link PublishBatchRequestEntry} to publish.
+     * @return {@link PublishResult} for all entries.
+     */
+    private PublishResult publishEntries(List<PublishBatchRequestEntry> entries) {
+        var result = PublishResult.empty();
+        for (var i = 0; i < entries.size(); i += MAX_BATCH_SIZE) {
+            val chunk = entries.subList(i, Math.min(i + MAX_BATCH_SIZE, entries.size()));
+            result = result.merge(publishChunk(chunk));
+        }
+        return result;
+    }
+
+    /**
+     * Publish a single PublishBatch request of up to {@link #MAX_BATCH_SIZE} entries.
+     *
+     * @param entries List of {@link PublishBatchRequestEntry} to publish.
+     * @return {@link PublishResult} for the given entries.
+     */
+    private PublishResult publishChunk(List<PublishBatchRequestEntry> entries) {
+        try {
+            val request = PublishBatchRequest.builder()
+                    .topicArn(resolveTopicArn())
+                    .publishBatchRequestEntries(entries)
+                    .build();
+            val response = snsClient.publishBatch(request);
+
+            val published = new HashSet<UUID>();
+            for (val entry : response.successful()) {
+                published.add(UUID.fromString(entry.id()));
+            }
+            val failed = new HashMap<UUID, String>();
+            for (val entry : response.failed()) {
+                failed.put(UUID.fromString(entry.id()), entry.code() + ": " + entry.message());
+            }
+            log.info("Published {} of {} events to {}", published.size(), entries.size(), topicArn);
+            return new PublishResult(published, failed);
+
+        } catch (Exception e) {
+            log.error("Failed to publish batch of {} events to {}", entries.size(), topicArn, e);
+            val eventIds = entries.stream()
+                    .map(entry -> UUID.fromString(entry.id()))
+                    .toList();
+            return PublishResult.failed(eventIds, String.valueOf(e.getMessage()));
+        }
+    }
+
+    /**
+     * Resolve the topic ARN for PublishBatch.
+     * The configured topic may be a name rather than an ARN, in which case the ARN is
+     * looked up once through CreateTopic, which is idempotent, and cached.
+     *
+     * @return The SNS topic ARN.
+     */
+    private String resolveTopicArn() {
+        if (resolvedTopicArn == null) {
+            resolvedTopicArn = topicArn.startsWith("arn:")
+                    ? topicArn
+                    : snsClient.createTopic(CreateTopicRequest.builder().name(topicArn).build()).topicArn();
+        }
+        return resolvedTopicArn;
+    }
 }